@@ -1,5 +1,6 @@
 package com.pow.inv_manager.config;
 
+import com.pow.inv_manager.utils.Role;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,11 @@ public class SecurityConfig {
                         authRequest
                                 .requestMatchers("/api/admins/**").permitAll()
                                 .requestMatchers("/swagger-ui/index.html").permitAll()
+                                // Operational endpoints that re-drive messages or expose internals
+                                .requestMatchers("/api/orders/parked/redrive",
+                                        "/api/orders/listener/concurrency",
+                                        "/api/inventory/cache/stats",
+                                        "/api/items/cache/stats").hasAuthority(Role.ADMIN.toString())
                                 .anyRequest()
                                 .authenticated()
                 )
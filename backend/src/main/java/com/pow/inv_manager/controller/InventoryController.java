@@ -1,6 +1,10 @@
 package com.pow.inv_manager.controller;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
 import com.pow.inv_manager.dto.InventoryDTO;
+import com.pow.inv_manager.dto.InventoryFilterDTO;
+import com.pow.inv_manager.dto.InventoryPageDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
 import com.pow.inv_manager.exception.InventoryException;
 import com.pow.inv_manager.service.InventoryService;
 import org.springframework.http.ResponseEntity;
@@ -60,14 +64,14 @@ public class InventoryController {
     }
 
     /**
-     * Endpoint to reduce inventory quantity for an item.
-     * @param inventoryDTO the inventory data with reduced quantity
+     * Endpoint to take stock from one or more inventory items, all or nothing.
+     * @param reductions the inventory IDs and the quantities to take from each
      * @return ResponseEntity indicating the result of the operation
      */
     @PutMapping("/reduce")
-    public ResponseEntity<Void> reduceInventory(@RequestBody InventoryDTO inventoryDTO) {
+    public ResponseEntity<Void> reduceInventory(@RequestBody List<InventoryReductionDTO> reductions) {
         try {
-            inventoryService.reduceInventory(inventoryDTO);
+            inventoryService.reduceInventory(reductions);
             return ResponseEntity.noContent().build();
         } catch (InventoryException e) {
             return ResponseEntity.badRequest().build();
@@ -104,6 +108,26 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Endpoint to search inventory items one page at a time. Filters are optional and combined:
+     * category, minPrice/maxPrice, active, location and minQuantity/maxQuantity; sort is ID,
+     * PRICE or QUANTITY and direction ASC or DESC.
+     * @param filter the filters, sort key and direction, bound from the query parameters
+     * @param cursor the nextCursor returned with the previous page, omitted for the first page
+     * @param size the maximum number of items in the page
+     * @return ResponseEntity containing the page of items and the cursor of the next page
+     */
+    @GetMapping
+    public ResponseEntity<InventoryPageDTO> searchInventory(InventoryFilterDTO filter,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(inventoryService.searchInventory(filter, cursor, size));
+        } catch (InventoryException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Endpoint to retrieve all inventory items.
      * @return ResponseEntity containing the list of all inventory items
@@ -113,4 +137,13 @@ public class InventoryController {
         List<InventoryDTO> inventoryList = inventoryService.getInventory();
         return ResponseEntity.ok(inventoryList);
     }
+
+    /**
+     * Endpoint to read the hit ratio, evictions and load time of the inventory cache.
+     * @return ResponseEntity containing the cache statistics of this instance
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(inventoryService.getCacheStats());
+    }
 }
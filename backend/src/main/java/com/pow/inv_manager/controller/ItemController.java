@@ -1,12 +1,20 @@
 package com.pow.inv_manager.controller;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
+import com.pow.inv_manager.dto.FacetResultDTO;
 import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.ItemImportReportDTO;
+import com.pow.inv_manager.dto.ItemSearchHitDTO;
 import com.pow.inv_manager.exception.ItemException;
 import com.pow.inv_manager.service.ItemService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/items")
@@ -33,6 +41,28 @@ public class ItemController {
         }
     }
 
+    /**
+     * Endpoint to bulk-import items, each with an empty inventory row, from a streamed
+     * CSV (with a header row) or NDJSON body. Bad rows are skipped and reported by line.
+     * An import that stops midway answers 500 with the report of the rows handled so far.
+     * @param body the streamed request body
+     * @param contentType text/csv or application/x-ndjson
+     * @return ResponseEntity containing the import counts, the rejected rows and why the import stopped, if it did
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ItemImportReportDTO> importItems(InputStream body,
+                                                           @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        try {
+            ItemImportReportDTO report = itemService.importItems(body, contentType);
+            if (report.getAborted() != null) {
+                return ResponseEntity.internalServerError().body(report);
+            }
+            return ResponseEntity.ok(report);
+        } catch (ItemException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     /**
      * Endpoint to update an existing item by its ID.
      * @param id the ID of the item to update
@@ -64,6 +94,49 @@ public class ItemController {
         }
     }
 
+    /**
+     * Endpoint to search items by name, category and description, best match first. Every
+     * word of the query must match; with prefix set the last word may be incomplete, for typeahead.
+     * @param q the search text
+     * @param prefix whether to match the last word as a prefix
+     * @param limit the maximum number of results
+     * @return ResponseEntity containing the matching items with their scores
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ItemSearchHitDTO>> searchItems(@RequestParam String q,
+                                                              @RequestParam(defaultValue = "false") boolean prefix,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(itemService.searchItems(q, prefix, limit));
+        } catch (ItemException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Endpoint to filter the catalog by facets and count the rows behind every facet value.
+     * Values repeated within a facet are alternatives; different facets must all match.
+     * @param category the item categories to keep
+     * @param priceBand the price bands to keep, as labelled in the response
+     * @param inStock whether to keep rows that are active with stock left, or the others
+     * @param location the inventory locations to keep
+     * @param limit the maximum number of matching inventory IDs returned
+     * @return ResponseEntity containing the match count, the first matching inventory IDs and the facet counts
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetResultDTO> getFacets(@RequestParam(required = false) List<String> category,
+                                                    @RequestParam(required = false) List<String> priceBand,
+                                                    @RequestParam(required = false) Boolean inStock,
+                                                    @RequestParam(required = false) List<String> location,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        Map<String, List<String>> selections = new HashMap<>();
+        selections.put(ItemService.FACET_CATEGORY, category);
+        selections.put(ItemService.FACET_PRICE_BAND, priceBand);
+        selections.put(ItemService.FACET_IN_STOCK, inStock == null ? null : List.of(inStock.toString()));
+        selections.put(ItemService.FACET_LOCATION, location);
+        return ResponseEntity.ok(itemService.getFacets(selections, limit));
+    }
+
     /**
      * Endpoint to list all items.
      * @return ResponseEntity containing the list of all items
@@ -88,4 +161,13 @@ public class ItemController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Endpoint to read the hit ratio, evictions and load time of the item cache.
+     * @return ResponseEntity containing the cache statistics of this instance
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(itemService.getCacheStats());
+    }
 }
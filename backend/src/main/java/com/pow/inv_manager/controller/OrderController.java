@@ -1,36 +1,198 @@
 package com.pow.inv_manager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.ListenerConcurrencyDTO;
+import com.pow.inv_manager.dto.OrderPageDTO;
+import com.pow.inv_manager.dto.OrderRequestDTO;
+import com.pow.inv_manager.dto.OrderStatusChangeRequestDTO;
+import com.pow.inv_manager.dto.OrderStatusChangeResultDTO;
+import com.pow.inv_manager.exception.OrderConflictException;
 import com.pow.inv_manager.exception.OrderException;
-import com.pow.inv_manager.rabbitmq.MessagePublisherService;
+import com.pow.inv_manager.exception.OrderUnconfirmedException;
+import com.pow.inv_manager.rabbitmq.AdaptiveListenerConcurrency;
+import com.pow.inv_manager.rabbitmq.OrderIntakeTransport;
+import com.pow.inv_manager.rabbitmq.OrderMessageCodec;
+import com.pow.inv_manager.rabbitmq.OrderRetryService;
+import com.pow.inv_manager.service.OrderRequestService;
 import com.pow.inv_manager.service.OrderService;
+import com.pow.inv_manager.service.implementation.InventorySnapshot;
+import com.pow.inv_manager.utils.OrderRequestStatus;
 import com.pow.inv_manager.utils.OrderStatus;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
-    private final MessagePublisherService publisherService;
+    private final OrderIntakeTransport orderIntakeTransport;
+    private final OrderRequestService orderRequestService;
+    private final OrderRetryService orderRetryService;
+    private final ObjectProvider<AdaptiveListenerConcurrency> adaptiveListenerConcurrency;
+    private final InventorySnapshot inventorySnapshot;
+    private final OrderMessageCodec orderMessageCodec;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderService orderService, MessagePublisherService publisherService) {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_REQUEST_ID_LENGTH = 255;
+    private static final long MAX_POLL_WAIT_MS = 30_000;
+    private static final String PUBLISH_RETRY_AFTER_SECONDS = "1";
+
+    public OrderController(OrderService orderService, OrderIntakeTransport orderIntakeTransport,
+                           OrderRequestService orderRequestService, OrderRetryService orderRetryService,
+                           ObjectProvider<AdaptiveListenerConcurrency> adaptiveListenerConcurrency,
+                           InventorySnapshot inventorySnapshot, OrderMessageCodec orderMessageCodec,
+                           ObjectMapper objectMapper) {
         this.orderService = orderService;
-        this.publisherService = publisherService;
+        this.orderIntakeTransport = orderIntakeTransport;
+        this.orderRequestService = orderRequestService;
+        this.orderRetryService = orderRetryService;
+        this.adaptiveListenerConcurrency = adaptiveListenerConcurrency;
+        this.inventorySnapshot = inventorySnapshot;
+        this.orderMessageCodec = orderMessageCodec;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Endpoint to create a new order.
+     * Endpoint to submit a new order for asynchronous creation. Repeating a request with the
+     * same Idempotency-Key enqueues nothing and returns the state of the original request,
+     * unless the broker never confirmed the original, in which case the order is published
+     * again. Orders the in-memory inventory snapshot shows cannot succeed are rejected up front.
+     * @param idempotencyKey the client-chosen request ID, generated when absent
      * @param customerOrderDTO the order data to be created
-     * @return ResponseEntity containing the created order
+     * @return 202 with the request state and its status URL in the Location header once the
+     *         intake transport has safely queued it or, as UNCONFIRMED, when the broker did not
+     *         confirm it in time, 400 with the failure reason if the order is
+     *         invalid, or 503 if it was rejected or the transport is saturated
      */
     @PostMapping("/create")
-    public ResponseEntity<String> createOrder(@RequestBody CustomerOrderDTO customerOrderDTO) {
-        publisherService.sendOrderToQueue(customerOrderDTO);
-        return ResponseEntity.ok("Order successfully sent to de queue");
+    public CompletableFuture<ResponseEntity<OrderRequestDTO>> createOrder(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                          @RequestBody CustomerOrderDTO customerOrderDTO) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_REQUEST_ID_LENGTH)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        String requestId = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        URI statusLocation = UriComponentsBuilder.fromPath("/api/orders/requests/{requestId}")
+                .buildAndExpand(requestId)
+                .encode()
+                .toUri();
+
+        try {
+            orderMessageCodec.validate(customerOrderDTO);
+            inventorySnapshot.checkOrder(customerOrderDTO);
+        } catch (OrderException rejection) {
+            return CompletableFuture.completedFuture(rejectInvalidOrder(idempotencyKey, statusLocation, rejection));
+        }
+
+        if (!orderRequestService.registerRequest(requestId) && !orderRequestService.reclaimUnconfirmed(requestId)) {
+            try {
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.accepted().location(statusLocation).body(orderRequestService.getRequest(requestId)));
+            } catch (OrderException e) {
+                // The earlier attempt failed to enqueue and was discarded in the meantime
+                return CompletableFuture.completedFuture(ResponseEntity.status(409).body(null));
+            }
+        }
+
+        customerOrderDTO.setRequestId(requestId);
+        // Broker confirms arrive on the connection thread, so the outcome is handled off it
+        return orderIntakeTransport.submit(customerOrderDTO).handleAsync((confirmed, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof OrderUnconfirmedException) {
+                    // The order may be queued after all; the consumer settles the request if it arrives
+                    orderRequestService.markUnconfirmed(requestId);
+                    return ResponseEntity.accepted().location(statusLocation).body(OrderRequestDTO.builder()
+                            .requestId(requestId)
+                            .status(OrderRequestStatus.UNCONFIRMED.toString())
+                            .build());
+                }
+                orderRequestService.discardRequest(requestId);
+                if (cause instanceof OrderException rejection) {
+                    return ResponseEntity.badRequest().body(OrderRequestDTO.builder()
+                            .requestId(idempotencyKey)
+                            .status(OrderRequestStatus.FAILED.toString())
+                            .failureReason(rejection.getMessage())
+                            .build());
+                }
+                return ResponseEntity.status(503)
+                        .header(HttpHeaders.RETRY_AFTER, PUBLISH_RETRY_AFTER_SECONDS)
+                        .<OrderRequestDTO>body(null);
+            }
+            return ResponseEntity.accepted().location(statusLocation).body(OrderRequestDTO.builder()
+                    .requestId(requestId)
+                    .status(OrderRequestStatus.QUEUED.toString())
+                    .build());
+        });
+    }
+
+    /**
+     * A retried request may have been accepted before stock ran out, so a keyed request that
+     * already exists reports its original state instead of the rejection.
+     */
+    private ResponseEntity<OrderRequestDTO> rejectInvalidOrder(String idempotencyKey, URI statusLocation,
+                                                               OrderException rejection) {
+        if (idempotencyKey != null) {
+            try {
+                return ResponseEntity.accepted().location(statusLocation).body(orderRequestService.getRequest(idempotencyKey));
+            } catch (OrderException e) {
+                // Not seen before, so the rejection stands
+            }
+        }
+        return ResponseEntity.badRequest().body(OrderRequestDTO.builder()
+                .requestId(idempotencyKey)
+                .status(OrderRequestStatus.FAILED.toString())
+                .failureReason(rejection.getMessage())
+                .build());
+    }
+
+    /**
+     * Endpoint to poll the state of a submitted order. With a positive wait the response is
+     * held until the order is created or fails, or until the wait (capped at 30 seconds) elapses.
+     * @param requestId the request ID returned when the order was submitted
+     * @param wait the maximum time to wait for completion, in milliseconds
+     * @return ResponseEntity containing the request state
+     */
+    @GetMapping("/requests/{requestId}")
+    public DeferredResult<ResponseEntity<OrderRequestDTO>> getOrderRequest(@PathVariable String requestId,
+                                                                           @RequestParam(defaultValue = "0") long wait) {
+        OrderRequestDTO request;
+        try {
+            request = orderRequestService.getRequest(requestId);
+        } catch (OrderException e) {
+            DeferredResult<ResponseEntity<OrderRequestDTO>> notFound = new DeferredResult<>();
+            notFound.setResult(ResponseEntity.notFound().build());
+            return notFound;
+        }
+
+        if (wait <= 0 || !OrderRequestStatus.isPending(request.getStatus())) {
+            DeferredResult<ResponseEntity<OrderRequestDTO>> current = new DeferredResult<>();
+            current.setResult(ResponseEntity.ok(request));
+            return current;
+        }
+
+        DeferredResult<ResponseEntity<OrderRequestDTO>> result = new DeferredResult<>(Math.min(wait, MAX_POLL_WAIT_MS));
+        CompletableFuture<OrderRequestDTO> completion = orderRequestService.awaitCompletion(requestId);
+        completion.thenAccept(completed -> result.setResult(ResponseEntity.ok(completed)));
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(request)));
+        result.onCompletion(() -> completion.cancel(false));
+        return result;
     }
 
     /**
@@ -44,6 +206,8 @@ public class OrderController {
         try {
             CustomerOrderDTO updatedOrder = orderService.updateOrder(id, customerOrderDTO);
             return ResponseEntity.ok(updatedOrder);
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(409).body(null);
         } catch (OrderException e) {
             return ResponseEntity.badRequest().body(null);
         }
@@ -65,13 +229,53 @@ public class OrderController {
     }
 
     /**
-     * Endpoint to retrieve a list of all orders.
-     * @return ResponseEntity containing the list of all orders
+     * Endpoint to count all orders.
+     * @return ResponseEntity containing the number of orders
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Long> countOrders() {
+        return ResponseEntity.ok(orderService.countOrders());
+    }
+
+    /**
+     * Endpoint to retrieve orders one page at a time, newest first.
+     * @param cursor the nextCursor returned with the previous page, omitted for the first page
+     * @param size the maximum number of orders in the page
+     * @return ResponseEntity containing the page of orders and the cursor of the next page
      */
     @GetMapping("/all")
-    public ResponseEntity<List<CustomerOrderDTO>> getAllOrders() throws OrderException {
-        List<CustomerOrderDTO> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageDTO> getAllOrders(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "50") int size) {
+        try {
+            OrderPageDTO page = orderService.getOrdersPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (OrderException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Endpoint to stream every order as newline-delimited JSON, oldest first.
+     * @param response the response the orders are written to, one JSON object per line
+     * @throws IOException if writing to the response fails
+     */
+    @GetMapping(value = "/all/stream", produces = "application/x-ndjson")
+    public void streamAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try {
+            orderService.streamAllOrders(order -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(order));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
     }
 
     /**
@@ -105,6 +309,22 @@ public class OrderController {
         }
     }
 
+    /**
+     * Endpoint to move many orders to a new status at once. Only orders whose current status
+     * allows the transition are changed.
+     * @param request the order IDs and the target status
+     * @return ResponseEntity containing the outcome for each order ID
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<List<OrderStatusChangeResultDTO>> updateOrderStatuses(@RequestBody OrderStatusChangeRequestDTO request) {
+        try {
+            List<OrderStatusChangeResultDTO> results = orderService.updateOrderStatuses(request.getOrderIds(), request.getStatus());
+            return ResponseEntity.ok(results);
+        } catch (OrderException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Endpoint to retrieve all orders for a specific user.
      * @param userId the ID of the user whose orders are to be retrieved
@@ -130,4 +350,37 @@ public class OrderController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Endpoint to move parked order messages, those that failed every retry, back to the order queue.
+     * The re-drive runs in the background at a limited rate so it does not flood the listeners.
+     * @param max the maximum number of messages to re-drive
+     * @param rate the maximum messages per second, or 0 for the configured default
+     * @return 202 if the re-drive started, 409 if one is already running
+     */
+    @PostMapping("/parked/redrive")
+    public ResponseEntity<Void> redriveParkedOrders(@RequestParam(defaultValue = "100") int max,
+                                                    @RequestParam(defaultValue = "0") int rate) {
+        if (max <= 0 || rate < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!orderRetryService.startRedrive(max, rate)) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Endpoint to report the order listener's current consumer count and prefetch, the samples
+     * they were chosen from and the last change, when adaptive listener concurrency is enabled.
+     * @return ResponseEntity containing the latest sample, or 404 if adaptive concurrency is off
+     */
+    @GetMapping("/listener/concurrency")
+    public ResponseEntity<ListenerConcurrencyDTO> getListenerConcurrency() {
+        AdaptiveListenerConcurrency adaptive = adaptiveListenerConcurrency.getIfAvailable();
+        if (adaptive == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(adaptive.snapshot());
+    }
 }
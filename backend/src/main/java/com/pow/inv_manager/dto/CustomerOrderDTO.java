@@ -28,4 +28,7 @@ public class CustomerOrderDTO {
     private String status;
     private List<OrderItemDTO> orderItems;
     private double totalAmount;
+    private Long version;
+    private String requestId;
+    private Boolean express;
 }
@@ -0,0 +1,21 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetResultDTO {
+    private long total;
+    private List<Long> inventoryIds;
+    private Map<String, Map<String, Long>> facets;
+}
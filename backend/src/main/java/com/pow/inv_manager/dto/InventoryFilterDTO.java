@@ -0,0 +1,28 @@
+package com.pow.inv_manager.dto;
+
+import com.pow.inv_manager.utils.InventorySort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Sort;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryFilterDTO {
+    private String category;
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean active;
+    private String location;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+    @Builder.Default
+    private InventorySort sort = InventorySort.ID;
+    @Builder.Default
+    private Sort.Direction direction = Sort.Direction.ASC;
+}
@@ -0,0 +1,19 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPageDTO {
+    private List<InventoryDTO> inventory;
+    private String nextCursor;
+}
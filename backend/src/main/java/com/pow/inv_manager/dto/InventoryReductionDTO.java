@@ -0,0 +1,17 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReductionDTO {
+    private Long inventoryId;
+    private int quantity;
+}
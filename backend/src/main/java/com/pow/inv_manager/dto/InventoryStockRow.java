@@ -0,0 +1,15 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stock columns of one inventory row, read without loading the inventory entity or its item.
+ */
+@Getter
+@AllArgsConstructor
+public class InventoryStockRow {
+    private Long id;
+    private Boolean isActive;
+    private int quantity;
+}
@@ -0,0 +1,23 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemImportReportDTO {
+    private long imported;
+    private long failed;
+    private List<ItemImportErrorDTO> errors;
+    private boolean errorsTruncated;
+    /** Why the import stopped before the end of the body, or null if it read every row. */
+    private String aborted;
+}
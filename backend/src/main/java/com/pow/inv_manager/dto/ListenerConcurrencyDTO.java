@@ -0,0 +1,26 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListenerConcurrencyDTO {
+    private int consumers;
+    private int prefetch;
+    private long queueDepth;
+    private int dbActiveConnections;
+    private int dbMaxConnections;
+    private int dbThreadsAwaiting;
+    private String lastDecision;
+    private Date lastDecisionAt;
+    private Date sampledAt;
+}
@@ -0,0 +1,23 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDTO {
+    private String type;
+    private Long orderId;
+    private Long clientId;
+    private String status;
+    private Double totalAmount;
+    private Date occurredAt;
+}
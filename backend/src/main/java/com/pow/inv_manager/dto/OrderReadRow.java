@@ -0,0 +1,34 @@
+package com.pow.inv_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * One flat row of the order read projection: the order and client columns repeated for
+ * each order line. Line columns are null for an order without lines.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderReadRow {
+    private Long orderId;
+    private Date orderDate;
+    private String status;
+    private Double totalAmount;
+    private Long version;
+    private Long clientId;
+    private String clientFirstName;
+    private String clientLastName;
+    private String clientEmail;
+    private String clientPhone;
+    private String clientCountry;
+    private String clientCity;
+    private String clientStreet;
+    private Long orderItemId;
+    private Long inventoryId;
+    private String inventoryName;
+    private Integer quantity;
+    private Double unitPrice;
+    private Double subtotal;
+}
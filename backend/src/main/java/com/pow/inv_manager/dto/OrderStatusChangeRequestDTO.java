@@ -0,0 +1,20 @@
+package com.pow.inv_manager.dto;
+
+import com.pow.inv_manager.utils.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChangeRequestDTO {
+    private List<Long> orderIds;
+    private OrderStatus status;
+}
@@ -0,0 +1,19 @@
+package com.pow.inv_manager.dto;
+
+import com.pow.inv_manager.utils.StatusChangeOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChangeResultDTO {
+    private Long orderId;
+    private StatusChangeOutcome outcome;
+    private String currentStatus;
+}
@@ -2,22 +2,24 @@ package com.pow.inv_manager.dto.mapper;
 
 import com.pow.inv_manager.dto.CustomerOrderDTO;
 import com.pow.inv_manager.dto.OrderItemDTO;
-import com.pow.inv_manager.model.Client;
+import com.pow.inv_manager.dto.OrderReadRow;
+import com.pow.inv_manager.exception.OrderException;
 import com.pow.inv_manager.model.CustomerOrder;
 import com.pow.inv_manager.model.OrderItem;
-import com.pow.inv_manager.repository.ClientRepository;
+import com.pow.inv_manager.utils.OrderStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CustomerOrderMapper {
 
-    private final ClientRepository clientRepository;
     private final OrderItemMapper orderItemMapper;
 
-    public CustomerOrderMapper(ClientRepository clientRepository, OrderItemMapper orderItemMapper) {
-        this.clientRepository = clientRepository;
+    public CustomerOrderMapper(OrderItemMapper orderItemMapper) {
         this.orderItemMapper = orderItemMapper;
     }
 
@@ -44,25 +46,73 @@ public class CustomerOrderMapper {
                 .clientStreet(customerOrder.getClient().getAddress().getStreet())
                 .clientId(customerOrder.getClient().getId())
                 .totalAmount(customerOrder.getTotalAmount())
+                .version(customerOrder.getVersion())
+                .requestId(customerOrder.getRequestId())
                 .build();
     }
 
-    public CustomerOrder toEntity(CustomerOrderDTO customerOrderDTO) {
-        Client client = clientRepository.findById(customerOrderDTO.getClientId())
-                .orElseThrow(() -> new RuntimeException("Client not found with id: " + customerOrderDTO.getClientId()));
+    /**
+     * Groups flat read rows into order DTOs, keeping the row order, without going through
+     * managed entities.
+     *
+     * @param rows rows of the order read projection, all rows of an order next to each other
+     * @return one DTO per distinct order ID
+     */
+    public List<CustomerOrderDTO> toDTOs(List<OrderReadRow> rows) {
+        Map<Long, CustomerOrderDTO> orders = new LinkedHashMap<>();
+        for (OrderReadRow row : rows) {
+            CustomerOrderDTO order = orders.computeIfAbsent(row.getOrderId(), id -> CustomerOrderDTO.builder()
+                    .id(row.getOrderId())
+                    .status(row.getStatus())
+                    .orderDate(row.getOrderDate())
+                    .orderItems(new ArrayList<>())
+                    .clientFirstName(row.getClientFirstName())
+                    .clientLastName(row.getClientLastName())
+                    .clientPhone(row.getClientPhone())
+                    .clientEmail(row.getClientEmail())
+                    .clientCountry(row.getClientCountry())
+                    .clientCity(row.getClientCity())
+                    .clientStreet(row.getClientStreet())
+                    .clientId(row.getClientId())
+                    .totalAmount(row.getTotalAmount())
+                    .version(row.getVersion())
+                    .build());
 
-        List<OrderItem> orderItems = customerOrderDTO.getOrderItems().stream()
-                .map(orderItemMapper::toEntity)
-                .toList();
+            if (row.getOrderItemId() != null) {
+                order.getOrderItems().add(OrderItemDTO.builder()
+                        .id(row.getOrderItemId())
+                        .unitPrice(row.getUnitPrice())
+                        .subtotal(row.getSubtotal())
+                        .inventoryName(row.getInventoryName())
+                        .inventoryId(row.getInventoryId())
+                        .quantity(row.getQuantity())
+                        .build());
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Maps an order to be created. IDs, status and unit prices sent by the client are ignored:
+     * the order and its lines are new, a new order is always {@link OrderStatus#PENDING}, the
+     * status its stock reservation is taken for, and each line is priced from its catalog item.
+     */
+    public CustomerOrder toEntity(CustomerOrderDTO customerOrderDTO, OrderResolutionContext context) throws OrderException {
+        List<OrderItem> orderItems = orderItemMapper.toEntities(customerOrderDTO.getOrderItems(), context);
+        for (OrderItem orderItem : orderItems) {
+            orderItem.setId(null);
+            orderItem.setUnitPrice(orderItem.getInventory().getItem().getPrice());
+        }
 
         CustomerOrder customerOrder = CustomerOrder.builder()
-                .id(customerOrderDTO.getId())
-                .client(client)
+                .client(context.getClient(customerOrderDTO.getClientId()))
                 .orderDate(customerOrderDTO.getOrderDate())
-                .status(customerOrderDTO.getStatus())
+                .status(OrderStatus.PENDING.toString())
+                .requestId(customerOrderDTO.getRequestId())
                 .orderItems(orderItems)
                 .build();
 
+        orderItems.forEach(orderItem -> orderItem.setCustomerOrder(customerOrder));
         customerOrder.calculateTotalAmount();
 
         return customerOrder;
@@ -0,0 +1,59 @@
+package com.pow.inv_manager.dto.mapper;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.model.Client;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.repository.ClientRepository;
+import com.pow.inv_manager.repository.InventoryRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds an {@link OrderResolutionContext} for a set of order DTOs with one query for all
+ * clients and one for all inventory rows, regardless of how many lines the orders have.
+ */
+@Service
+public class OrderEntityResolver {
+
+    private final ClientRepository clientRepository;
+    private final InventoryRepository inventoryRepository;
+
+    public OrderEntityResolver(ClientRepository clientRepository, InventoryRepository inventoryRepository) {
+        this.clientRepository = clientRepository;
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    public OrderResolutionContext resolve(CustomerOrderDTO customerOrderDTO) {
+        return resolve(List.of(customerOrderDTO));
+    }
+
+    public OrderResolutionContext resolve(Collection<CustomerOrderDTO> customerOrderDTOs) {
+        Set<Long> clientIds = new HashSet<>();
+        Set<Long> inventoryIds = new HashSet<>();
+        for (CustomerOrderDTO customerOrderDTO : customerOrderDTOs) {
+            if (customerOrderDTO.getClientId() != null) {
+                clientIds.add(customerOrderDTO.getClientId());
+            }
+            for (OrderItemDTO orderItemDTO : customerOrderDTO.getOrderItems()) {
+                if (orderItemDTO.getInventoryId() != null) {
+                    inventoryIds.add(orderItemDTO.getInventoryId());
+                }
+            }
+        }
+
+        Map<Long, Client> clients = clientIds.isEmpty() ? Map.of() : clientRepository.findAllWithAddressByIdIn(clientIds).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        Map<Long, Inventory> inventories = inventoryIds.isEmpty() ? Map.of() : inventoryRepository.findAllWithItemByIdIn(inventoryIds).stream()
+                .collect(Collectors.toMap(Inventory::getId, Function.identity()));
+
+        return new OrderResolutionContext(clients, inventories);
+    }
+}
@@ -1,20 +1,16 @@
 package com.pow.inv_manager.dto.mapper;
 
 import com.pow.inv_manager.dto.OrderItemDTO;
-import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.exception.OrderException;
 import com.pow.inv_manager.model.OrderItem;
-import com.pow.inv_manager.repository.InventoryRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class OrderItemMapper {
 
-    private final InventoryRepository inventoryRepository;
-
-    public OrderItemMapper(InventoryRepository inventoryRepository) {
-        this.inventoryRepository = inventoryRepository;
-    }
-
     public OrderItemDTO toDTO(OrderItem orderItem) {
         return OrderItemDTO.builder()
                 .id(orderItem.getId())
@@ -26,16 +22,22 @@ public class OrderItemMapper {
                 .build();
     }
 
-    public OrderItem toEntity(OrderItemDTO orderItemDTO) {
-        Inventory inventory = inventoryRepository.findById(orderItemDTO.getInventoryId())
-                .orElseThrow(() -> new RuntimeException("Inventory not found with id: " + orderItemDTO.getInventoryId()));
-
-        return OrderItem.builder()
+    public OrderItem toEntity(OrderItemDTO orderItemDTO, OrderResolutionContext context) throws OrderException {
+        OrderItem orderItem = OrderItem.builder()
                 .id(orderItemDTO.getId())
-                .inventory(inventory)
+                .inventory(context.getInventory(orderItemDTO.getInventoryId()))
                 .quantity(orderItemDTO.getQuantity())
                 .unitPrice(orderItemDTO.getUnitPrice())
-                .subtotal(orderItemDTO.getSubtotal())
                 .build();
+        orderItem.calculateSubtotal();
+        return orderItem;
+    }
+
+    public List<OrderItem> toEntities(List<OrderItemDTO> orderItemDTOs, OrderResolutionContext context) throws OrderException {
+        List<OrderItem> orderItems = new ArrayList<>(orderItemDTOs.size());
+        for (OrderItemDTO orderItemDTO : orderItemDTOs) {
+            orderItems.add(toEntity(orderItemDTO, context));
+        }
+        return orderItems;
     }
 }
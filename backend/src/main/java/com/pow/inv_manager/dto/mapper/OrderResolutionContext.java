@@ -0,0 +1,39 @@
+package com.pow.inv_manager.dto.mapper;
+
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.Client;
+import com.pow.inv_manager.model.Inventory;
+
+import java.util.Map;
+
+/**
+ * Clients and inventory rows (with their items) referenced by one or more order DTOs,
+ * loaded up front by {@link OrderEntityResolver} so that mapping the order lines does
+ * not hit the database again. Lives for the duration of a single service call.
+ */
+public class OrderResolutionContext {
+
+    private final Map<Long, Client> clients;
+    private final Map<Long, Inventory> inventories;
+
+    OrderResolutionContext(Map<Long, Client> clients, Map<Long, Inventory> inventories) {
+        this.clients = clients;
+        this.inventories = inventories;
+    }
+
+    public Client getClient(Long clientId) throws OrderException {
+        Client client = clients.get(clientId);
+        if (client == null) {
+            throw new OrderException("Client not found with id: " + clientId);
+        }
+        return client;
+    }
+
+    public Inventory getInventory(Long inventoryId) throws OrderException {
+        Inventory inventory = inventories.get(inventoryId);
+        if (inventory == null) {
+            throw new OrderException("Inventory not found with id: " + inventoryId);
+        }
+        return inventory;
+    }
+}
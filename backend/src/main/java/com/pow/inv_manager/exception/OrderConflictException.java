@@ -0,0 +1,14 @@
+package com.pow.inv_manager.exception;
+
+/**
+ * Thrown when an order was changed by someone else since the version the caller read.
+ */
+public class OrderConflictException extends OrderException {
+    public OrderConflictException(String message) {
+        super(message);
+    }
+
+    public OrderConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
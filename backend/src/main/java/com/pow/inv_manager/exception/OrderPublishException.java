@@ -0,0 +1,15 @@
+package com.pow.inv_manager.exception;
+
+/**
+ * Thrown when an order could not be handed to the broker: it was rejected, not routed,
+ * not confirmed in time, or the publisher had too many orders awaiting confirmation.
+ */
+public class OrderPublishException extends OrderException {
+    public OrderPublishException(String message) {
+        super(message);
+    }
+
+    public OrderPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
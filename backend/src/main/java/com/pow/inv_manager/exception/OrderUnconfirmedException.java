@@ -0,0 +1,11 @@
+package com.pow.inv_manager.exception;
+
+/**
+ * Thrown when the broker did not confirm an order in time. Unlike other publish failures
+ * the order may still have been queued, so its request must not be forgotten.
+ */
+public class OrderUnconfirmedException extends OrderPublishException {
+    public OrderUnconfirmedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pow.inv_manager.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Marks a one-time maintenance job as done, so it is not run again on the next start.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletedJob {
+
+    @Id
+    private String name;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date completedAt;
+}
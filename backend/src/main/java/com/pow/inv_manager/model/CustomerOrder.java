@@ -2,26 +2,33 @@ package com.pow.inv_manager.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Date;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_customer_order_total_amount", columnList = "total_amount"))
 @Getter
 @Setter
 @Builder
@@ -42,20 +49,30 @@ public class CustomerOrder {
 
     private String status;
 
+    /** Idempotency key of the queued request that created this order, if any. */
+    @Column(name = "request_id", unique = true)
+    private String requestId;
+
     @OneToMany(mappedBy = "customerOrder", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     @JsonManagedReference
     private List<OrderItem> orderItems;
 
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "total_amount")
+    @ColumnDefault("0")
     private double totalAmount;
 
+    /**
+     * Recomputes the stored total from the stored line subtotals. Call it whenever lines
+     * are added, removed or changed.
+     */
     public void calculateTotalAmount() {
         totalAmount = orderItems.stream()
                 .mapToDouble(OrderItem::getSubtotal)
                 .sum();
     }
-
-    public double getTotalAmount() {
-        calculateTotalAmount();
-        return totalAmount;
-    }
 }
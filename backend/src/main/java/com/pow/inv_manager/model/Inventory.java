@@ -4,8 +4,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -13,6 +15,12 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_inventory_item_id", columnList = "item_id"),
+        @Index(name = "idx_inventory_location_id", columnList = "location, id"),
+        @Index(name = "idx_inventory_quantity_id", columnList = "quantity, id"),
+        @Index(name = "idx_inventory_active_id", columnList = "is_active, id")
+})
 @Getter
 @Setter
 @Builder
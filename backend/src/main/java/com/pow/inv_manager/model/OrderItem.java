@@ -1,13 +1,18 @@
 package com.pow.inv_manager.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.Transient;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,8 +20,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CascadeType;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Table(indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id"))
 @Getter
 @Setter
 @Builder
@@ -41,10 +48,24 @@ public class OrderItem {
     private int quantity;
     private double unitPrice;
 
-    @Transient
+    @Setter(AccessLevel.NONE)
+    @Column(name = "subtotal")
+    @ColumnDefault("0")
     private double subtotal;
 
-    public double getSubtotal() {
-        return quantity * unitPrice;
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+        calculateSubtotal();
+    }
+
+    public void setUnitPrice(double unitPrice) {
+        this.unitPrice = unitPrice;
+        calculateSubtotal();
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void calculateSubtotal() {
+        subtotal = quantity * unitPrice;
     }
 }
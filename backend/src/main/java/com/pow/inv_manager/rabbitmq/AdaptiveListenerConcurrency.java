@@ -0,0 +1,189 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.ListenerConcurrencyDTO;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * Adjusts the order listener's consumer count and prefetch to the backlog and to how busy the
+ * database is. Every interval it samples the depth of {@code order_queue} and the Hikari pool:
+ * <ul>
+ *     <li>threads waiting for a connection, or active connections above {@code db-high-water}
+ *     of the pool, scale the listener down, so it stops adding transactions to a saturated pool;</li>
+ *     <li>a backlog above {@code scale-up-depth} with active connections below
+ *     {@code db-low-water} scales it up;</li>
+ *     <li>an empty queue with an idle pool steps it back towards the minimum.</li>
+ * </ul>
+ * A signal must hold for {@code samples} consecutive samples before acting, and the streak
+ * restarts after every change, so the listener does not flap between settings. Consumers move
+ * one at a time and prefetch doubles or halves within its bounds. A consumer reads its prefetch
+ * only when it starts, so a prefetch change restarts the listener; messages prefetched by the
+ * stopped consumers go back to the queue. Decisions are logged and reported by {@link #snapshot()}.
+ */
+@Slf4j
+@Component
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+@ConditionalOnProperty(name = "orders.listener.adaptive.enabled", havingValue = "true")
+public class AdaptiveListenerConcurrency {
+
+    private enum Signal { SCALE_UP, SCALE_DOWN, RELAX, HOLD }
+
+    @Value("${orders.listener.adaptive.min-consumers:1}")
+    private int minConsumers;
+
+    @Value("${orders.listener.adaptive.max-consumers:8}")
+    private int maxConsumers;
+
+    @Value("${orders.listener.adaptive.min-prefetch:10}")
+    private int minPrefetch;
+
+    @Value("${orders.listener.adaptive.max-prefetch:250}")
+    private int maxPrefetch;
+
+    @Value("${orders.listener.adaptive.scale-up-depth:500}")
+    private long scaleUpDepth;
+
+    @Value("${orders.listener.adaptive.samples:3}")
+    private int requiredSamples;
+
+    @Value("${orders.listener.adaptive.db-high-water:0.9}")
+    private double dbHighWater;
+
+    @Value("${orders.listener.adaptive.db-low-water:0.6}")
+    private double dbLowWater;
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final DataSource dataSource;
+
+    private Signal streakSignal = Signal.HOLD;
+    private int streak;
+    private volatile ListenerConcurrencyDTO snapshot = new ListenerConcurrencyDTO();
+
+    public AdaptiveListenerConcurrency(RabbitListenerEndpointRegistry listenerRegistry, AmqpAdmin amqpAdmin,
+                                       DataSource dataSource) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.dataSource = dataSource;
+    }
+
+    public ListenerConcurrencyDTO snapshot() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.listener.adaptive.interval:5000}")
+    public void adjust() {
+        MessageListenerContainer listener = listenerRegistry.getListenerContainer(RabbitMQConfig.ORDER_LISTENER_ID);
+        if (!(listener instanceof SimpleMessageListenerContainer container) || !container.isRunning()) {
+            return;
+        }
+        HikariDataSource hikari = hikariDataSource();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        QueueInformation queue = amqpAdmin.getQueueInfo(RabbitMQConfig.QUEUE_ORDER);
+        if (pool == null || queue == null) {
+            return;
+        }
+
+        long depth = queue.getMessageCount();
+        int active = pool.getActiveConnections();
+        int awaiting = pool.getThreadsAwaitingConnection();
+        int maxConnections = hikari.getMaximumPoolSize();
+        Signal signal = signal(depth, active, awaiting, maxConnections);
+
+        streak = signal == streakSignal ? streak + 1 : 1;
+        streakSignal = signal;
+
+        int consumers = container.getActiveConsumerCount();
+        int prefetch = snapshot.getPrefetch() > 0 ? snapshot.getPrefetch() : prefetchOf(container);
+        String decision = null;
+        if (signal != Signal.HOLD && streak >= requiredSamples) {
+            int targetConsumers = switch (signal) {
+                case SCALE_UP -> Math.min(consumers + 1, maxConsumers);
+                case SCALE_DOWN, RELAX -> Math.max(consumers - 1, minConsumers);
+                case HOLD -> consumers;
+            };
+            int targetPrefetch = switch (signal) {
+                case SCALE_UP, RELAX -> Math.min(prefetch * 2, maxPrefetch);
+                case SCALE_DOWN -> Math.max(prefetch / 2, minPrefetch);
+                case HOLD -> prefetch;
+            };
+            if (targetPrefetch != prefetch) {
+                container.stop();
+                container.setPrefetchCount(targetPrefetch);
+                container.setConcurrentConsumers(targetConsumers);
+                container.start();
+            } else if (targetConsumers != consumers) {
+                container.setConcurrentConsumers(targetConsumers);
+            }
+            if (targetConsumers != consumers || targetPrefetch != prefetch) {
+                decision = signal + ": consumers " + consumers + " -> " + targetConsumers
+                        + ", prefetch " + prefetch + " -> " + targetPrefetch;
+                log.info("Order listener {} (queue depth {}, db active {}/{}, waiting {})",
+                        decision, depth, active, maxConnections, awaiting);
+                consumers = targetConsumers;
+                prefetch = targetPrefetch;
+            }
+            streak = 0;
+        }
+
+        Date now = new Date();
+        snapshot = ListenerConcurrencyDTO.builder()
+                .consumers(consumers)
+                .prefetch(prefetch)
+                .queueDepth(depth)
+                .dbActiveConnections(active)
+                .dbMaxConnections(maxConnections)
+                .dbThreadsAwaiting(awaiting)
+                .lastDecision(decision != null ? decision : snapshot.getLastDecision())
+                .lastDecisionAt(decision != null ? now : snapshot.getLastDecisionAt())
+                .sampledAt(now)
+                .build();
+    }
+
+    private Signal signal(long depth, int active, int awaiting, int maxConnections) {
+        if (awaiting > 0 || active >= maxConnections * dbHighWater) {
+            return Signal.SCALE_DOWN;
+        }
+        if (depth > scaleUpDepth && active < maxConnections * dbLowWater) {
+            return Signal.SCALE_UP;
+        }
+        if (depth == 0 && active < maxConnections * dbLowWater) {
+            return Signal.RELAX;
+        }
+        return Signal.HOLD;
+    }
+
+    /**
+     * @return the prefetch the container's consumers were started with; the container has no
+     *         public getter for it
+     */
+    private static int prefetchOf(SimpleMessageListenerContainer container) {
+        Object prefetch = new DirectFieldAccessor(container).getPropertyValue("prefetchCount");
+        return prefetch instanceof Integer value ? value : AbstractMessageListenerContainer.DEFAULT_PREFETCH_COUNT;
+    }
+
+    private HikariDataSource hikariDataSource() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.service.implementation.NearCaches;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shares near-cache invalidations between instances over the
+ * {@value RabbitMQConfig#CACHE_INVALIDATION_EXCHANGE} fanout exchange. Each instance consumes
+ * from its own auto-deleted queue and ignores the messages it sent. Messages are
+ * {@code <cache>:<id>,<id>,...} with at most {@value #MAX_IDS_PER_MESSAGE} IDs and carry no
+ * payload beyond that. Received invalidations are applied to the near caches and then
+ * published as a {@link RemoteCacheInvalidation} event. Not active with the
+ * {@value OrderIntakeTransport#IN_PROCESS_PROFILE} profile, which runs a single node.
+ */
+@Slf4j
+@Component
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+public class CacheInvalidationBroadcaster {
+
+    private static final String ORIGIN_HEADER = "x-origin";
+    static final int MAX_IDS_PER_MESSAGE = 1000;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final RabbitTemplate rabbitTemplate;
+    private final NearCaches nearCaches;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CacheInvalidationBroadcaster(RabbitTemplate rabbitTemplate, NearCaches nearCaches,
+                                        ApplicationEventPublisher eventPublisher) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.nearCaches = nearCaches;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void publish(String cache, Collection<Long> ids) {
+        List<Long> chunk = new ArrayList<>(Math.min(ids.size(), MAX_IDS_PER_MESSAGE));
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == MAX_IDS_PER_MESSAGE) {
+                send(cache, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            send(cache, chunk);
+        }
+    }
+
+    private void send(String cache, List<Long> ids) {
+        StringBuilder body = new StringBuilder(cache).append(':');
+        for (int i = 0; i < ids.size(); i++) {
+            body.append(i == 0 ? "" : ",").append(ids.get(i));
+        }
+        Message message = MessageBuilder.withBody(body.toString().getBytes(StandardCharsets.UTF_8))
+                .setHeader(ORIGIN_HEADER, instanceId)
+                .build();
+        try {
+            rabbitTemplate.send(RabbitMQConfig.CACHE_INVALIDATION_EXCHANGE, "", message);
+        } catch (AmqpException e) {
+            // Other instances fall back to the cache TTL
+            log.warn("Could not broadcast invalidation of {} {}", cache, ids, e);
+        }
+    }
+
+    @RabbitListener(queues = "#{@cacheInvalidationQueue.name()}")
+    public void onInvalidation(Message message) {
+        if (instanceId.equals(message.getMessageProperties().getHeader(ORIGIN_HEADER))) {
+            return;
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        String cache;
+        List<Long> ids = new ArrayList<>();
+        try {
+            cache = body.substring(0, separator);
+            for (String id : body.substring(separator + 1).split(",")) {
+                ids.add(Long.valueOf(id));
+            }
+            for (Long id : ids) {
+                nearCaches.invalidateLocal(cache, id);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            log.warn("Ignoring malformed cache invalidation '{}'", body);
+            return;
+        }
+        eventPublisher.publishEvent(new RemoteCacheInvalidation(cache, ids));
+    }
+}
@@ -0,0 +1,8 @@
+package com.pow.inv_manager.rabbitmq;
+
+/**
+ * The exclusive queue on which this instance receives near-cache invalidations. Its name is
+ * generated once per instance, so it is a bean rather than a constant in {@link RabbitMQConfig}.
+ */
+public record CacheInvalidationQueue(String name) {
+}
@@ -0,0 +1,217 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.exception.OrderPublishException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intake transport for single-node deployments and tests, active with the
+ * {@value OrderIntakeTransport#IN_PROCESS_PROFILE} profile. Orders are handed to worker threads
+ * through a bounded queue in this JVM, with no broker round-trip. When the queue is full a
+ * submit waits up to {@code offer-timeout} ms and is then rejected.
+ * <p>
+ * Queued orders live only in memory unless {@code journal.enabled} is set; then each accepted
+ * order is appended to an {@link OrderJournal} first and replayed on the next start if it was
+ * not processed. Transient failures are retried with the delays of {@code orders.retry.*},
+ * as on the RabbitMQ transport, and are marked FAILED once the attempts are used up.
+ */
+@Slf4j
+@Component
+@Profile(OrderIntakeTransport.IN_PROCESS_PROFILE)
+public class InProcessOrderTransport implements OrderIntakeTransport {
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    @Value("${orders.intake.inprocess.workers:4}")
+    private int workerCount;
+
+    @Value("${orders.intake.inprocess.offer-timeout:100}")
+    private long offerTimeoutMs;
+
+    @Value("${orders.intake.inprocess.shutdown-timeout:10000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${orders.intake.inprocess.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${orders.intake.inprocess.journal.path:data/order-intake.journal}")
+    private String journalPath;
+
+    @Value("${orders.intake.inprocess.journal.fsync:true}")
+    private boolean journalFsync;
+
+    private final OrderIntakeHandler orderIntakeHandler;
+    private final OrderRetryService orderRetryService;
+    private final OrderMessageCodec orderMessageCodec;
+    private final BlockingQueue<IntakeEntry> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-intake-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private OrderJournal journal;
+    private volatile boolean running;
+
+    public InProcessOrderTransport(OrderIntakeHandler orderIntakeHandler, OrderRetryService orderRetryService,
+                                   OrderMessageCodec orderMessageCodec,
+                                   @Value("${orders.intake.inprocess.capacity:10000}") int capacity) {
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.orderRetryService = orderRetryService;
+        this.orderMessageCodec = orderMessageCodec;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() throws IOException, InterruptedException {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "order-intake-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        if (journalEnabled) {
+            journal = new OrderJournal(Path.of(journalPath), journalFsync);
+            Map<Long, byte[]> pending = journal.open();
+            if (!pending.isEmpty()) {
+                log.info("Replaying {} orders from intake journal {}", pending.size(), journalPath);
+            }
+            for (Map.Entry<Long, byte[]> entry : pending.entrySet()) {
+                try {
+                    queue.put(new IntakeEntry(entry.getKey(), orderMessageCodec.decode(entry.getValue()), 0));
+                } catch (OrderException e) {
+                    log.error("Dropping unreadable intake journal entry {}", entry.getKey(), e);
+                    complete(entry.getKey());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread worker : workers) {
+            worker.join(Math.max(deadline - System.currentTimeMillis(), 1));
+        }
+        retryScheduler.shutdownNow();
+        if (!queue.isEmpty()) {
+            log.warn("{} queued orders were not processed before shutdown{}", queue.size(),
+                    journal != null ? " and will be replayed from the journal" : " and are lost");
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(CustomerOrderDTO customerOrderDTO) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new OrderPublishException("Order intake is shutting down"));
+        }
+
+        long sequence = -1;
+        if (journal != null) {
+            try {
+                sequence = journal.append(orderMessageCodec.encode(customerOrderDTO));
+            } catch (OrderException e) {
+                return CompletableFuture.failedFuture(e);
+            } catch (IOException e) {
+                log.error("Failed to journal order request {}", customerOrderDTO.getRequestId(), e);
+                return CompletableFuture.failedFuture(new OrderPublishException("Failed to journal order", e));
+            }
+        }
+
+        try {
+            if (queue.offer(new IntakeEntry(sequence, customerOrderDTO, 0), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Not queued: take the entry back out of the journal so it is not replayed later
+        complete(sequence);
+        log.warn("Rejecting order, intake queue is full");
+        return CompletableFuture.failedFuture(new OrderPublishException("Order intake queue is full"));
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            IntakeEntry entry;
+            try {
+                entry = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (entry != null) {
+                process(entry);
+            }
+        }
+    }
+
+    private void process(IntakeEntry entry) {
+        CustomerOrderDTO order = entry.order();
+        try {
+            orderIntakeHandler.process(order);
+        } catch (Exception e) {
+            if (!orderRetryService.rejectIfFinal(order, e)) {
+                int attempts = entry.attempts() + 1;
+                long delay = orderRetryService.retryDelay(attempts);
+                if (delay >= 0 && running) {
+                    log.warn("Order request {} failed on attempt {}, retrying in {} ms", order.getRequestId(), attempts, delay, e);
+                    retryScheduler.schedule(() -> requeue(new IntakeEntry(entry.sequence(), order, attempts)),
+                            delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                log.error("Giving up on order request {} after {} attempts", order.getRequestId(), attempts, e);
+                orderRetryService.markFailed(order, "Order could not be processed after " + attempts + " attempts");
+            }
+        }
+        complete(entry.sequence());
+    }
+
+    private void requeue(IntakeEntry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            // Shutting down; a journaled entry is replayed on the next start
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void complete(long sequence) {
+        if (journal == null || sequence < 0) {
+            return;
+        }
+        try {
+            journal.markDone(sequence);
+        } catch (IOException e) {
+            log.error("Failed to acknowledge intake journal entry {}", sequence, e);
+        }
+    }
+
+    private record IntakeEntry(long sequence, CustomerOrderDTO order, int attempts) {
+    }
+}
@@ -1,29 +1,231 @@
 package com.pow.inv_manager.rabbitmq;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pow.inv_manager.dto.CustomerOrderDTO;
-import lombok.RequiredArgsConstructor;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.exception.OrderPublishException;
+import com.pow.inv_manager.exception.OrderUnconfirmedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes orders to the order queue, encoded by {@link OrderMessageCodec}, with correlated
+ * publisher confirms. Each send returns a future that completes once the broker has
+ * acknowledged and routed the message. It fails with {@link OrderPublishException} if the
+ * broker rejected or could not route the message, and with {@link OrderUnconfirmedException}
+ * if no confirm arrived within {@code confirm-timeout} ms, in which case the message may
+ * still have been queued.
+ * <p>
+ * At most {@code orders.publisher.max-in-flight} messages may await confirmation; beyond
+ * that a send waits up to {@code acquire-timeout} ms and is then rejected, so callers see
+ * backpressure instead of an unbounded backlog. With {@code orders.publisher.batch.enabled}
+ * messages are collected for up to {@code batch.window} ms and published on one channel.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class MessagePublisherService {
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+public class MessagePublisherService implements OrderIntakeTransport {
 
     private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final OrderMessageCodec orderMessageCodec;
+    private final OrderPartitioner orderPartitioner;
+    private final OrderPriorityClassifier orderPriorityClassifier;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final BlockingQueue<PendingPublish> pending = new LinkedBlockingQueue<>();
+
+    @Value("${orders.publisher.acquire-timeout:100}")
+    private long acquireTimeoutMs;
+
+    @Value("${orders.publisher.confirm-timeout:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${orders.publisher.batch.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${orders.publisher.batch.size:100}")
+    private int batchSize;
+
+    @Value("${orders.publisher.batch.window:5}")
+    private long batchWindowMs;
+
+    private volatile boolean running;
+    private Thread batchPublisher;
+
+    public MessagePublisherService(RabbitTemplate rabbitTemplate, OrderMessageCodec orderMessageCodec,
+                                   OrderPartitioner orderPartitioner, OrderPriorityClassifier orderPriorityClassifier,
+                                   @Value("${orders.publisher.max-in-flight:1000}") int maxInFlight) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.orderMessageCodec = orderMessageCodec;
+        this.orderPartitioner = orderPartitioner;
+        this.orderPriorityClassifier = orderPriorityClassifier;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!batchingEnabled) {
+            return;
+        }
+        running = true;
+        batchPublisher = new Thread(this::runBatchPublisher, "order-publisher-batch");
+        batchPublisher.setDaemon(true);
+        batchPublisher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (batchPublisher != null) {
+            batchPublisher.interrupt();
+            batchPublisher.join(confirmTimeoutMs);
+        }
+        List<PendingPublish> unsent = new ArrayList<>();
+        pending.drainTo(unsent);
+        unsent.forEach(publish -> publish.result().completeExceptionally(new OrderPublishException("Publisher is shutting down")));
+    }
 
-    public void sendOrderToQueue(CustomerOrderDTO customerOrderDTO) {
+    /**
+     * Queues an order for publishing.
+     *
+     * @param customerOrderDTO the order to publish
+     * @return a future completed when the broker confirms the message
+     */
+    @Override
+    public CompletableFuture<Void> submit(CustomerOrderDTO customerOrderDTO) {
+        // Built before taking a permit, so a failure here cannot leak one
+        String correlationId = customerOrderDTO.getRequestId() != null ? customerOrderDTO.getRequestId() : UUID.randomUUID().toString();
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(OrderMessageCodec.CONTENT_TYPE);
+        properties.setMessageId(correlationId);
+        Message message;
         try {
-            String jsonMessage = objectMapper.writeValueAsString(customerOrderDTO);
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE, RabbitMQConfig.ROUTING_KEY_ORDER, jsonMessage);
-            log.info("Order sent successfully: {}", jsonMessage);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to convert OrderDTO to JSON: {}", customerOrderDTO, e);
+            message = new Message(orderMessageCodec.encode(customerOrderDTO), properties);
+        } catch (OrderException e) {
+            return CompletableFuture.failedFuture(e);
         }
+
+        String routingKey = orderPriorityClassifier.isExpress(customerOrderDTO)
+                ? RabbitMQConfig.ROUTING_KEY_ORDER_EXPRESS
+                : orderPartitioner.routingKey(customerOrderDTO);
+        PendingPublish publish = new PendingPublish(routingKey, message,
+                new CorrelationData(correlationId), new CompletableFuture<>());
+
+        try {
+            if (!inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Rejecting order, {} messages already await broker confirmation", maxInFlight);
+                return CompletableFuture.failedFuture(new OrderPublishException("Too many orders awaiting broker confirmation"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new OrderPublishException("Interrupted while waiting to publish order", e));
+        }
+        publish.result().whenComplete((ignored, error) -> inFlight.release());
+
+        if (batchingEnabled && running) {
+            pending.add(publish);
+            // stop() may have drained the queue between the check and the add
+            if (!running && pending.remove(publish)) {
+                publish.result().completeExceptionally(new OrderPublishException("Publisher is shutting down"));
+            }
+        } else {
+            publishWith(rabbitTemplate, publish);
+        }
+        return publish.result();
     }
-}
 
+    private void runBatchPublisher() {
+        List<PendingPublish> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingPublish first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingPublish next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                publishBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        // Publish what was collected or queued before shutdown
+        pending.drainTo(batch);
+        publishBatch(batch);
+    }
+
+    private void publishBatch(List<PendingPublish> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            rabbitTemplate.invoke(operations -> {
+                batch.forEach(publish -> publishWith(operations, publish));
+                return null;
+            });
+        } catch (AmqpException e) {
+            log.error("Failed to publish batch of {} orders", batch.size(), e);
+            batch.forEach(publish -> publish.result().completeExceptionally(new OrderPublishException("Failed to publish order", e)));
+        }
+    }
+
+    private void publishWith(RabbitOperations operations, PendingPublish publish) {
+        try {
+            operations.send(RabbitMQConfig.EXCHANGE, publish.routingKey(), publish.message(), publish.correlation());
+        } catch (AmqpException e) {
+            log.error("Failed to publish order {}", publish.correlation().getId(), e);
+            publish.result().completeExceptionally(new OrderPublishException("Failed to publish order", e));
+            return;
+        }
+
+        publish.correlation().getFuture()
+                .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, error) -> {
+                    ReturnedMessage returned = publish.correlation().getReturned();
+                    if (error != null) {
+                        publish.result().completeExceptionally(new OrderUnconfirmedException("No broker confirmation for order", error));
+                    } else if (!confirm.isAck()) {
+                        publish.result().completeExceptionally(new OrderPublishException("Broker rejected order: " + confirm.getReason()));
+                    } else if (returned != null) {
+                        publish.result().completeExceptionally(new OrderPublishException("Order could not be routed: " + returned.getReplyText()));
+                    } else {
+                        log.debug("Order {} confirmed by broker", publish.correlation().getId());
+                        publish.result().complete(null);
+                    }
+                });
+    }
+
+    private record PendingPublish(String routingKey, Message message, CorrelationData correlation, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batch counterpart of {@link OrderListener}, active when {@code orders.listener.batch.enabled}
+ * is set. Each delivery is a list of messages that is persisted in one transaction.
+ * <p>
+ * Request IDs seen recently, or twice within the batch, are dropped before persisting. A
+ * message that cannot be decoded goes to {@link OrderRetryService} on its own; if the batch
+ * transaction fails, the orders are retried one by one so only the bad ones are handed over.
+ * While the database is down the batch goes to the {@link OrderOutageJournal}.
+ */
+@Slf4j
+@Service
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+@ConditionalOnProperty(name = "orders.listener.batch.enabled", havingValue = "true")
+public class OrderBatchListener {
+
+    private final OrderService orderService;
+    private final OrderRetryService orderRetryService;
+    private final RecentRequestWindow recentRequestWindow;
+    private final OrderMessageCodec orderMessageCodec;
+    private final OrderIntakeHandler orderIntakeHandler;
+    private final OrderOutageJournal orderOutageJournal;
+
+    public OrderBatchListener(OrderService orderService, OrderRetryService orderRetryService,
+                              RecentRequestWindow recentRequestWindow, OrderMessageCodec orderMessageCodec,
+                              OrderIntakeHandler orderIntakeHandler, OrderOutageJournal orderOutageJournal) {
+        this.orderService = orderService;
+        this.orderRetryService = orderRetryService;
+        this.recentRequestWindow = recentRequestWindow;
+        this.orderMessageCodec = orderMessageCodec;
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.orderOutageJournal = orderOutageJournal;
+    }
+
+    @RabbitListener(id = RabbitMQConfig.ORDER_LISTENER_ID, queues = RabbitMQConfig.QUEUE_ORDER,
+            containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void handleOrderMessages(List<Message> messages) {
+        log.info("Received batch of {} orders from RabbitMQ", messages.size());
+
+        List<CustomerOrderDTO> orders = new ArrayList<>(messages.size());
+        List<Message> orderMessages = new ArrayList<>(messages.size());
+        Set<String> batchRequestIds = new HashSet<>();
+        for (Message message : messages) {
+            CustomerOrderDTO customerOrderDTO;
+            try {
+                customerOrderDTO = orderMessageCodec.decode(message.getBody());
+            } catch (OrderException e) {
+                orderRetryService.handleFailure(message, null, e);
+                continue;
+            }
+
+            String requestId = customerOrderDTO.getRequestId();
+            if (requestId != null
+                    && (recentRequestWindow.contains(requestId) || !batchRequestIds.add(requestId))) {
+                log.info("Skipping duplicate order request {}", requestId);
+                continue;
+            }
+            if (customerOrderDTO.getOrderItems() == null || customerOrderDTO.getOrderItems().isEmpty()) {
+                orderRetryService.handleFailure(message, customerOrderDTO, new OrderException("Order has no items"));
+                continue;
+            }
+            orders.add(customerOrderDTO);
+            orderMessages.add(message);
+        }
+
+        if (orders.isEmpty()) {
+            return;
+        }
+        if (orderOutageJournal.shouldDivert()) {
+            for (int i = 0; i < orders.size(); i++) {
+                try {
+                    orderOutageJournal.divert(orders.get(i));
+                } catch (OrderException e) {
+                    orderRetryService.handleFailure(orderMessages.get(i), orders.get(i), e);
+                }
+            }
+            return;
+        }
+
+        try {
+            List<CustomerOrderDTO> processedOrders = orderService.createOrders(orders);
+            processedOrders.forEach(this::remember);
+            log.info("Batch processed successfully: {} of {} orders created", processedOrders.size(), messages.size());
+        } catch (Exception e) {
+            // The bulk transaction rolled back; retry one by one so a single bad order only fails itself
+            log.error("Batch insert failed, falling back to per-order processing", e);
+            for (int i = 0; i < orders.size(); i++) {
+                try {
+                    orderIntakeHandler.process(orders.get(i));
+                } catch (Exception orderError) {
+                    orderRetryService.handleFailure(orderMessages.get(i), orders.get(i), orderError);
+                }
+            }
+        }
+    }
+
+    private void remember(CustomerOrderDTO order) {
+        if (order.getRequestId() != null) {
+            recentRequestWindow.remember(order.getRequestId());
+        }
+    }
+}
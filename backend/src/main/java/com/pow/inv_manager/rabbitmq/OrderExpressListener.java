@@ -0,0 +1,43 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consumes the express order queue with its own consumers, so express orders never wait behind
+ * a backlog of ordinary ones, and the ordinary lane keeps its consumers however many express
+ * orders arrive. The lane weights are the consumer counts of the two listeners.
+ */
+@Slf4j
+@Service
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+public class OrderExpressListener {
+
+    private final OrderIntakeHandler orderIntakeHandler;
+    private final OrderRetryService orderRetryService;
+    private final OrderMessageCodec orderMessageCodec;
+
+    public OrderExpressListener(OrderIntakeHandler orderIntakeHandler, OrderRetryService orderRetryService,
+                                OrderMessageCodec orderMessageCodec) {
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.orderRetryService = orderRetryService;
+        this.orderMessageCodec = orderMessageCodec;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_ORDER_EXPRESS, concurrency = "${orders.priority.express-consumers:2}")
+    public void handleOrderMessage(Message message) {
+        CustomerOrderDTO customerOrderDTO = null;
+        try {
+            customerOrderDTO = orderMessageCodec.decode(message.getBody());
+            log.info("Received express order: request {} for client {}",
+                    customerOrderDTO.getRequestId(), customerOrderDTO.getClientId());
+            orderIntakeHandler.process(customerOrderDTO);
+        } catch (Exception e) {
+            orderRetryService.handleFailure(message, customerOrderDTO, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderService;
+import com.pow.inv_manager.service.implementation.DatabaseCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates one order taken off an intake transport. Requests processed recently are skipped;
+ * failures are thrown to the transport, which decides whether to retry. While the database is
+ * down, orders are handed to the {@link OrderOutageJournal} instead and count as processed.
+ */
+@Slf4j
+@Component
+public class OrderIntakeHandler {
+
+    private final OrderService orderService;
+    private final RecentRequestWindow recentRequestWindow;
+    private final OrderOutageJournal orderOutageJournal;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    public OrderIntakeHandler(OrderService orderService, RecentRequestWindow recentRequestWindow,
+                              OrderOutageJournal orderOutageJournal, DatabaseCircuitBreaker databaseCircuitBreaker) {
+        this.orderService = orderService;
+        this.recentRequestWindow = recentRequestWindow;
+        this.orderOutageJournal = orderOutageJournal;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+    }
+
+    public void process(CustomerOrderDTO customerOrderDTO) throws OrderException {
+        String requestId = customerOrderDTO.getRequestId();
+        if (requestId != null && recentRequestWindow.contains(requestId)) {
+            log.info("Skipping duplicate order request {}", requestId);
+            return;
+        }
+
+        // Validate immediately after deserialization
+        if (customerOrderDTO.getOrderItems() == null || customerOrderDTO.getOrderItems().isEmpty()) {
+            throw new OrderException("Order has no items");
+        }
+
+        if (orderOutageJournal.shouldDivert()) {
+            orderOutageJournal.divert(customerOrderDTO);
+            return;
+        }
+
+        CustomerOrderDTO processedOrder;
+        try {
+            processedOrder = orderService.createOrder(customerOrderDTO);
+        } catch (RuntimeException e) {
+            if (orderOutageJournal.divertOnFailure(customerOrderDTO, e)) {
+                return;
+            }
+            throw e;
+        }
+        // Only consecutive failures may open the circuit
+        databaseCircuitBreaker.recordSuccess();
+        if (requestId != null) {
+            recentRequestWindow.remember(requestId);
+        }
+        log.info("Order processed successfully: {}", processedOrder);
+    }
+}
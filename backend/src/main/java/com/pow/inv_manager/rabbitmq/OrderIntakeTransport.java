@@ -0,0 +1,26 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries submitted orders from the HTTP intake to {@link OrderIntakeHandler}. RabbitMQ is
+ * the default transport; with the {@value #IN_PROCESS_PROFILE} profile active, orders are
+ * handed over through a bounded in-memory queue in the same JVM instead.
+ */
+public interface OrderIntakeTransport {
+
+    String IN_PROCESS_PROFILE = "inprocess";
+
+    /**
+     * Accepts an order for asynchronous creation.
+     *
+     * @param customerOrderDTO the order, carrying its request ID
+     * @return a future completed once the order is safely queued, failed with
+     *         {@link com.pow.inv_manager.exception.OrderPublishException} if it was not accepted,
+     *         or with {@link com.pow.inv_manager.exception.OrderException} if it does not fit the
+     *         {@link OrderMessageCodec} format
+     */
+    CompletableFuture<Void> submit(CustomerOrderDTO customerOrderDTO);
+}
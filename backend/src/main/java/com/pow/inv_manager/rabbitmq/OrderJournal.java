@@ -0,0 +1,151 @@
+package com.pow.inv_manager.rabbitmq;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only local journal of encoded orders that were accepted but not yet processed.
+ * Each accepted order is appended as an ENQUEUED record and later acknowledged with a DONE
+ * record; on open, the orders without a DONE record are returned for replay and the file is
+ * rewritten to hold only them. A torn record at the end of the file, left by a crash during
+ * a write, is ignored.
+ * <p>
+ * Record layout: a type byte, the sequence number as a long, the payload length as an int,
+ * then the payload. DONE records have no payload.
+ */
+class OrderJournal implements Closeable {
+
+    private static final byte ENQUEUED = 1;
+    private static final byte DONE = 2;
+    private static final int HEADER_BYTES = 1 + Long.BYTES + Integer.BYTES;
+    private static final long TRUNCATE_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+    private final Path path;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long nextSequence;
+    private long pending;
+
+    OrderJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the journal, compacting it to the entries still pending.
+     *
+     * @return the payloads of pending entries by sequence number, oldest first
+     */
+    synchronized Map<Long, byte[]> open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Map<Long, byte[]> pendingEntries = Files.exists(path) ? read() : new LinkedHashMap<>();
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, byte[]> entry : pendingEntries.entrySet()) {
+                writeRecord(out, ENQUEUED, entry.getKey(), entry.getValue());
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        pending = pendingEntries.size();
+        nextSequence = pendingEntries.keySet().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+        return pendingEntries;
+    }
+
+    /**
+     * Appends an entry, forcing it to disk if the journal was opened with fsync.
+     *
+     * @return the sequence number to acknowledge the entry with
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        long sequence = nextSequence++;
+        writeRecord(channel, ENQUEUED, sequence, payload);
+        if (fsync) {
+            channel.force(false);
+        }
+        pending++;
+        return sequence;
+    }
+
+    /**
+     * Acknowledges an entry. Not forced to disk: losing it only replays an order whose
+     * request ID makes the second attempt a no-op.
+     */
+    synchronized void markDone(long sequence) throws IOException {
+        writeRecord(channel, DONE, sequence, new byte[0]);
+        pending--;
+        if (pending == 0 && channel.size() > TRUNCATE_THRESHOLD_BYTES) {
+            channel.truncate(0);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private Map<Long, byte[]> read() throws IOException {
+        Map<Long, byte[]> entries = new LinkedHashMap<>();
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (true) {
+                header.clear();
+                if (!readFully(in, header)) {
+                    break;
+                }
+                header.flip();
+                byte type = header.get();
+                long sequence = header.getLong();
+                int length = header.getInt();
+                if (length < 0 || length > in.size() - in.position()) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                if (!readFully(in, payload)) {
+                    break;
+                }
+                if (type == ENQUEUED) {
+                    entries.put(sequence, payload.array());
+                } else if (type == DONE) {
+                    entries.remove(sequence);
+                } else {
+                    break;
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeRecord(FileChannel out, byte type, long sequence, byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.put(type).putLong(sequence).putInt(payload.length).put(payload).flip();
+        while (record.hasRemaining()) {
+            out.write(record);
+        }
+    }
+}
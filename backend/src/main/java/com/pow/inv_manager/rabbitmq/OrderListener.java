@@ -1,40 +1,40 @@
 package com.pow.inv_manager.rabbitmq;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pow.inv_manager.dto.CustomerOrderDTO;
-import com.pow.inv_manager.service.OrderService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+@ConditionalOnProperty(name = "orders.listener.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class OrderListener {
 
-    private final OrderService orderService;
-    private final ObjectMapper objectMapper;
+    private final OrderIntakeHandler orderIntakeHandler;
+    private final OrderRetryService orderRetryService;
+    private final OrderMessageCodec orderMessageCodec;
 
-    public OrderListener(OrderService orderService, ObjectMapper objectMapper) {
-        this.orderService = orderService;
-        this.objectMapper = objectMapper;
+    public OrderListener(OrderIntakeHandler orderIntakeHandler, OrderRetryService orderRetryService,
+                         OrderMessageCodec orderMessageCodec) {
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.orderRetryService = orderRetryService;
+        this.orderMessageCodec = orderMessageCodec;
     }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_ORDER)
-    public void handleOrderMessage(String message) {
+    @RabbitListener(id = RabbitMQConfig.ORDER_LISTENER_ID, queues = RabbitMQConfig.QUEUE_ORDER)
+    public void handleOrderMessage(Message message) {
+        CustomerOrderDTO customerOrderDTO = null;
         try {
-            log.info("Received order from RabbitMQ: {}", message);
-            CustomerOrderDTO customerOrderDTO = objectMapper.readValue(message, CustomerOrderDTO.class);
-
-            // Validate immediately after deserialization
-            if (customerOrderDTO.getOrderItems() == null || customerOrderDTO.getOrderItems().isEmpty()) {
-                log.error("Invalid order: missing details.");
-                return; // Or send to a dead-letter queue
-            }
-
-            CustomerOrderDTO processedOrder = orderService.createOrder(customerOrderDTO);
-            log.info("Order processed successfully: {}", processedOrder);
+            customerOrderDTO = orderMessageCodec.decode(message.getBody());
+            log.info("Received order from RabbitMQ: request {} for client {}",
+                    customerOrderDTO.getRequestId(), customerOrderDTO.getClientId());
+            orderIntakeHandler.process(customerOrderDTO);
         } catch (Exception e) {
-            log.error("Failed to process order message: {}", message, e);
+            orderRetryService.handleFailure(message, customerOrderDTO, e);
         }
     }
 }
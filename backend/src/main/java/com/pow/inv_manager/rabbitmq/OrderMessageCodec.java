@@ -0,0 +1,300 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary wire format of the order intake message. Only what order creation reads is
+ * carried: request ID, client ID, order date, status and, per line, inventory ID,
+ * quantity and unit price.
+ * <p>
+ * Layout: a version byte, a flags byte, then the body. Integers are unsigned LEB128
+ * varints, with nullable values shifted by one so that 0 means null; strings are a
+ * varint length plus one followed by UTF-8 bytes; prices are 8-byte IEEE doubles.
+ * Bodies larger than {@code orders.message.compress-threshold} bytes are deflated and
+ * flagged. Messages in the previous JSON format are still decoded, so a queue with
+ * messages from an older publisher drains after an upgrade.
+ */
+@Component
+public class OrderMessageCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.inv-manager.order";
+
+    static final byte VERSION_1 = 1;
+    static final byte FLAG_DEFLATED = 1;
+
+    private static final int MAX_LINES = 10_000;
+    private static final int MAX_STRING_BYTES = 1024;
+    private static final int MAX_INFLATED_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final int compressThreshold;
+
+    public OrderMessageCodec(ObjectMapper objectMapper,
+                             @Value("${orders.message.compress-threshold:512}") int compressThreshold) {
+        this.objectMapper = objectMapper;
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * Checks that the order fits the limits {@link #decode} enforces, so an order that could
+     * never be read back is refused before it is accepted.
+     *
+     * @throws OrderException if a string is over {@value #MAX_STRING_BYTES} UTF-8 bytes, or the
+     *                        order has more than {@value #MAX_LINES} lines or a null line
+     */
+    public void validate(CustomerOrderDTO order) throws OrderException {
+        checkString("Request ID", order.getRequestId());
+        checkString("Status", order.getStatus());
+        List<OrderItemDTO> items = order.getOrderItems() != null ? order.getOrderItems() : List.of();
+        if (items.size() > MAX_LINES) {
+            throw new OrderException("An order can have at most " + MAX_LINES + " lines");
+        }
+        for (OrderItemDTO item : items) {
+            if (item == null) {
+                throw new OrderException("Order lines must not be null");
+            }
+        }
+    }
+
+    /**
+     * @throws OrderException if the order fails {@link #validate}
+     */
+    public byte[] encode(CustomerOrderDTO order) throws OrderException {
+        validate(order);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        writeString(body, order.getRequestId());
+        writeNullableLong(body, order.getClientId());
+        writeNullableLong(body, order.getOrderDate() != null ? order.getOrderDate().getTime() : null);
+        writeString(body, order.getStatus());
+
+        List<OrderItemDTO> items = order.getOrderItems() != null ? order.getOrderItems() : List.of();
+        writeVarLong(body, items.size());
+        for (OrderItemDTO item : items) {
+            writeNullableLong(body, item.getInventoryId());
+            writeVarLong(body, zigZag(item.getQuantity()));
+            writeDouble(body, item.getUnitPrice());
+        }
+
+        byte[] payload = body.toByteArray();
+        byte flags = 0;
+        if (payload.length > compressThreshold) {
+            payload = deflate(payload);
+            flags |= FLAG_DEFLATED;
+        }
+
+        byte[] message = new byte[payload.length + 2];
+        message[0] = VERSION_1;
+        message[1] = flags;
+        System.arraycopy(payload, 0, message, 2, payload.length);
+        return message;
+    }
+
+    public CustomerOrderDTO decode(byte[] message) throws OrderException {
+        if (message.length == 0) {
+            throw new OrderException("Empty order message");
+        }
+        if (message[0] == '"' || message[0] == '{') {
+            return decodeLegacyJson(message);
+        }
+        if (message[0] != VERSION_1 || message.length < 2) {
+            throw new OrderException("Unsupported order message version: " + message[0]);
+        }
+
+        byte[] payload = new byte[message.length - 2];
+        System.arraycopy(message, 2, payload, 0, payload.length);
+        if ((message[1] & FLAG_DEFLATED) != 0) {
+            payload = inflate(payload);
+        }
+
+        Reader reader = new Reader(payload);
+        CustomerOrderDTO order = new CustomerOrderDTO();
+        order.setRequestId(reader.readString());
+        order.setClientId(reader.readNullableLong());
+        Long orderDate = reader.readNullableLong();
+        order.setOrderDate(orderDate != null ? new Date(orderDate) : null);
+        order.setStatus(reader.readString());
+
+        long lineCount = reader.readVarLong();
+        // A ten-byte varint can carry the sign bit
+        if (lineCount < 0 || lineCount > MAX_LINES) {
+            throw new OrderException("Too many lines in order message: " + lineCount);
+        }
+        List<OrderItemDTO> items = new ArrayList<>((int) lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            items.add(OrderItemDTO.builder()
+                    .inventoryId(reader.readNullableLong())
+                    .quantity((int) unZigZag(reader.readVarLong()))
+                    .unitPrice(reader.readDouble())
+                    .build());
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+
+    private CustomerOrderDTO decodeLegacyJson(byte[] message) throws OrderException {
+        try {
+            String json = new String(message, StandardCharsets.UTF_8);
+            if (message[0] == '"') {
+                // Older publishers sent the JSON as a string, wrapped again by the JSON message converter
+                json = objectMapper.readValue(json, String.class);
+            }
+            return objectMapper.readValue(json, CustomerOrderDTO.class);
+        } catch (IOException e) {
+            throw new OrderException("Malformed JSON order message", e);
+        }
+    }
+
+    private byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] payload) throws OrderException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new OrderException("Truncated compressed order message");
+                }
+                out.write(buffer, 0, inflated);
+                if (out.size() > MAX_INFLATED_BYTES) {
+                    throw new OrderException("Compressed order message is too large");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new OrderException("Malformed compressed order message", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void checkString(String name, String value) throws OrderException {
+        // A char takes at most 3 UTF-8 bytes, so short strings need not be encoded to be checked
+        if (value != null && value.length() > MAX_STRING_BYTES / 3
+                && value.getBytes(StandardCharsets.UTF_8).length > MAX_STRING_BYTES) {
+            throw new OrderException(name + " is longer than " + MAX_STRING_BYTES + " bytes");
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeNullableLong(ByteArrayOutputStream out, Long value) {
+        writeVarLong(out, value == null ? 0 : zigZag(value) + 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeDouble(ByteArrayOutputStream out, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private long readVarLong() throws OrderException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new OrderException("Malformed varint in order message");
+        }
+
+        private Long readNullableLong() throws OrderException {
+            long value = readVarLong();
+            return value == 0 ? null : unZigZag(value - 1);
+        }
+
+        private String readString() throws OrderException {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length - 1 > MAX_STRING_BYTES || length - 1 > data.length - position) {
+                throw new OrderException("Malformed string in order message");
+            }
+            String value = new String(data, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+
+        private double readDouble() throws OrderException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private byte readByte() throws OrderException {
+            if (position >= data.length) {
+                throw new OrderException("Truncated order message");
+            }
+            return data[position++];
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderService;
+import com.pow.inv_manager.service.implementation.DatabaseCircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps taking orders while the database is down, active when
+ * {@code orders.intake.fallback-journal.enabled} is set. While the {@link DatabaseCircuitBreaker}
+ * is open, intake appends orders to an {@link OrderWriteAheadLog} on local disk instead of
+ * persisting them, so the transport can acknowledge them. Once the circuit closes the log is
+ * replayed in order, {@code batch-size} orders per transaction, and replayed segments are deleted.
+ * <p>
+ * New orders keep going to the log until it is drained, so they cannot overtake journaled ones.
+ */
+@Slf4j
+@Component
+public class OrderOutageJournal {
+
+    @Value("${orders.intake.fallback-journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.intake.fallback-journal.path:data/order-wal}")
+    private String path;
+
+    @Value("${orders.intake.fallback-journal.segment-size:67108864}")
+    private long segmentBytes;
+
+    @Value("${orders.intake.fallback-journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${orders.intake.fallback-journal.batch-size:200}")
+    private int batchSize;
+
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final OrderService orderService;
+    private final OrderRetryService orderRetryService;
+    private final OrderMessageCodec orderMessageCodec;
+    private final RecentRequestWindow recentRequestWindow;
+
+    private OrderWriteAheadLog wal;
+
+    public OrderOutageJournal(DatabaseCircuitBreaker databaseCircuitBreaker, OrderService orderService,
+                              OrderRetryService orderRetryService, OrderMessageCodec orderMessageCodec,
+                              RecentRequestWindow recentRequestWindow) {
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.orderService = orderService;
+        this.orderRetryService = orderRetryService;
+        this.orderMessageCodec = orderMessageCodec;
+        this.recentRequestWindow = recentRequestWindow;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        wal = new OrderWriteAheadLog(Path.of(path), segmentBytes, fsync);
+        wal.open();
+        if (!wal.isEmpty()) {
+            log.info("Order outage journal at {} has orders waiting for replay", path);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    /**
+     * @return true if orders should be journaled instead of persisted
+     */
+    public boolean shouldDivert() {
+        return wal != null && (databaseCircuitBreaker.isOpen() || !wal.isEmpty());
+    }
+
+    /**
+     * Records a database failure and journals the order if the database is now considered down.
+     *
+     * @return true if the order was journaled, false if the error should go to the caller
+     */
+    public boolean divertOnFailure(CustomerOrderDTO order, Exception error) throws OrderException {
+        if (wal == null || !databaseCircuitBreaker.recordFailure(error) || !databaseCircuitBreaker.isOpen()) {
+            return false;
+        }
+        divert(order);
+        return true;
+    }
+
+    /**
+     * @throws OrderException if the order does not fit the journal's record format
+     */
+    public void divert(CustomerOrderDTO order) throws OrderException {
+        try {
+            long sequence = wal.append(orderMessageCodec.encode(order));
+            log.debug("Journaled order request {} as #{}", order.getRequestId(), sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal order request " + order.getRequestId(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.intake.fallback-journal.replay-interval:1000}")
+    public void replay() {
+        if (wal == null || databaseCircuitBreaker.isOpen() || wal.isEmpty()) {
+            return;
+        }
+        try {
+            int replayed = 0;
+            List<OrderWriteAheadLog.Record> records;
+            while (!databaseCircuitBreaker.isOpen() && !(records = wal.readAfterCheckpoint(batchSize)).isEmpty()) {
+                if (!replayBatch(records)) {
+                    break;
+                }
+                wal.checkpoint(records.get(records.size() - 1).sequence());
+                replayed += records.size();
+            }
+            if (replayed > 0) {
+                log.info("Replayed {} journaled orders", replayed);
+            }
+        } catch (IOException e) {
+            log.error("Could not read the order outage journal", e);
+        }
+    }
+
+    /**
+     * @return false if the database went away again and the batch must be replayed later
+     */
+    private boolean replayBatch(List<OrderWriteAheadLog.Record> records) {
+        List<CustomerOrderDTO> orders = new ArrayList<>(records.size());
+        for (OrderWriteAheadLog.Record record : records) {
+            try {
+                CustomerOrderDTO order = orderMessageCodec.decode(record.payload());
+                if (order.getRequestId() == null || !recentRequestWindow.contains(order.getRequestId())) {
+                    orders.add(order);
+                }
+            } catch (OrderException e) {
+                log.error("Dropping unreadable journaled order #{}", record.sequence(), e);
+            }
+        }
+
+        try {
+            orderService.createOrders(orders).forEach(this::remember);
+            databaseCircuitBreaker.recordSuccess();
+            return true;
+        } catch (RuntimeException e) {
+            if (databaseCircuitBreaker.recordFailure(e)) {
+                return false;
+            }
+            // Most likely an order replayed before a crash, before its checkpoint was written
+            log.warn("Journal batch failed, replaying order by order", e);
+        }
+
+        for (CustomerOrderDTO order : orders) {
+            try {
+                remember(orderService.createOrder(order));
+            } catch (Exception e) {
+                if (databaseCircuitBreaker.recordFailure(e)) {
+                    return false;
+                }
+                if (!orderRetryService.rejectIfFinal(order, e)) {
+                    orderRetryService.markFailed(order, "Order could not be stored");
+                }
+            }
+        }
+        return true;
+    }
+
+    private void remember(CustomerOrderDTO order) {
+        if (order.getRequestId() != null) {
+            recentRequestWindow.remember(order.getRequestId());
+        }
+    }
+}
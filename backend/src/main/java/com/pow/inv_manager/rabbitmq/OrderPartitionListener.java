@@ -0,0 +1,45 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consumes the partitioned order queues, one consumer per partition, when
+ * {@code orders.partitions.count} is positive. Orders are handled like on the shared queue.
+ */
+@Slf4j
+@Service
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+@ConditionalOnExpression("${orders.partitions.count:0} > 0")
+public class OrderPartitionListener {
+
+    private final OrderIntakeHandler orderIntakeHandler;
+    private final OrderRetryService orderRetryService;
+    private final OrderMessageCodec orderMessageCodec;
+
+    public OrderPartitionListener(OrderIntakeHandler orderIntakeHandler, OrderRetryService orderRetryService,
+                                  OrderMessageCodec orderMessageCodec) {
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.orderRetryService = orderRetryService;
+        this.orderMessageCodec = orderMessageCodec;
+    }
+
+    @RabbitListener(queues = "#{@orderPartitioner.queueNames()}", containerFactory = RabbitMQConfig.PARTITION_CONTAINER_FACTORY)
+    public void handleOrderMessage(Message message) {
+        CustomerOrderDTO customerOrderDTO = null;
+        try {
+            customerOrderDTO = orderMessageCodec.decode(message.getBody());
+            log.info("Received order from partition {}: request {} for client {}",
+                    message.getMessageProperties().getConsumerQueue(), customerOrderDTO.getRequestId(),
+                    customerOrderDTO.getClientId());
+            orderIntakeHandler.process(customerOrderDTO);
+        } catch (Exception e) {
+            orderRetryService.handleFailure(message, customerOrderDTO, e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the order queue partition for an order when {@code orders.partitions.count} is set.
+ * The key is the inventory ID of the order's first line, or the client ID for an order without
+ * lines, mapped to a partition with jump consistent hashing (Lamping and Veach), so that all
+ * orders for one inventory row go through the same single-consumer partition and changing the
+ * partition count only moves about 1/N of the keys. With no partitions every order is routed to
+ * the shared {@code order_queue}.
+ */
+@Component
+public class OrderPartitioner {
+
+    private final int partitions;
+
+    public OrderPartitioner(@Value("${orders.partitions.count:0}") int partitions) {
+        this.partitions = partitions;
+    }
+
+    public String routingKey(CustomerOrderDTO order) {
+        if (partitions <= 0) {
+            return RabbitMQConfig.ROUTING_KEY_ORDER;
+        }
+        return RabbitMQConfig.partitionRoutingKey(partition(partitionKey(order), partitions));
+    }
+
+    /**
+     * Names of the partitioned order queues, empty when partitioning is off.
+     */
+    public String[] queueNames() {
+        String[] names = new String[Math.max(partitions, 0)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = RabbitMQConfig.partitionQueueName(i);
+        }
+        return names;
+    }
+
+    private static long partitionKey(CustomerOrderDTO order) {
+        if (order.getOrderItems() != null) {
+            for (OrderItemDTO item : order.getOrderItems()) {
+                if (item.getInventoryId() != null) {
+                    return item.getInventoryId();
+                }
+            }
+        }
+        return order.getClientId() != null ? order.getClientId() : 0;
+    }
+
+    static int partition(long key, int buckets) {
+        // Spread sequential IDs before hashing; jump hash expects well-mixed keys
+        key *= 0x9E3779B97F4A7C15L;
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
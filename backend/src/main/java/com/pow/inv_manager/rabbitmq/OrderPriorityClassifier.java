@@ -0,0 +1,48 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether an order takes the express lane when {@code orders.priority.enabled} is set:
+ * orders flagged express by the caller, orders of the clients listed in
+ * {@code orders.priority.vip-client-ids}, and orders whose total reaches
+ * {@code orders.priority.min-total} when that is positive.
+ */
+@Component
+public class OrderPriorityClassifier {
+
+    @Value("${orders.priority.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.priority.min-total:0}")
+    private double minTotal;
+
+    private final Set<Long> vipClientIds;
+
+    public OrderPriorityClassifier(@Value("${orders.priority.vip-client-ids:}") String vipClientIds) {
+        this.vipClientIds = Arrays.stream(vipClientIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isExpress(CustomerOrderDTO order) {
+        if (!enabled) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(order.getExpress()) || vipClientIds.contains(order.getClientId())) {
+            return true;
+        }
+        return minTotal > 0 && order.getOrderItems() != null && order.getOrderItems().stream()
+                .mapToDouble(item -> item.getQuantity() * item.getUnitPrice())
+                .sum() >= minTotal;
+    }
+}
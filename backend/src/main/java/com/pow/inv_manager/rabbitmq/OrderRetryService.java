@@ -0,0 +1,249 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderRequestService;
+import jakarta.annotation.PreDestroy;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides what happens to an order message that failed. Rejections the order itself causes
+ * (unknown client or inventory, short stock, a duplicate request) are final and mark the
+ * request FAILED. Anything else is treated as transient: the message is republished to the
+ * retry tier for its attempt count, whose TTL dead-letters it back to the order queue, and
+ * after {@code orders.retry.max-attempts} it is moved to the parking lot. Either way the
+ * original delivery is acknowledged, so failing messages never block the order queue.
+ */
+@Slf4j
+@Service
+public class OrderRetryService {
+
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+    private static final MessagePropertiesConverter MESSAGE_PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private final RabbitTemplate rabbitTemplate;
+    private final OrderRequestService orderRequestService;
+    private final ExecutorService redriveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-parking-redrive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean redriveRunning = new AtomicBoolean();
+
+    @Value("${orders.retry.delays:1000,5000,30000}")
+    private long[] retryDelays;
+
+    @Value("${orders.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${orders.retry.redrive-rate:20}")
+    private int redriveRate;
+
+    public OrderRetryService(RabbitTemplate rabbitTemplate, OrderRequestService orderRequestService) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.orderRequestService = orderRequestService;
+    }
+
+    @PreDestroy
+    public void stop() {
+        redriveExecutor.shutdownNow();
+    }
+
+    /**
+     * Handles a failure to create the order carried by {@code message}.
+     *
+     * @param message the delivered message
+     * @param order   the decoded order, or null if the message could not be decoded
+     * @param error   what went wrong
+     */
+    public void handleFailure(Message message, CustomerOrderDTO order, Exception error) {
+        if (order == null) {
+            log.error("Parking undecodable order message {}", message.getMessageProperties().getMessageId(), error);
+            park(message);
+            return;
+        }
+        if (rejectIfFinal(order, error)) {
+            return;
+        }
+
+        int attempts = attempts(message) + 1;
+        long delay = retryDelay(attempts);
+        if (delay < 0) {
+            log.error("Parking order request {} after {} attempts", order.getRequestId(), attempts, error);
+            park(message);
+            markFailed(order, "Order could not be processed after " + attempts + " attempts");
+            return;
+        }
+
+        log.warn("Order request {} failed on attempt {}, retrying in {} ms", order.getRequestId(), attempts, delay, error);
+        message.getMessageProperties().setHeader(RabbitMQConfig.ATTEMPTS_HEADER, attempts);
+        publishConfirmed(RabbitMQConfig.RETRY_EXCHANGE, RabbitMQConfig.retryRoutingKey(delay), message);
+    }
+
+    /**
+     * Marks the request FAILED if the error is one the order itself causes and retrying
+     * cannot fix: a rejected order or a duplicate request ID.
+     *
+     * @return true if the failure is final
+     */
+    public boolean rejectIfFinal(CustomerOrderDTO order, Exception error) {
+        if (error instanceof OrderException) {
+            log.error("Order request {} rejected: {}", order.getRequestId(), error.getMessage());
+            markFailed(order, error.getMessage());
+            return true;
+        }
+        if (error instanceof DataIntegrityViolationException) {
+            // An order with this request ID already exists; markFailed leaves a created request as it is
+            log.warn("Order request {} was rejected by the database, likely a duplicate", order.getRequestId(), error);
+            markFailed(order, "Order could not be stored");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param attempts the number of failed attempts so far, at least 1
+     * @return the delay in ms before the next attempt, or -1 once {@code orders.retry.max-attempts} is used up
+     */
+    public long retryDelay(int attempts) {
+        if (attempts >= maxAttempts) {
+            return -1;
+        }
+        return retryDelays[Math.min(attempts, retryDelays.length) - 1];
+    }
+
+    /**
+     * Starts moving up to {@code maxMessages} parked messages back to the order queue at no
+     * more than {@code ratePerSecond} (or {@code orders.retry.redrive-rate} when not positive),
+     * with their attempt count reset.
+     *
+     * @return false if a re-drive is already running
+     */
+    public boolean startRedrive(int maxMessages, int ratePerSecond) {
+        if (!redriveRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        int rate = ratePerSecond > 0 ? ratePerSecond : redriveRate;
+        redriveExecutor.execute(() -> {
+            try {
+                int redriven = redrive(maxMessages, rate);
+                log.info("Re-drove {} parked order messages", redriven);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (AmqpException e) {
+                log.error("Re-drive of parked order messages stopped", e);
+            } finally {
+                redriveRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    private int redrive(int maxMessages, int ratePerSecond) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long next = System.nanoTime();
+        int redriven = 0;
+        while (redriven < maxMessages) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            next += intervalNanos;
+
+            if (!Boolean.TRUE.equals(rabbitTemplate.execute(this::redriveOne))) {
+                break;
+            }
+            redriven++;
+        }
+        return redriven;
+    }
+
+    /**
+     * Moves one message from the parking lot to the order queue. The message is fetched
+     * without auto-ack and only acknowledged once the broker has confirmed the copy, so it
+     * stays on the parking lot if publishing fails or the process dies in between.
+     *
+     * @return false if the parking lot is empty
+     */
+    private Boolean redriveOne(Channel channel) throws IOException {
+        GetResponse response = channel.basicGet(RabbitMQConfig.PARKING_QUEUE, false);
+        if (response == null) {
+            return false;
+        }
+        long deliveryTag = response.getEnvelope().getDeliveryTag();
+        Message message = new Message(response.getBody(), MESSAGE_PROPERTIES_CONVERTER.toMessageProperties(
+                response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name()));
+        message.getMessageProperties().getHeaders().remove(RabbitMQConfig.ATTEMPTS_HEADER);
+        try {
+            publishConfirmed(RabbitMQConfig.EXCHANGE, RabbitMQConfig.ROUTING_KEY_ORDER, message);
+        } catch (AmqpException e) {
+            channel.basicNack(deliveryTag, false, true);
+            throw e;
+        }
+        channel.basicAck(deliveryTag, false);
+        return true;
+    }
+
+    private void park(Message message) {
+        publishConfirmed(RabbitMQConfig.RETRY_EXCHANGE, RabbitMQConfig.PARKING_ROUTING_KEY, message);
+    }
+
+    private static int attempts(Message message) {
+        Object attempts = message.getMessageProperties().getHeader(RabbitMQConfig.ATTEMPTS_HEADER);
+        return attempts instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * Publishes and waits for the broker confirm, so the caller only acknowledges the
+     * original delivery once the copy is safe. Throws {@link AmqpException} otherwise,
+     * which makes the listener container requeue the delivery.
+     */
+    private void publishConfirmed(String exchange, String routingKey, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send(exchange, routingKey, message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for broker confirmation", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No broker confirmation for order message", e);
+        }
+        if (!confirm.isAck() || correlation.getReturned() != null) {
+            throw new AmqpException("Broker did not accept order message for " + routingKey);
+        }
+    }
+
+    public void markFailed(CustomerOrderDTO order, String reason) {
+        if (order.getRequestId() == null) {
+            return;
+        }
+        try {
+            orderRequestService.markFailed(order.getRequestId(), reason);
+        } catch (Exception e) {
+            log.error("Failed to record failure of order request {}", order.getRequestId(), e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.pow.inv_manager.rabbitmq;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented append-only log of encoded orders on local disk. Records get consecutive sequence
+ * numbers and are read back in that order; a checkpoint file holds the last sequence that was
+ * replayed, and segments wholly at or below it are deleted.
+ * <p>
+ * Segments are named after their first sequence number and rolled at {@code segmentBytes}.
+ * Record layout: payload length (int), CRC32C of sequence and payload (int), sequence (long),
+ * payload. On open the active segment is scanned and truncated after its last intact record,
+ * dropping a record torn by a crash; a corrupt record in an older segment ends that segment.
+ */
+@Slf4j
+class OrderWriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    /** First sequence number of each segment, oldest first. */
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+    private long lastSequence;
+    private long checkpoint;
+
+    private long cursorSequence = -1;
+    private long cursorSegment;
+    private long cursorPosition;
+
+    OrderWriteAheadLog(Path directory, long segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        checkpoint = Files.exists(checkpointFile)
+                ? Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim())
+                : 0;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                    });
+        }
+
+        lastSequence = checkpoint;
+        if (segments.isEmpty()) {
+            roll(checkpoint + 1);
+            return;
+        }
+        for (Path segment : segments.values()) {
+            boolean isActive = segment.equals(segments.lastEntry().getValue());
+            lastSequence = Math.max(lastSequence, scan(segment, isActive));
+        }
+        active = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @throws IOException if the payload is larger than a record may be, so it is never written
+     *                     where {@link #open()} would take it for a torn tail
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("Journal record of " + payload.length + " bytes exceeds the limit of "
+                    + MAX_RECORD_BYTES + " bytes");
+        }
+        if (active.size() >= segmentBytes) {
+            roll(lastSequence + 1);
+        }
+        long sequence = lastSequence + 1;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(crc(sequence, payload)).putLong(sequence).put(payload).flip();
+        while (record.hasRemaining()) {
+            active.write(record);
+        }
+        if (fsync) {
+            active.force(false);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    synchronized boolean isEmpty() {
+        return lastSequence <= checkpoint;
+    }
+
+    /**
+     * Reads up to {@code max} records after the checkpoint, oldest first. Reading continues from
+     * where the previous call stopped when the caller checkpointed everything it was given.
+     */
+    synchronized List<Record> readAfterCheckpoint(int max) throws IOException {
+        List<Record> records = new ArrayList<>(Math.min(max, 1024));
+        if (cursorSequence != checkpoint || !segments.containsKey(cursorSegment)) {
+            // Start from the segment holding checkpoint + 1
+            cursorSegment = segments.floorKey(checkpoint + 1) != null ? segments.floorKey(checkpoint + 1) : segments.firstKey();
+            cursorPosition = 0;
+            cursorSequence = cursorSegment - 1;
+        }
+
+        while (records.size() < max && cursorSequence < lastSequence) {
+            Path segment = segments.get(cursorSegment);
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                in.position(cursorPosition);
+                Record record;
+                while (records.size() < max && (record = readRecord(in)) != null) {
+                    cursorPosition = in.position();
+                    cursorSequence = record.sequence();
+                    if (record.sequence() > checkpoint) {
+                        records.add(record);
+                    }
+                }
+            }
+            if (records.size() < max) {
+                Long next = segments.higherKey(cursorSegment);
+                if (next == null) {
+                    break;
+                }
+                cursorSegment = next;
+                cursorPosition = 0;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Records that everything up to {@code sequence} was replayed and deletes the segments that
+     * hold nothing newer.
+     */
+    synchronized void checkpoint(long sequence) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, Long.toString(sequence), StandardCharsets.UTF_8);
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = sequence;
+
+        // A segment is obsolete once the next one starts at or below checkpoint + 1
+        while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= checkpoint + 1) {
+            Files.deleteIfExists(segments.pollFirstEntry().getValue());
+        }
+        if (isEmpty() && active.size() >= segmentBytes) {
+            roll(lastSequence + 1);
+            while (segments.size() > 1) {
+                Files.deleteIfExists(segments.pollFirstEntry().getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        Path segment = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        active = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(firstSequence, segment);
+    }
+
+    /**
+     * @return the last intact sequence number in the segment, or 0 if it has none
+     */
+    private long scan(Path segment, boolean truncateTail) throws IOException {
+        long last = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long validEnd = 0;
+            Record record;
+            while ((record = readRecord(channel)) != null) {
+                last = record.sequence();
+                validEnd = channel.position();
+            }
+            if (validEnd < channel.size()) {
+                log.warn("Order journal segment {} has {} unreadable trailing bytes{}", segment.getFileName(),
+                        channel.size() - validEnd, truncateTail ? ", truncating" : "");
+                if (truncateTail) {
+                    channel.truncate(validEnd);
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @return the next intact record, or null at the end of the segment or at a torn or corrupt record
+     */
+    private static Record readRecord(FileChannel in) throws IOException {
+        long start = in.position();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(in, header)) {
+            in.position(start);
+            return null;
+        }
+        header.flip();
+        int length = header.getInt();
+        int crc = header.getInt();
+        long sequence = header.getLong();
+        if (length < 0 || length > MAX_RECORD_BYTES || length > in.size() - in.position()) {
+            in.position(start);
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(in, payload) || crc(sequence, payload.array()) != crc) {
+            in.position(start);
+            return null;
+        }
+        return new Record(sequence, payload.array());
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc(long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(sequence).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    record Record(long sequence, byte[] payload) {
+    }
+}
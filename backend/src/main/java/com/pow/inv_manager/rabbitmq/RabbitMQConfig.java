@@ -1,38 +1,71 @@
 package com.pow.inv_manager.rabbitmq;
 
-import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
-import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.DirectRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
     public static final String EXCHANGE = "message_exchange";
     public static final String ROUTING_KEY_ORDER = "order_key";
     public static final String QUEUE_ORDER = "order_queue";
+    public static final String QUEUE_ORDER_EXPRESS = "order_queue.express";
+    public static final String ROUTING_KEY_ORDER_EXPRESS = "order_key.express";
+    public static final String BATCH_CONTAINER_FACTORY = "batchContainerFactory";
+    public static final String ORDER_LISTENER_ID = "orderListener";
+    public static final String RETRY_EXCHANGE = "order_retry_exchange";
+    public static final String PARKING_QUEUE = "order_queue.parking_lot";
+    public static final String PARKING_ROUTING_KEY = "parking";
+    public static final String ATTEMPTS_HEADER = "x-order-attempts";
+    public static final String EVENTS_EXCHANGE = "order_events";
+    public static final String PARTITION_CONTAINER_FACTORY = "partitionContainerFactory";
+    public static final String CACHE_INVALIDATION_EXCHANGE = "cache_invalidation";
+
+    @Value("${orders.retry.delays:1000,5000,30000}")
+    private long[] retryDelays;
+
+    @Value("${orders.listener.batch.size:50}")
+    private int batchSize;
+
+    @Value("${orders.listener.batch.receive-timeout:200}")
+    private long batchReceiveTimeout;
 
     @Bean
     public TopicExchange topicExchange() {
         return new TopicExchange(EXCHANGE);
     }
 
+    /**
+     * Orders are published as pre-encoded {@link org.springframework.amqp.core.Message}s, so no
+     * JSON converter is registered. Mandatory publishing makes the broker return unroutable
+     * messages, which the publisher reports through the message's {@code CorrelationData}.
+     */
     @Bean
-    public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
-    }
-
-    @Bean
-    public AmqpTemplate amqpTemplate(ConnectionFactory connection) {
+    public RabbitTemplate amqpTemplate(ConnectionFactory connection) {
         final var template = new RabbitTemplate(connection);
-        template.setMessageConverter(messageConverter());
+        template.setMandatory(true);
         return template;
     }
 
@@ -48,4 +81,131 @@ public class RabbitMQConfig {
                 .to(topicExchange)
                 .with(ROUTING_KEY_ORDER);
     }
+
+    /**
+     * Express lane for priority orders, a separate queue rather than {@code x-max-priority} on
+     * {@code order_queue}, whose arguments cannot change once declared.
+     */
+    @Bean
+    public Declarables orderExpressTopology(TopicExchange topicExchange) {
+        Queue express = QueueBuilder.durable(QUEUE_ORDER_EXPRESS).build();
+        return new Declarables(express, BindingBuilder.bind(express).to(topicExchange).with(ROUTING_KEY_ORDER_EXPRESS));
+    }
+
+    /**
+     * Retry and parking-lot topology for failed orders. Each retry tier is a queue without
+     * consumers whose TTL dead-letters messages back to the order exchange, so a message
+     * republished to a tier is redelivered to the order queue after that tier's delay.
+     * Tier queues are named after their delay, since a queue's TTL cannot change once declared.
+     */
+    @Bean
+    public Declarables orderRetryTopology() {
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE);
+        declarables.add(retryExchange);
+
+        for (long delay : retryDelays) {
+            Queue retryQueue = QueueBuilder.durable(QUEUE_ORDER + ".retry." + delay + "ms")
+                    .ttl((int) delay)
+                    .deadLetterExchange(EXCHANGE)
+                    .deadLetterRoutingKey(ROUTING_KEY_ORDER)
+                    .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryRoutingKey(delay)));
+        }
+
+        Queue parkingQueue = QueueBuilder.durable(PARKING_QUEUE).build();
+        declarables.add(parkingQueue);
+        declarables.add(BindingBuilder.bind(parkingQueue).to(retryExchange).with(PARKING_ROUTING_KEY));
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Topic exchange for order lifecycle events published by the outbox relay, routed as
+     * {@code order.created}, {@code order.status.changed} and {@code order.deleted}.
+     */
+    @Bean
+    public Declarables orderEventTopology() {
+        return new Declarables(new TopicExchange(EVENTS_EXCHANGE));
+    }
+
+    /**
+     * Fanout exchange for near-cache invalidations, with an exclusive, auto-deleted queue per
+     * instance so every instance receives every invalidation.
+     */
+    @Bean
+    public Declarables cacheInvalidationTopology(CacheInvalidationQueue cacheInvalidationQueue) {
+        FanoutExchange exchange = new FanoutExchange(CACHE_INVALIDATION_EXCHANGE);
+        Queue queue = new Queue(cacheInvalidationQueue.name(), false, true, true);
+        return new Declarables(exchange, queue, BindingBuilder.bind(queue).to(exchange));
+    }
+
+    @Bean
+    public CacheInvalidationQueue cacheInvalidationQueue() {
+        return new CacheInvalidationQueue(new Base64UrlNamingStrategy(CACHE_INVALIDATION_EXCHANGE + ".").generateName());
+    }
+
+    /**
+     * Partitioned order queues, declared when {@code orders.partitions.count} is positive. Each
+     * is bound to the order exchange under its own routing key (see {@link OrderPartitioner}) and
+     * allows a single active consumer, so even with several instances the orders of a partition
+     * are processed one at a time. The shared {@code order_queue} stays in place for retries and
+     * re-drives.
+     */
+    @Bean
+    public Declarables orderPartitionTopology(TopicExchange topicExchange, OrderPartitioner orderPartitioner) {
+        List<Declarable> declarables = new ArrayList<>();
+        String[] queueNames = orderPartitioner.queueNames();
+        for (int i = 0; i < queueNames.length; i++) {
+            Queue partition = QueueBuilder.durable(queueNames[i]).singleActiveConsumer().build();
+            declarables.add(partition);
+            declarables.add(BindingBuilder.bind(partition).to(topicExchange).with(partitionRoutingKey(i)));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Listener container factory for the partitioned queues: one consumer per queue, each on its
+     * own channel, so partitions are processed in parallel and each partition strictly in order.
+     */
+    @Bean(PARTITION_CONTAINER_FACTORY)
+    @ConditionalOnExpression("${orders.partitions.count:0} > 0")
+    public DirectRabbitListenerContainerFactory partitionContainerFactory(
+            DirectRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        DirectRabbitListenerContainerFactory factory = new DirectRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConsumersPerQueue(1);
+        return factory;
+    }
+
+    public static String partitionRoutingKey(int partition) {
+        return ROUTING_KEY_ORDER + ".p" + partition;
+    }
+
+    public static String partitionQueueName(int partition) {
+        return QUEUE_ORDER + ".p" + partition;
+    }
+
+    public static String retryRoutingKey(long delay) {
+        return "retry." + delay;
+    }
+
+    /**
+     * Listener container factory that hands the order listener up to {@code batchSize}
+     * messages at once, or whatever arrived within {@code batchReceiveTimeout} ms.
+     * The whole batch is acknowledged when the listener returns.
+     */
+    @Bean(BATCH_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "orders.listener.batch.enabled", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory batchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(Math.max(batchSize, 250));
+        factory.setReceiveTimeout(batchReceiveTimeout);
+        return factory;
+    }
 }
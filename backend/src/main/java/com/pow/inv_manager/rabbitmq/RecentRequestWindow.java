@@ -0,0 +1,38 @@
+package com.pow.inv_manager.rabbitmq;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded window of the most recently processed order request IDs, so redelivered or
+ * re-published messages are dropped without a database round-trip. Older duplicates
+ * are still caught by the unique request ID on the order table.
+ */
+@Component
+public class RecentRequestWindow {
+
+    private final Map<String, Boolean> recent;
+
+    public RecentRequestWindow(@Value("${orders.intake.dedup-window:10000}") int capacity) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String requestId) {
+        return recent.containsKey(requestId);
+    }
+
+    /**
+     * Adds an ID once its order has been created, evicting the least recently seen one when full.
+     */
+    public synchronized void remember(String requestId) {
+        recent.put(requestId, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,14 @@
+package com.pow.inv_manager.rabbitmq;
+
+import java.util.List;
+
+/**
+ * Published on this instance after {@link CacheInvalidationBroadcaster} applied an
+ * invalidation received from another instance, for in-memory state kept next to the near
+ * caches. Listeners run on the broadcast listener thread and should only record the IDs.
+ *
+ * @param cache the near cache the IDs belong to
+ * @param ids   the changed rows
+ */
+public record RemoteCacheInvalidation(String cache, List<Long> ids) {
+}
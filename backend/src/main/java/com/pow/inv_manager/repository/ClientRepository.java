@@ -2,8 +2,16 @@ package com.pow.inv_manager.repository;
 
 import com.pow.inv_manager.model.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
+
+    @Query("SELECT c FROM Client c LEFT JOIN FETCH c.address WHERE c.id IN :ids")
+    List<Client> findAllWithAddressByIdIn(@Param("ids") Collection<Long> ids);
 }
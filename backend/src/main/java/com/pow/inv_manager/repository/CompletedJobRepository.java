@@ -0,0 +1,7 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.CompletedJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CompletedJobRepository extends JpaRepository<CompletedJob, String> {
+}
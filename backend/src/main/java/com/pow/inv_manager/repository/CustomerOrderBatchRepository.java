@@ -0,0 +1,186 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.OrderItem;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes customer orders and their lines with JDBC batches instead of one
+ * persist per entity. IDENTITY ids disable Hibernate insert batching, so the
+ * bulk intake path goes straight to JDBC and reads the keys back.
+ */
+@Repository
+public class CustomerOrderBatchRepository {
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO customer_order (client_id, order_date, status, total_amount, request_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_ITEM =
+            "INSERT INTO order_item (order_id, inventory_id, quantity, unit_price, subtotal) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUSES =
+            "UPDATE customer_order SET status = ?, version = version + 1 " +
+            "WHERE id = ANY (?) AND status = ANY (?) RETURNING id";
+    private static final String SELECT_STATUSES = "SELECT id, status FROM customer_order WHERE id = ANY (?)";
+    private static final String LOCK_STATUSES =
+            "SELECT id, status FROM customer_order WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+    private static final String SUM_LINE_QUANTITIES =
+            "SELECT inventory_id, SUM(quantity) AS quantity FROM order_item " +
+            "WHERE order_id = ANY (?) AND inventory_id IS NOT NULL GROUP BY inventory_id";
+    private static final String[] ID_COLUMN = {"id"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerOrderBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts every order and then every order line in two JDBC batches.
+     * Generated ids are written back to the given entities.
+     *
+     * @param orders the orders to insert, each with its order items and a resolved client
+     */
+    public void insertAll(List<CustomerOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        KeyHolder orderKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER, ID_COLUMN), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CustomerOrder order = orders.get(i);
+                ps.setLong(1, order.getClient().getId());
+                if (order.getOrderDate() != null) {
+                    ps.setTimestamp(2, new Timestamp(order.getOrderDate().getTime()));
+                } else {
+                    ps.setNull(2, Types.TIMESTAMP);
+                }
+                ps.setString(3, order.getStatus());
+                ps.setDouble(4, order.getTotalAmount());
+                ps.setString(5, order.getRequestId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return orders.size();
+            }
+        }, orderKeys);
+        assignIds(orderKeys, orders.size(), (i, id) -> orders.get(i).setId(id));
+
+        List<OrderItem> items = orders.stream()
+                .flatMap(order -> order.getOrderItems().stream())
+                .toList();
+        if (items.isEmpty()) {
+            return;
+        }
+
+        KeyHolder itemKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER_ITEM, ID_COLUMN), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderItem item = items.get(i);
+                ps.setLong(1, item.getCustomerOrder().getId());
+                ps.setLong(2, item.getInventory().getId());
+                ps.setInt(3, item.getQuantity());
+                ps.setDouble(4, item.getUnitPrice());
+                ps.setDouble(5, item.getSubtotal());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        }, itemKeys);
+        assignIds(itemKeys, items.size(), (i, id) -> items.get(i).setId(id));
+    }
+
+    /**
+     * Moves every listed order that is currently in one of {@code fromStatuses} to
+     * {@code targetStatus} with a single UPDATE, without loading the orders.
+     *
+     * @return the IDs of the orders that were moved
+     */
+    public List<Long> updateStatuses(Collection<Long> ids, String targetStatus, Collection<String> fromStatuses) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_STATUSES);
+            ps.setString(1, targetStatus);
+            ps.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+            ps.setArray(3, con.createArrayOf("varchar", fromStatuses.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /**
+     * @return the current status of each listed order that exists, by order ID
+     */
+    public Map<Long, String> findStatuses(Collection<Long> ids) {
+        Map<Long, String> statuses = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_STATUSES);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, rs -> {
+            statuses.put(rs.getLong("id"), rs.getString("status"));
+        });
+        return statuses;
+    }
+
+    /**
+     * Like {@link #findStatuses}, but also locks the listed orders until the end of the
+     * transaction, so a concurrent status change or delete waits for this one.
+     */
+    public Map<Long, String> lockStatuses(Collection<Long> ids) {
+        Map<Long, String> statuses = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_STATUSES);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, rs -> {
+            statuses.put(rs.getLong("id"), rs.getString("status"));
+        });
+        return statuses;
+    }
+
+    /**
+     * @return the total line quantity of the listed orders per inventory row
+     */
+    public Map<Long, Integer> sumLineQuantities(Collection<Long> orderIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SUM_LINE_QUANTITIES);
+            ps.setArray(1, con.createArrayOf("bigint", orderIds.toArray()));
+            return ps;
+        }, rs -> {
+            quantities.put(rs.getLong("inventory_id"), rs.getInt("quantity"));
+        });
+        return quantities;
+    }
+
+    private void assignIds(KeyHolder keyHolder, int expected, IdAssigner assigner) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " generated keys but got " + keys.size());
+        }
+        for (int i = 0; i < expected; i++) {
+            assigner.assign(i, ((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    @FunctionalInterface
+    private interface IdAssigner {
+        void assign(int index, long id);
+    }
+}
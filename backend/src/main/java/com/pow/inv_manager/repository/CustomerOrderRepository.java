@@ -1,16 +1,55 @@
 package com.pow.inv_manager.repository;
 
+import com.pow.inv_manager.dto.OrderReadRow;
 import com.pow.inv_manager.model.CustomerOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Long> {
-    List<CustomerOrder> findByClientId(Long userId);
+
+    String ORDER_READ_ROW_QUERY = "SELECT new com.pow.inv_manager.dto.OrderReadRow(" +
+            "co.id, co.orderDate, co.status, co.totalAmount, co.version, c.id, c.firstName, c.lastName, c.email, c.phone, " +
+            "a.country, a.city, a.street, oi.id, inv.id, it.name, oi.quantity, oi.unitPrice, oi.subtotal) " +
+            "FROM CustomerOrder co JOIN co.client c LEFT JOIN c.address a " +
+            "LEFT JOIN co.orderItems oi LEFT JOIN oi.inventory inv LEFT JOIN inv.item it ";
 
     void deleteCustomerOrderByClient_Id(Long clientId);
 
-    @Query("SELECT co FROM CustomerOrder co JOIN FETCH co.orderItems oi JOIN FETCH co.client")
-    List<CustomerOrder> findAllWithOrderItemsAndClient();
+    @Query("SELECT co.id FROM CustomerOrder co WHERE co.client.id = :clientId")
+    List<Long> findIdsByClientId(@Param("clientId") Long clientId);
+
+    @Modifying
+    @Query("UPDATE CustomerOrder co SET co.status = :status, co.version = co.version + 1 WHERE co.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    @Query(ORDER_READ_ROW_QUERY + "WHERE co.id = :id ORDER BY oi.id")
+    List<OrderReadRow> findReadRowsById(@Param("id") Long id);
+
+    @Query(ORDER_READ_ROW_QUERY + "WHERE c.id = :clientId ORDER BY co.id, oi.id")
+    List<OrderReadRow> findReadRowsByClientId(@Param("clientId") Long clientId);
+
+    @Query("SELECT co.id FROM CustomerOrder co ORDER BY co.id DESC")
+    List<Long> findPageIds(Pageable pageable);
+
+    @Query("SELECT co.id FROM CustomerOrder co WHERE co.id < :cursor ORDER BY co.id DESC")
+    List<Long> findPageIdsBefore(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("SELECT DISTINCT co FROM CustomerOrder co JOIN FETCH co.client c LEFT JOIN FETCH c.address " +
+            "LEFT JOIN FETCH co.orderItems oi LEFT JOIN FETCH oi.inventory inv LEFT JOIN FETCH inv.item " +
+            "WHERE co.id IN :ids")
+    List<CustomerOrder> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT co.id FROM CustomerOrder co ORDER BY co.id")
+    Stream<Long> streamAllIds();
 }
@@ -1,11 +1,52 @@
 package com.pow.inv_manager.repository;
 
+import com.pow.inv_manager.dto.InventoryStockRow;
 import com.pow.inv_manager.model.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory> {
+
+    @Query("SELECT i FROM Inventory i LEFT JOIN FETCH i.item WHERE i.id IN :ids")
+    List<Inventory> findAllWithItemByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT i FROM Inventory i LEFT JOIN FETCH i.item")
+    List<Inventory> findAllWithItem();
+
+    /**
+     * Takes {@code quantity} units from an active inventory row only if enough stock is left.
+     * The check and the write happen in one statement, so concurrent orders cannot oversell.
+     *
+     * @return 1 if the stock was taken, 0 if the row is missing, inactive or short of stock
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity " +
+            "WHERE i.id = :id AND i.quantity >= :quantity AND i.isActive = true")
+    int decrementIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Locks the listed rows in ascending ID order until the end of the transaction, so
+     * callers that then update them in any order cannot deadlock with each other.
+     */
+    @Query(value = "SELECT id FROM inventory WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity WHERE i.id = :id")
+    int increment(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT i.quantity FROM Inventory i WHERE i.id = :id AND i.isActive = true")
+    Optional<Integer> findActiveQuantity(@Param("id") Long id);
+
+    @Query("SELECT new com.pow.inv_manager.dto.InventoryStockRow(i.id, i.isActive, i.quantity) FROM Inventory i")
+    List<InventoryStockRow> findAllStockRows();
 }
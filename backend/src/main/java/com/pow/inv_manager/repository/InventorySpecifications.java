@@ -0,0 +1,139 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Composable filters over {@link Inventory} and its {@link Item}. Each factory returns null
+ * when its argument is absent, which {@link Specification#where} and {@code and} skip, so a
+ * search is the conjunction of whichever filters were given. All of them share one inner join
+ * to the item, fetched on row queries so results need no further loads.
+ */
+public final class InventorySpecifications {
+
+    private InventorySpecifications() {
+    }
+
+    public static Specification<Inventory> hasCategory(String category) {
+        return category == null ? null : (root, query, cb) -> cb.equal(item(root, query).get("category"), category);
+    }
+
+    public static Specification<Inventory> priceBetween(Double minPrice, Double maxPrice) {
+        return range("price", minPrice, maxPrice, true);
+    }
+
+    public static Specification<Inventory> isActive(Boolean active) {
+        return active == null ? null : (root, query, cb) -> cb.equal(root.get("isActive"), active);
+    }
+
+    public static Specification<Inventory> atLocation(String location) {
+        return location == null ? null : (root, query, cb) -> cb.equal(root.get("location"), location);
+    }
+
+    public static Specification<Inventory> quantityBetween(Integer minQuantity, Integer maxQuantity) {
+        return range("quantity", minQuantity, maxQuantity, false);
+    }
+
+    /**
+     * Fetches the item with each row even when no filter needs it.
+     */
+    public static Specification<Inventory> withItem() {
+        return (root, query, cb) -> {
+            item(root, query);
+            return null;
+        };
+    }
+
+    /**
+     * Orders rows by {@code sortAttribute} with the inventory ID breaking ties and, given the
+     * last row of the previous page, keeps only the rows after it. The ordering is applied here
+     * rather than through a {@code Sort}, which would join the item a second time.
+     *
+     * @param sortAttribute the sort key, {@code "id"}, {@code "quantity"} or {@code "item.price"}
+     * @param sortValue     the sort key of the last row of the previous page, null for the first page
+     * @param id            the ID of the last row of the previous page, null for the first page
+     */
+    public static <T extends Comparable<? super T>> Specification<Inventory> keysetPage(String sortAttribute,
+                                                                                   Sort.Direction direction,
+                                                                                   T sortValue, Long id) {
+        return (root, query, cb) -> {
+            Expression<Long> idPath = root.get("id");
+            Expression<T> key = sortAttribute.startsWith("item.")
+                    ? item(root, query).get(sortAttribute.substring("item.".length()))
+                    : root.get(sortAttribute);
+            boolean idOnly = "id".equals(sortAttribute);
+            if (direction.isAscending()) {
+                query.orderBy(idOnly ? List.of(cb.asc(idPath)) : List.of(cb.asc(key), cb.asc(idPath)));
+            } else {
+                query.orderBy(idOnly ? List.of(cb.desc(idPath)) : List.of(cb.desc(key), cb.desc(idPath)));
+            }
+            if (id == null) {
+                return null;
+            }
+
+            Predicate idAfter = direction.isAscending() ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (idOnly) {
+                return idAfter;
+            }
+            Predicate keyAfter = direction.isAscending() ? cb.greaterThan(key, sortValue) : cb.lessThan(key, sortValue);
+            return cb.or(keyAfter, cb.and(cb.equal(key, sortValue), idAfter));
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Inventory> range(String attribute, T min, T max,
+                                                                                  boolean onItem) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<T> value = onItem ? item(root, query).get(attribute) : root.get(attribute);
+            return between(cb, value, min, max);
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate between(CriteriaBuilder cb, Expression<T> value, T min, T max) {
+        if (min == null) {
+            return cb.lessThanOrEqualTo(value, max);
+        }
+        if (max == null) {
+            return cb.greaterThanOrEqualTo(value, min);
+        }
+        return cb.between(value, min, max);
+    }
+
+    /**
+     * Returns the join to the item, creating it on first use: a fetch for row queries, a plain
+     * join for count queries, which cannot fetch.
+     */
+    @SuppressWarnings("unchecked")
+    private static From<Inventory, Item> item(Root<Inventory> root, CriteriaQuery<?> query) {
+        for (Fetch<Inventory, ?> fetch : root.getFetches()) {
+            if ("item".equals(fetch.getAttribute().getName())) {
+                return (Join<Inventory, Item>) fetch;
+            }
+        }
+        for (Join<Inventory, ?> join : root.getJoins()) {
+            if ("item".equals(join.getAttribute().getName())) {
+                return (Join<Inventory, Item>) join;
+            }
+        }
+        Class<?> resultType = query.getResultType();
+        if (resultType == Long.class || resultType == long.class) {
+            return root.join("item", JoinType.INNER);
+        }
+        return (Join<Inventory, Item>) root.<Inventory, Item>fetch("item", JoinType.INNER);
+    }
+}
@@ -0,0 +1,116 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts imported items together with their default inventory rows in JDBC
+ * batches. Like {@link CustomerOrderBatchRepository}, it bypasses Hibernate
+ * because IDENTITY ids disable insert batching there.
+ */
+@Repository
+public class ItemImportBatchRepository {
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO item (name, description, category, price, photo) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_INVENTORY =
+            "INSERT INTO inventory (item_id, quantity, location, is_active) VALUES (?, ?, ?, ?)";
+    private static final String[] ID_COLUMN = {"id"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ItemImportBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts every item and then one empty, inactive inventory row per item,
+     * matching what a single item creation does. Generated ids are written back
+     * to the given items.
+     *
+     * @param items the items to insert
+     * @return the inserted inventory rows, in the order of the given items
+     */
+    public List<Inventory> insertAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+
+        KeyHolder itemKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ITEM, ID_COLUMN), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Item item = items.get(i);
+                ps.setString(1, item.getName());
+                ps.setString(2, item.getDescription());
+                ps.setString(3, item.getCategory());
+                ps.setDouble(4, item.getPrice());
+                ps.setString(5, item.getPhoto());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        }, itemKeys);
+        List<Long> itemIds = generatedIds(itemKeys, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setId(itemIds.get(i));
+        }
+
+        List<Inventory> inventories = new ArrayList<>(items.size());
+        for (Item item : items) {
+            inventories.add(Inventory.builder()
+                    .item(item)
+                    .quantity(0)
+                    .location("")
+                    .isActive(false)
+                    .build());
+        }
+
+        KeyHolder inventoryKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_INVENTORY, ID_COLUMN), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Inventory inventory = inventories.get(i);
+                ps.setLong(1, inventory.getItem().getId());
+                ps.setInt(2, inventory.getQuantity());
+                ps.setString(3, inventory.getLocation());
+                ps.setBoolean(4, inventory.getIsActive());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return inventories.size();
+            }
+        }, inventoryKeys);
+        List<Long> inventoryIds = generatedIds(inventoryKeys, inventories.size());
+        for (int i = 0; i < inventories.size(); i++) {
+            inventories.get(i).setId(inventoryIds.get(i));
+        }
+        return inventories;
+    }
+
+    private List<Long> generatedIds(KeyHolder keyHolder, int expected) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " generated keys but got " + keys.size());
+        }
+        List<Long> ids = new ArrayList<>(expected);
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.get("id")).longValue());
+        }
+        return ids;
+    }
+}
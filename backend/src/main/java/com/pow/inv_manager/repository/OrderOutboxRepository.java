@@ -0,0 +1,103 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.OrderOutboxEvent;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JDBC access to the order outbox. Events are appended in batches by the transaction that
+ * changed the orders. The relay claims the oldest unclaimed events by setting a lease on them
+ * in a single statement that commits at once; rows being claimed by another instance are
+ * skipped with {@code FOR UPDATE SKIP LOCKED}, so several instances can drain the table
+ * without publishing the same rows, and no lock is held while the relay publishes.
+ */
+@Repository
+public class OrderOutboxRepository {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO order_outbox (order_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+    private static final String CLAIM_EVENTS =
+            "UPDATE order_outbox SET claimed_until = now() + ? * INTERVAL '1 millisecond' WHERE id IN (" +
+            "SELECT id FROM order_outbox WHERE claimed_until IS NULL OR claimed_until < now() " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, order_id, event_type, payload, created_at";
+    private static final String DELETE_EVENTS = "DELETE FROM order_outbox WHERE id = ANY (?)";
+    private static final String RELEASE_EVENTS = "UPDATE order_outbox SET claimed_until = NULL WHERE id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<OrderOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderOutboxEvent event = events.get(i);
+                ps.setLong(1, event.getOrderId());
+                ps.setString(2, event.getEventType());
+                ps.setString(3, event.getPayload());
+                ps.setTimestamp(4, new Timestamp(event.getCreatedAt().getTime()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Leases up to {@code limit} of the oldest events that are unclaimed or whose lease ran
+     * out, for {@code leaseMs} milliseconds. Meant to run outside a transaction, so the lease
+     * is committed before the events are published.
+     *
+     * @return the claimed events in ID order
+     */
+    public List<OrderOutboxEvent> claimBatch(int limit, long leaseMs) {
+        List<OrderOutboxEvent> events = jdbcTemplate.query(CLAIM_EVENTS, (rs, rowNum) -> OrderOutboxEvent.builder()
+                .id(rs.getLong("id"))
+                .orderId(rs.getLong("order_id"))
+                .eventType(rs.getString("event_type"))
+                .payload(rs.getString("payload"))
+                .createdAt(rs.getTimestamp("created_at"))
+                .build(), leaseMs, limit);
+        // RETURNING does not keep the order of the subquery
+        events.sort(Comparator.comparing(OrderOutboxEvent::getId));
+        return events;
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        updateAll(DELETE_EVENTS, ids);
+    }
+
+    /**
+     * Ends the lease on the given events, so the next relay run publishes them again.
+     */
+    public void releaseAll(Collection<Long> ids) {
+        updateAll(RELEASE_EVENTS, ids);
+    }
+
+    private void updateAll(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+    }
+}
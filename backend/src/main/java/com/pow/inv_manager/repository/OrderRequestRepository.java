@@ -0,0 +1,35 @@
+package com.pow.inv_manager.repository;
+
+import com.pow.inv_manager.model.OrderRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface OrderRequestRepository extends JpaRepository<OrderRequest, Long> {
+
+    Optional<OrderRequest> findByRequestId(String requestId);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_request (request_id, status, created_at, updated_at) " +
+            "VALUES (:requestId, :status, now(), now()) ON CONFLICT (request_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("requestId") String requestId, @Param("status") String status);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_request (request_id, status, order_id, created_at, updated_at) " +
+            "VALUES (:requestId, :status, :orderId, now(), now()) ON CONFLICT (request_id) " +
+            "DO UPDATE SET status = :status, order_id = :orderId, failure_reason = NULL, updated_at = now()", nativeQuery = true)
+    int upsertWithOrder(@Param("requestId") String requestId, @Param("status") String status, @Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("UPDATE OrderRequest r SET r.status = :status, r.failureReason = :reason, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.requestId = :requestId AND r.status = :fromStatus")
+    int updateStatus(@Param("requestId") String requestId, @Param("fromStatus") String fromStatus,
+                     @Param("status") String status, @Param("reason") String reason);
+
+    @Modifying
+    @Query("DELETE FROM OrderRequest r WHERE r.requestId = :requestId")
+    int deleteByRequestId(@Param("requestId") String requestId);
+}
@@ -1,10 +1,15 @@
 package com.pow.inv_manager.service;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
 import com.pow.inv_manager.dto.InventoryDTO;
+import com.pow.inv_manager.dto.InventoryFilterDTO;
+import com.pow.inv_manager.dto.InventoryPageDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
 import com.pow.inv_manager.exception.InventoryException;
 import com.pow.inv_manager.utils.Category;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +22,13 @@ public interface InventoryService {
     InventoryDTO updateInventory(Long id, InventoryDTO inventoryDTO) throws InventoryException;
 
     @Transactional
-    void reduceInventory(InventoryDTO inventoryDTO) throws InventoryException;
+    void reduceInventory(List<InventoryReductionDTO> reductions) throws InventoryException;
+
+    @Transactional
+    void releaseInventory(List<InventoryReductionDTO> releases);
+
+    @Transactional
+    void lockInventory(Collection<Long> ids);
 
     @Transactional
     void deleteInventory(Long id) throws InventoryException;
@@ -25,4 +36,8 @@ public interface InventoryService {
     InventoryDTO getInventoryById(Long id) throws InventoryException;
 
     List<InventoryDTO> getInventory();
+
+    InventoryPageDTO searchInventory(InventoryFilterDTO filter, String cursor, int size) throws InventoryException;
+
+    CacheStatsDTO getCacheStats();
 }
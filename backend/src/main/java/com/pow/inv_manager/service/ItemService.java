@@ -1,13 +1,25 @@
 package com.pow.inv_manager.service;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
+import com.pow.inv_manager.dto.FacetResultDTO;
 import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.ItemImportReportDTO;
+import com.pow.inv_manager.dto.ItemSearchHitDTO;
 import com.pow.inv_manager.exception.ItemException;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ItemService {
+    /** Facet names accepted by {@link #getFacets} and used as keys of its counts. */
+    String FACET_CATEGORY = "category";
+    String FACET_PRICE_BAND = "priceBand";
+    String FACET_IN_STOCK = "inStock";
+    String FACET_LOCATION = "location";
+
     @Transactional
     ItemDTO createItem(ItemDTO itemDTO) throws ItemException;
 
@@ -20,4 +32,12 @@ public interface ItemService {
     ItemDTO getItemById(Long id) throws ItemException;
 
     List<ItemDTO> listItems();
+
+    List<ItemSearchHitDTO> searchItems(String query, boolean prefix, int limit) throws ItemException;
+
+    ItemImportReportDTO importItems(InputStream body, String contentType) throws ItemException;
+
+    FacetResultDTO getFacets(Map<String, List<String>> selections, int limit);
+
+    CacheStatsDTO getCacheStats();
 }
@@ -0,0 +1,24 @@
+package com.pow.inv_manager.service;
+
+import com.pow.inv_manager.dto.OrderRequestDTO;
+import com.pow.inv_manager.exception.OrderException;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface OrderRequestService {
+    boolean registerRequest(String requestId);
+
+    void discardRequest(String requestId);
+
+    void markUnconfirmed(String requestId);
+
+    boolean reclaimUnconfirmed(String requestId);
+
+    void markCreated(String requestId, Long orderId);
+
+    void markFailed(String requestId, String reason);
+
+    OrderRequestDTO getRequest(String requestId) throws OrderException;
+
+    CompletableFuture<OrderRequestDTO> awaitCompletion(String requestId);
+}
@@ -1,25 +1,38 @@
 package com.pow.inv_manager.service;
 
 import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderPageDTO;
+import com.pow.inv_manager.dto.OrderStatusChangeResultDTO;
 import com.pow.inv_manager.exception.OrderException;
 import com.pow.inv_manager.utils.OrderStatus;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderService {
     CustomerOrderDTO createOrder(CustomerOrderDTO customerOrderDTO) throws OrderException;
 
     @Transactional
+    List<CustomerOrderDTO> createOrders(List<CustomerOrderDTO> customerOrderDTOs);
+
     CustomerOrderDTO updateOrder(Long orderId, CustomerOrderDTO customerOrderDTO) throws OrderException;
 
     CustomerOrderDTO getOrder(Long orderId) throws OrderException;
 
-    List<CustomerOrderDTO> getAllOrders() throws OrderException;
+    long countOrders();
+
+    OrderPageDTO getOrdersPage(String cursor, int size) throws OrderException;
+
+    @Transactional(readOnly = true)
+    void streamAllOrders(Consumer<CustomerOrderDTO> consumer);
 
     @Transactional
     void updateOrderStatus(Long orderId, OrderStatus status) throws OrderException;
 
+    @Transactional
+    List<OrderStatusChangeResultDTO> updateOrderStatuses(List<Long> orderIds, OrderStatus status) throws OrderException;
+
     List<CustomerOrderDTO> getUserOrders(Long userId) throws OrderException;
 
     @Transactional
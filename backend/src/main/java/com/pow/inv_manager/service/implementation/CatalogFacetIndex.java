@@ -0,0 +1,322 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.FacetResultDTO;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.InventoryRepository;
+import com.pow.inv_manager.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet index over inventory rows for catalog browsing. Every value of the
+ * {@value #CATEGORY}, {@value #PRICE_BAND}, {@value #IN_STOCK} and {@value #LOCATION} facets
+ * keeps a {@link CompressedBitmap} of the inventory IDs that have it, so a filter is a few
+ * bitmap intersections and a facet count is an intersection cardinality. Bitmaps hold ints, so
+ * rows with an ID above {@link Integer#MAX_VALUE} are left out of the index with a warning.
+ * <p>
+ * Values selected within a facet are OR-ed and facets are AND-ed. The counts of a facet are
+ * taken over the filter without that facet's own selection, so they show what picking another
+ * value of it would return. Price bands are bounded by {@code catalog.facets.price-bands}.
+ * <p>
+ * The index is built on startup, updated after each committed item or inventory write, and
+ * rebuilt every {@code refresh-interval} ms to pick up changes from other instances.
+ */
+@Slf4j
+@Component
+public class CatalogFacetIndex {
+
+    private static final String CATEGORY = ItemService.FACET_CATEGORY;
+    private static final String PRICE_BAND = ItemService.FACET_PRICE_BAND;
+    private static final String IN_STOCK = ItemService.FACET_IN_STOCK;
+    private static final String LOCATION = ItemService.FACET_LOCATION;
+
+    private final InventoryRepository inventoryRepository;
+    private final double[] priceBands;
+    private final List<String> priceBandLabels;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, CompressedBitmap>> facets = new HashMap<>();
+    private final Map<Integer, Row> rows = new HashMap<>();
+    private final Map<Long, Set<Integer>> rowsByItem = new HashMap<>();
+    private CompressedBitmap all = new CompressedBitmap();
+
+    public CatalogFacetIndex(InventoryRepository inventoryRepository,
+                             @Value("${catalog.facets.price-bands:10,25,50,100,250}") double[] priceBands) {
+        this.inventoryRepository = inventoryRepository;
+        this.priceBands = priceBands.clone();
+        Arrays.sort(this.priceBands);
+        this.priceBandLabels = new ArrayList<>();
+        for (int i = 0; i <= this.priceBands.length; i++) {
+            priceBandLabels.add(bandLabel(i));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${catalog.facets.refresh-interval:300000}",
+            initialDelayString = "${catalog.facets.refresh-interval:300000}")
+    public void rebuild() {
+        List<Inventory> inventories = inventoryRepository.findAllWithItem();
+        lock.writeLock().lock();
+        try {
+            facets.clear();
+            rows.clear();
+            rowsByItem.clear();
+            all = new CompressedBitmap();
+            int skipped = 0;
+            for (Inventory inventory : inventories) {
+                if (indexable(inventory.getId())) {
+                    put(Row.of(inventory));
+                } else {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                log.warn("Left {} inventory rows with IDs above {} out of the catalog facet index", skipped, Integer.MAX_VALUE);
+            }
+            log.info("Catalog facet index built with {} inventory rows in about {} KB", rows.size(), sizeInBytes() / 1024);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param selections the selected values of each facet; facets absent or empty do not filter
+     * @param limit      the maximum number of matching inventory IDs returned
+     * @return the number of matching rows, the first matching IDs and the counts of every facet value
+     */
+    public FacetResultDTO query(Map<String, List<String>> selections, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, CompressedBitmap> selected = new HashMap<>();
+            selections.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    CompressedBitmap union = new CompressedBitmap();
+                    Map<String, CompressedBitmap> facetValues = facets.getOrDefault(facet, Map.of());
+                    for (String value : values) {
+                        CompressedBitmap bitmap = facetValues.get(value);
+                        if (bitmap != null) {
+                            union = union.or(bitmap);
+                        }
+                    }
+                    selected.put(facet, union);
+                }
+            });
+
+            CompressedBitmap matches = filter(selected, null);
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            for (String facet : List.of(CATEGORY, PRICE_BAND, IN_STOCK, LOCATION)) {
+                CompressedBitmap base = selected.containsKey(facet) ? filter(selected, facet) : matches;
+                Map<String, Long> valueCounts = PRICE_BAND.equals(facet) ? new LinkedHashMap<>() : new TreeMap<>();
+                Map<String, CompressedBitmap> facetValues = facets.getOrDefault(facet, Map.of());
+                Iterable<String> values = PRICE_BAND.equals(facet) ? priceBandLabels : facetValues.keySet();
+                for (String value : values) {
+                    CompressedBitmap bitmap = facetValues.get(value);
+                    valueCounts.put(value, bitmap == null ? 0 : base.andCardinality(bitmap));
+                }
+                counts.put(facet, valueCounts);
+            }
+
+            return FacetResultDTO.builder()
+                    .total(matches.cardinality())
+                    .inventoryIds(Arrays.stream(matches.first(limit)).mapToObj(Long::valueOf).toList())
+                    .facets(counts)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the row, or reindexes it, once the surrounding transaction commits.
+     */
+    public void putAfterCommit(Inventory inventory) {
+        if (!indexable(inventory.getId())) {
+            log.warn("Inventory row {} is not added to the catalog facet index, its ID is above {}",
+                    inventory.getId(), Integer.MAX_VALUE);
+            return;
+        }
+        Row row = Row.of(inventory);
+        afterCommit(() -> put(row));
+    }
+
+    public void removeAfterCommit(Long inventoryId) {
+        if (indexable(inventoryId)) {
+            afterCommit(() -> remove(inventoryId.intValue()));
+        }
+    }
+
+    /**
+     * Takes the given quantities off the indexed rows once the surrounding transaction commits.
+     */
+    public void takeAfterCommit(Map<Long, Integer> quantities) {
+        afterCommit(() -> quantities.forEach((id, quantity) -> {
+            Row row = indexable(id) ? rows.get(id.intValue()) : null;
+            if (row != null) {
+                put(row.withQuantity(row.quantity() - quantity));
+            }
+        }));
+    }
+
+    /**
+     * Moves the rows of the item to its new category and price band once the surrounding
+     * transaction commits.
+     */
+    public void updateItemAfterCommit(Item item) {
+        Long itemId = item.getId();
+        String category = item.getCategory();
+        double price = item.getPrice();
+        afterCommit(() -> List.copyOf(rowsByItem.getOrDefault(itemId, Set.of())).forEach(id ->
+                put(rows.get(id).withItem(category, price))));
+    }
+
+    private static boolean indexable(Long inventoryId) {
+        return inventoryId != null && inventoryId >= 0 && inventoryId <= Integer.MAX_VALUE;
+    }
+
+    private CompressedBitmap filter(Map<String, CompressedBitmap> selected, String excludedFacet) {
+        CompressedBitmap result = all;
+        for (Map.Entry<String, CompressedBitmap> selection : selected.entrySet()) {
+            if (!selection.getKey().equals(excludedFacet)) {
+                result = result.and(selection.getValue());
+            }
+        }
+        return result;
+    }
+
+    private void put(Row row) {
+        remove(row.id());
+        rows.put(row.id(), row);
+        all.add(row.id());
+        if (row.itemId() != null) {
+            rowsByItem.computeIfAbsent(row.itemId(), key -> new HashSet<>()).add(row.id());
+        }
+        valuesOf(row).forEach((facet, value) ->
+                facets.computeIfAbsent(facet, key -> new HashMap<>())
+                        .computeIfAbsent(value, key -> new CompressedBitmap())
+                        .add(row.id()));
+    }
+
+    private void remove(int id) {
+        Row row = rows.remove(id);
+        if (row == null) {
+            return;
+        }
+        all.remove(id);
+        if (row.itemId() != null) {
+            Set<Integer> itemRows = rowsByItem.get(row.itemId());
+            itemRows.remove(id);
+            if (itemRows.isEmpty()) {
+                rowsByItem.remove(row.itemId());
+            }
+        }
+        valuesOf(row).forEach((facet, value) -> {
+            Map<String, CompressedBitmap> facetValues = facets.get(facet);
+            CompressedBitmap bitmap = facetValues.get(value);
+            bitmap.remove(id);
+            if (bitmap.cardinality() == 0) {
+                facetValues.remove(value);
+            }
+        });
+    }
+
+    private Map<String, String> valuesOf(Row row) {
+        Map<String, String> values = new HashMap<>();
+        if (row.category() != null && !row.category().isBlank()) {
+            values.put(CATEGORY, row.category());
+        }
+        if (row.itemId() != null) {
+            int band = Arrays.binarySearch(priceBands, row.price());
+            values.put(PRICE_BAND, bandLabel(band >= 0 ? band + 1 : -band - 1));
+        }
+        values.put(IN_STOCK, Boolean.toString(row.active() && row.quantity() > 0));
+        if (row.location() != null && !row.location().isBlank()) {
+            values.put(LOCATION, row.location());
+        }
+        return values;
+    }
+
+    /**
+     * Band {@code i} holds prices from bound {@code i - 1} (inclusive) up to bound {@code i}.
+     */
+    private String bandLabel(int band) {
+        if (priceBands.length == 0) {
+            return "0+";
+        }
+        if (band == priceBands.length) {
+            return formatPrice(priceBands[band - 1]) + "+";
+        }
+        return (band == 0 ? "0" : formatPrice(priceBands[band - 1])) + "-" + formatPrice(priceBands[band]);
+    }
+
+    private static String formatPrice(double price) {
+        return price == Math.rint(price) ? Long.toString((long) price) : Double.toString(price);
+    }
+
+    private long sizeInBytes() {
+        long bytes = all.sizeInBytes();
+        for (Map<String, CompressedBitmap> facetValues : facets.values()) {
+            for (CompressedBitmap bitmap : facetValues.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void afterCommit(Runnable update) {
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                update.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                locked.run();
+            }
+        });
+    }
+
+    private record Row(int id, Long itemId, String category, double price, String location, boolean active,
+                       int quantity) {
+
+        static Row of(Inventory inventory) {
+            Item item = inventory.getItem();
+            return new Row(inventory.getId().intValue(), item == null ? null : item.getId(),
+                    item == null ? null : item.getCategory(), item == null ? 0 : item.getPrice(),
+                    inventory.getLocation(), Boolean.TRUE.equals(inventory.getIsActive()), inventory.getQuantity());
+        }
+
+        Row withQuantity(int newQuantity) {
+            return new Row(id, itemId, category, price, location, active, newQuantity);
+        }
+
+        Row withItem(String newCategory, double newPrice) {
+            return new Row(id, itemId, newCategory, newPrice, location, active, quantity);
+        }
+    }
+}
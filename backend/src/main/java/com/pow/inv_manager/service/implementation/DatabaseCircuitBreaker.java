@@ -0,0 +1,94 @@
+package com.pow.inv_manager.service.implementation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Tracks whether the database is reachable. After {@code failure-threshold} consecutive
+ * connection failures the circuit opens; while open the database is probed every
+ * {@code probe-interval} ms with a trivial query and the circuit closes on the first success.
+ * Errors that are not about reaching the database (constraint violations, bad data) do not count.
+ */
+@Slf4j
+@Component
+public class DatabaseCircuitBreaker {
+
+    @Value("${orders.intake.fallback-journal.failure-threshold:3}")
+    private int failureThreshold;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private int consecutiveFailures;
+    private volatile boolean open;
+
+    public DatabaseCircuitBreaker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * @return true if the error means the database could not be reached
+     */
+    public synchronized boolean recordFailure(Throwable error) {
+        if (!isUnavailable(error)) {
+            return false;
+        }
+        if (++consecutiveFailures >= failureThreshold && !open) {
+            open = true;
+            log.warn("Database circuit opened after {} connection failures", consecutiveFailures, error);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.intake.fallback-journal.probe-interval:5000}")
+    public void probe() {
+        if (!open) {
+            return;
+        }
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        } catch (RuntimeException e) {
+            log.debug("Database still unavailable: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures = 0;
+            open = false;
+        }
+        log.info("Database circuit closed");
+    }
+
+    public static boolean isUnavailable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessResourceException
+                    || cause instanceof JDBCConnectionException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
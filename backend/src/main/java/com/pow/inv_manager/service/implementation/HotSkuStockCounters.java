@@ -0,0 +1,270 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional hot-SKU mode for inventory rows that take most of the writes during promotions.
+ * Each instance claims a slice of {@code inventory.hot-sku.slice-size} units of every
+ * configured row from the database with a guarded decrement and serves orders from that
+ * slice in memory, in a {@link StripedStockCounter}, so taking stock does not touch the
+ * row. Slices are only claimed by the refill, which runs every refill interval and, on a
+ * background thread, as soon as an order finds a slice short. An order never waits for a
+ * claim or opens a transaction of its own: when the slice cannot cover it, the caller takes
+ * the units from the row in the order's transaction instead. Because units leave the
+ * database row before they are sold, several instances can run hot-SKU mode on the same
+ * rows without overselling.
+ * <p>
+ * The database quantity of a hot row is the stock not claimed by any instance. Remaining
+ * slices are given back on shutdown; a slice held by a process that dies is lost, so the
+ * row can show less stock than is really left, never more. An admin update of a hot row
+ * sets the unclaimed stock and drops this instance's slice; slices held by other instances
+ * stay valid.
+ */
+@Slf4j
+@Component
+public class HotSkuStockCounters {
+
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    @Value("${inventory.hot-sku.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.hot-sku.ids:}")
+    private String hotInventoryIds;
+
+    @Value("${inventory.hot-sku.slice-size:100}")
+    private int sliceSize;
+
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final int stripes = Runtime.getRuntime().availableProcessors();
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-sku-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refillRequested = new AtomicBoolean();
+
+    public HotSkuStockCounters(InventoryRepository inventoryRepository, TransactionTemplate transactionTemplate) {
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Creates the counters of the active hot rows and claims their first slice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled || hotInventoryIds.isBlank()) {
+            return;
+        }
+        List<Long> ids = Arrays.stream(hotInventoryIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .toList();
+        inventoryRepository.findAllById(ids).stream()
+                .filter(inventory -> Boolean.TRUE.equals(inventory.getIsActive()))
+                .map(Inventory::getId)
+                .forEach(id -> counters.put(id, new StripedStockCounter(stripes, 0)));
+        refill();
+        log.info("Hot-SKU mode enabled for inventory IDs {} with slices of {} units", counters.keySet(), sliceSize);
+    }
+
+    public boolean isHot(Long inventoryId) {
+        return counters.containsKey(inventoryId);
+    }
+
+    /**
+     * Takes units from this instance's slice. Never touches the database: if the slice is
+     * short, a refill is started in the background and the caller has to take the units
+     * from the row itself.
+     *
+     * @return false if the slice cannot cover {@code quantity}
+     */
+    public boolean tryTake(Long inventoryId, int quantity) {
+        StripedStockCounter counter = counters.get(inventoryId);
+        if (counter.tryTake(quantity)) {
+            return true;
+        }
+        requestRefill();
+        return false;
+    }
+
+    public void putBack(Long inventoryId, int quantity) {
+        counters.get(inventoryId).putBack(quantity);
+    }
+
+    /**
+     * @return the units of the row held in this instance's slice, empty if the row is not hot
+     */
+    public OptionalLong available(Long inventoryId) {
+        StripedStockCounter counter = counters.get(inventoryId);
+        return counter == null ? OptionalLong.empty() : OptionalLong.of(counter.available());
+    }
+
+    /**
+     * Gives the taken units back if the surrounding transaction rolls back, since the
+     * in-memory counters are not part of it.
+     */
+    public void putBackOnRollback(Map<Long, Integer> taken) {
+        if (taken.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    taken.forEach(HotSkuStockCounters.this::putBack);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gives units back to the hot counters once the surrounding transaction commits, so a
+     * rolled-back release does not leave them available twice.
+     */
+    public void putBackAfterCommit(Map<Long, Integer> released) {
+        if (released.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            released.forEach(this::putBack);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                released.forEach(HotSkuStockCounters.this::putBack);
+            }
+        });
+    }
+
+    /**
+     * Drops this instance's slice of a hot row once an admin write to the row commits, since
+     * the written quantity is the new unclaimed stock.
+     *
+     * @param inventoryId the inventory row that was updated, deactivated or deleted
+     */
+    public void dropSliceAfterCommit(Long inventoryId) {
+        if (!isHot(inventoryId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counters.get(inventoryId).drain();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counters.get(inventoryId).drain();
+            }
+        });
+    }
+
+    /**
+     * Tops up every slice that has fallen below half its size. Runs on the scheduler or the
+     * refill thread, never inside an order, so a claim never holds up an order transaction
+     * or its connection.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.refill-interval:500}")
+    public synchronized void refill() {
+        if (refillExecutor.isShutdown()) {
+            return;
+        }
+        counters.forEach((id, counter) -> {
+            long left = counter.available();
+            if (left >= sliceSize / 2) {
+                return;
+            }
+            try {
+                counter.putBack(claim(id, sliceSize - left));
+            } catch (RuntimeException e) {
+                log.error("Failed to refill hot-SKU slice of inventory {}, will retry", id, e);
+            }
+        });
+    }
+
+    /**
+     * Gives the unsold units of every slice back to the database, after any refill still
+     * running, and stops further refills.
+     */
+    @PreDestroy
+    public synchronized void returnSlices() {
+        refillExecutor.shutdownNow();
+        Map<Long, Long> unsold = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            long left = counter.drain();
+            if (left > 0) {
+                unsold.put(id, left);
+            }
+        });
+        if (unsold.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    unsold.forEach((id, left) -> inventoryRepository.increment(id, Math.toIntExact(left))));
+        } catch (RuntimeException e) {
+            log.error("Failed to give back hot-SKU slices {}, the rows now show less stock than is left", unsold, e);
+        }
+    }
+
+    /**
+     * Starts a refill on the refill thread unless one is already waiting to run.
+     */
+    private void requestRefill() {
+        if (!refillRequested.compareAndSet(false, true)) {
+            return;
+        }
+        refillExecutor.execute(() -> {
+            refillRequested.set(false);
+            refill();
+        });
+    }
+
+    /**
+     * Moves up to {@code wanted} units from the row to this instance in a transaction of its
+     * own. The decrement is guarded, so concurrent claims never take more than the row has.
+     *
+     * @return the units claimed, 0 if the row is inactive or empty
+     */
+    private long claim(Long inventoryId, long wanted) {
+        Long claimed = transactionTemplate.execute(status -> {
+            for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+                int slice = (int) Math.min(wanted, inventoryRepository.findActiveQuantity(inventoryId).orElse(0));
+                if (slice <= 0) {
+                    return 0L;
+                }
+                if (inventoryRepository.decrementIfAvailable(inventoryId, slice) == 1) {
+                    return (long) slice;
+                }
+            }
+            return 0L;
+        });
+        return claimed == null ? 0 : claimed;
+    }
+}
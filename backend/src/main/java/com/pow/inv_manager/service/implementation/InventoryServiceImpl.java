@@ -1,15 +1,38 @@
 package com.pow.inv_manager.service.implementation;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
 import com.pow.inv_manager.dto.InventoryDTO;
+import com.pow.inv_manager.dto.InventoryFilterDTO;
+import com.pow.inv_manager.dto.InventoryPageDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
 import com.pow.inv_manager.dto.mapper.InventoryMapper;
 import com.pow.inv_manager.exception.InventoryException;
 import com.pow.inv_manager.model.Inventory;
 import com.pow.inv_manager.repository.InventoryRepository;
 import com.pow.inv_manager.service.InventoryService;
+import com.pow.inv_manager.utils.InventorySort;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static com.pow.inv_manager.repository.InventorySpecifications.atLocation;
+import static com.pow.inv_manager.repository.InventorySpecifications.hasCategory;
+import static com.pow.inv_manager.repository.InventorySpecifications.isActive;
+import static com.pow.inv_manager.repository.InventorySpecifications.keysetPage;
+import static com.pow.inv_manager.repository.InventorySpecifications.priceBetween;
+import static com.pow.inv_manager.repository.InventorySpecifications.quantityBetween;
+import static com.pow.inv_manager.repository.InventorySpecifications.withItem;
 
 /**
  * Service implementation for managing inventory operations, including adding, updating,
@@ -19,19 +42,35 @@ import java.util.List;
 public class InventoryServiceImpl implements InventoryService {
 
     private static final String INVENTORY_NOT_FOUND_MESSAGE = "Inventory item not found with ID: ";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int CURSOR_BYTES = 2 + Long.BYTES + Long.BYTES;
 
     private final InventoryRepository inventoryRepository;
     private final InventoryMapper inventoryMapper;
+    private final HotSkuStockCounters hotSkuStockCounters;
+    private final InventorySnapshot inventorySnapshot;
+    private final NearCaches nearCaches;
+    private final CatalogFacetIndex catalogFacetIndex;
 
     /**
      * Constructs an InventoryServiceImpl instance with the required dependencies.
      *
      * @param inventoryRepository the repository for accessing inventory data
      * @param inventoryMapper     the mapper for converting between Inventory and InventoryDTO
+     * @param hotSkuStockCounters the in-memory stock of inventory rows flagged as hot
+     * @param inventorySnapshot   the in-memory copy of inventory used to pre-check orders
+     * @param nearCaches          the read-through caches in front of inventory lookups
+     * @param catalogFacetIndex   the in-memory facet index over inventory rows
      */
-    public InventoryServiceImpl(InventoryRepository inventoryRepository, InventoryMapper inventoryMapper) {
+    public InventoryServiceImpl(InventoryRepository inventoryRepository, InventoryMapper inventoryMapper,
+                                HotSkuStockCounters hotSkuStockCounters, InventorySnapshot inventorySnapshot,
+                                NearCaches nearCaches, CatalogFacetIndex catalogFacetIndex) {
         this.inventoryRepository = inventoryRepository;
         this.inventoryMapper = inventoryMapper;
+        this.hotSkuStockCounters = hotSkuStockCounters;
+        this.inventorySnapshot = inventorySnapshot;
+        this.nearCaches = nearCaches;
+        this.catalogFacetIndex = catalogFacetIndex;
     }
 
     /**
@@ -51,6 +90,8 @@ public class InventoryServiceImpl implements InventoryService {
         validateInventoryData(inventoryDTO);
         Inventory inventory = inventoryMapper.toEntity(inventoryDTO);
         Inventory savedInventory = inventoryRepository.save(inventory);
+        inventorySnapshot.putAfterCommit(savedInventory);
+        catalogFacetIndex.putAfterCommit(savedInventory);
         return inventoryMapper.toDTO(savedInventory);
     }
 
@@ -70,17 +111,113 @@ public class InventoryServiceImpl implements InventoryService {
 
         updateInventoryFields(existingInventory, inventoryDTO);
         Inventory updatedInventory = inventoryRepository.save(existingInventory);
+        hotSkuStockCounters.dropSliceAfterCommit(id);
+        inventorySnapshot.putAfterCommit(updatedInventory);
+        catalogFacetIndex.putAfterCommit(updatedInventory);
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, id);
         return inventoryMapper.toDTO(updatedInventory);
     }
 
+    /**
+     * Takes stock for every line of an order, all or nothing. Each line is a guarded
+     * {@code UPDATE ... WHERE quantity >= ? AND is_active} so no row is read and rewritten,
+     * and lines are applied in inventory ID order so two orders never lock rows in opposite
+     * order. If a line cannot be served, the lines already taken are put back before failing.
+     * Rows in hot-SKU mode are taken from their in-memory slice instead, and from the row
+     * like any other only when the slice cannot cover the line.
+     *
+     * @param reductions the inventory rows and quantities to take; repeated rows are summed
+     * @throws InventoryException if a quantity is not positive or a row is missing, inactive or short of stock
+     */
     @Override
     @Transactional
-    public void reduceInventory(InventoryDTO inventoryDTO) throws InventoryException {
-        if (Boolean.FALSE.equals(inventoryDTO.getIsActive())) {
-            throw new InventoryException("Item it's not active with id: " + inventoryDTO.getId());
+    public void reduceInventory(List<InventoryReductionDTO> reductions) throws InventoryException {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (InventoryReductionDTO reduction : reductions) {
+            if (reduction.getInventoryId() == null || reduction.getQuantity() <= 0) {
+                throw new InventoryException("Invalid reduction for inventory with ID: " + reduction.getInventoryId());
+            }
+            quantities.merge(reduction.getInventoryId(), reduction.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Integer> takenFromHotSkus = new HashMap<>();
+        Map<Long, Integer> takenFromRows = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Long id = line.getKey();
+            int quantity = line.getValue();
+            if (hotSkuStockCounters.isHot(id) && hotSkuStockCounters.tryTake(id, quantity)) {
+                takenFromHotSkus.put(id, quantity);
+            } else if (inventoryRepository.decrementIfAvailable(id, quantity) == 1) {
+                takenFromRows.put(id, quantity);
+            } else {
+                takenFromHotSkus.forEach(hotSkuStockCounters::putBack);
+                takenFromRows.forEach(inventoryRepository::increment);
+                throw new InventoryException("Not enough active stock for inventory with ID: " + id);
+            }
+        }
+
+        hotSkuStockCounters.putBackOnRollback(takenFromHotSkus);
+        inventorySnapshot.takeAfterCommit(takenFromRows);
+        catalogFacetIndex.takeAfterCommit(takenFromRows);
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, quantities.keySet());
+    }
+
+    /**
+     * Gives stock back, for orders that are cancelled, deleted or shrunk. Rows are
+     * incremented in inventory ID order; hot-SKU rows get the units back in memory once the
+     * transaction commits. Entries without a row or with a non-positive quantity are ignored.
+     *
+     * @param releases the inventory rows and quantities to give back; repeated rows are summed
+     */
+    @Override
+    @Transactional
+    public void releaseInventory(List<InventoryReductionDTO> releases) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (InventoryReductionDTO release : releases) {
+            if (release.getInventoryId() != null && release.getQuantity() > 0) {
+                quantities.merge(release.getInventoryId(), release.getQuantity(), Integer::sum);
+            }
+        }
+        if (quantities.isEmpty()) {
+            return;
         }
-        inventoryRepository.save(inventoryMapper.toEntity(inventoryDTO));
 
+        Map<Long, Integer> releasedToHotSkus = new HashMap<>();
+        Map<Long, Integer> taken = new HashMap<>();
+        quantities.forEach((id, quantity) -> {
+            if (hotSkuStockCounters.isHot(id)) {
+                releasedToHotSkus.put(id, quantity);
+            } else {
+                inventoryRepository.increment(id, quantity);
+                taken.put(id, -quantity);
+            }
+        });
+        hotSkuStockCounters.putBackAfterCommit(releasedToHotSkus);
+        inventorySnapshot.takeAfterCommit(taken);
+        catalogFacetIndex.takeAfterCommit(taken);
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, quantities.keySet());
+    }
+
+    /**
+     * Locks the database rows of the given inventory IDs in ascending order for the rest of
+     * the transaction. Callers that then take or give back stock for many orders at once, in
+     * whatever order, cannot deadlock with each other. Hot-SKU rows are not locked, since
+     * their stock is normally taken from memory.
+     *
+     * @param ids the inventory rows about to be changed
+     */
+    @Override
+    @Transactional
+    public void lockInventory(Collection<Long> ids) {
+        List<Long> rows = ids.stream()
+                .filter(Objects::nonNull)
+                .filter(id -> !hotSkuStockCounters.isHot(id))
+                .distinct()
+                .sorted()
+                .toList();
+        if (!rows.isEmpty()) {
+            inventoryRepository.lockAllByIdIn(rows);
+        }
     }
 
     /**
@@ -97,6 +234,10 @@ public class InventoryServiceImpl implements InventoryService {
 
         existingInventory.setIsActive(false);
         inventoryRepository.delete(existingInventory);
+        hotSkuStockCounters.dropSliceAfterCommit(id);
+        inventorySnapshot.removeAfterCommit(id);
+        catalogFacetIndex.removeAfterCommit(id);
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, id);
     }
 
     /**
@@ -108,13 +249,13 @@ public class InventoryServiceImpl implements InventoryService {
      */
     @Override
     public InventoryDTO getInventoryById(Long id) throws InventoryException {
-        return inventoryRepository.findById(id)
-                .map(inventoryMapper::toDTO)
+        return nearCaches.getInventory(id)
+                .map(this::withHotSkuQuantity)
                 .orElseThrow(() -> new InventoryException(INVENTORY_NOT_FOUND_MESSAGE + id));
     }
 
     /**
-     * Lists all inventory items with optional filtering by category, supplier ID, and price range.
+     * Lists all inventory items. Use {@link #searchInventory} to filter and page on the server.
      * @return a list of inventory items as DTOs
      */
     @Override
@@ -123,9 +264,105 @@ public class InventoryServiceImpl implements InventoryService {
 
         return inventories.stream()
                 .map(inventoryMapper::toDTO)
+                .map(this::withHotSkuQuantity)
                 .toList();
     }
 
+    /**
+     * Retrieves one page of the inventory rows matching every given filter, ordered by the
+     * requested key with the row ID breaking ties. Pages are keyset-paginated: the cursor holds
+     * the sort key and ID of the last row, so each page is one query that seeks into the
+     * matching index instead of skipping rows.
+     *
+     * @param filter the filters, sort key and direction; null fields do not filter
+     * @param cursor the {@code nextCursor} of the previous page, or null for the first page
+     * @param size   the number of rows per page, capped at {@value #MAX_PAGE_SIZE}
+     * @return the page of rows and the cursor of the next page, null on the last page
+     * @throws InventoryException if the cursor is malformed or was issued for another sort
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public InventoryPageDTO searchInventory(InventoryFilterDTO filter, String cursor, int size) throws InventoryException {
+        InventorySort sort = filter.getSort() != null ? filter.getSort() : InventorySort.ID;
+        Sort.Direction direction = filter.getDirection() != null ? filter.getDirection() : Sort.Direction.ASC;
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        ByteBuffer after = cursor == null ? null : decodeCursor(cursor, sort, direction);
+
+        Specification<Inventory> specification = Specification.where(withItem())
+                .and(hasCategory(StringUtils.hasText(filter.getCategory()) ? filter.getCategory() : null))
+                .and(priceBetween(filter.getMinPrice(), filter.getMaxPrice()))
+                .and(isActive(filter.getActive()))
+                .and(atLocation(StringUtils.hasText(filter.getLocation()) ? filter.getLocation() : null))
+                .and(quantityBetween(filter.getMinQuantity(), filter.getMaxQuantity()))
+                .and(keyset(sort, direction, after));
+        List<Inventory> rows = inventoryRepository.findBy(specification, query -> query.limit(limit).all());
+
+        String nextCursor = rows.size() < limit ? null : encodeCursor(sort, direction, rows.get(rows.size() - 1));
+        return InventoryPageDTO.builder()
+                .inventory(rows.stream()
+                        .map(inventoryMapper::toDTO)
+                        .map(this::withHotSkuQuantity)
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        return nearCaches.inventoryStats();
+    }
+
+    private static Specification<Inventory> keyset(InventorySort sort, Sort.Direction direction, ByteBuffer after) {
+        Long id = after == null ? null : after.getLong(2 + Long.BYTES);
+        return switch (sort) {
+            case ID -> keysetPage("id", direction, id, id);
+            case PRICE -> keysetPage("item.price", direction,
+                    after == null ? null : Double.longBitsToDouble(after.getLong(2)), id);
+            case QUANTITY -> keysetPage("quantity", direction,
+                    after == null ? null : (int) after.getLong(2), id);
+        };
+    }
+
+    /**
+     * Encodes the sort, the direction, the sort key of the row and its ID.
+     */
+    private static String encodeCursor(InventorySort sort, Sort.Direction direction, Inventory last) {
+        long sortKey = switch (sort) {
+            case ID -> last.getId();
+            case PRICE -> Double.doubleToLongBits(last.getItem().getPrice());
+            case QUANTITY -> last.getQuantity();
+        };
+        ByteBuffer cursor = ByteBuffer.allocate(CURSOR_BYTES)
+                .put((byte) sort.ordinal())
+                .put((byte) direction.ordinal())
+                .putLong(sortKey)
+                .putLong(last.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.array());
+    }
+
+    private static ByteBuffer decodeCursor(String cursor, InventorySort sort, Sort.Direction direction) throws InventoryException {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InventoryException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != CURSOR_BYTES || bytes[0] != sort.ordinal() || bytes[1] != direction.ordinal()) {
+            throw new InventoryException("Invalid cursor: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Adds this instance's in-memory slice to the stock of hot-SKU rows, whose database
+     * quantity only counts unclaimed units.
+     */
+    private InventoryDTO withHotSkuQuantity(InventoryDTO inventoryDTO) {
+        hotSkuStockCounters.available(inventoryDTO.getId())
+                .ifPresent(available -> inventoryDTO.setQuantity(inventoryDTO.getQuantity() + (int) available));
+        return inventoryDTO;
+    }
+
     /**
      * Validates essential fields of the inventory item data before performing any operations.
      *
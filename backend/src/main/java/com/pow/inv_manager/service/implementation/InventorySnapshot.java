@@ -0,0 +1,148 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.InventoryStockRow;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of which inventory rows exist, whether they are active and how much stock
+ * they hold, used to turn away orders that are bound to fail before they are queued. It is
+ * loaded on startup, updated after each committed inventory change and fully reloaded every
+ * {@code refresh-interval} ms to catch writes made elsewhere.
+ * <p>
+ * The copy may lag slightly behind the database, so it only backs a fast pre-check; the
+ * order listener still validates against the database.
+ */
+@Slf4j
+@Component
+public class InventorySnapshot {
+
+    @Value("${inventory.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final InventoryRepository inventoryRepository;
+    private final HotSkuStockCounters hotSkuStockCounters;
+
+    private volatile Map<Long, Stock> stock;
+
+    public InventorySnapshot(InventoryRepository inventoryRepository, HotSkuStockCounters hotSkuStockCounters) {
+        this.inventoryRepository = inventoryRepository;
+        this.hotSkuStockCounters = hotSkuStockCounters;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.snapshot.refresh-interval:60000}",
+            initialDelayString = "${inventory.snapshot.refresh-interval:60000}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Stock> loaded = new ConcurrentHashMap<>();
+        // Only the stock columns are read, so the eagerly fetched item is never loaded
+        for (InventoryStockRow row : inventoryRepository.findAllStockRows()) {
+            loaded.put(row.getId(), new Stock(Boolean.TRUE.equals(row.getIsActive()), row.getQuantity()));
+        }
+        stock = loaded;
+        log.debug("Inventory snapshot reloaded with {} rows", loaded.size());
+    }
+
+    /**
+     * Rejects an order that cannot succeed: no lines, a missing line, a quantity that is not positive, or an
+     * inventory row that is unknown, inactive or short of stock. Passes everything while the
+     * snapshot is not loaded.
+     *
+     * @throws OrderException describing the first problem found
+     */
+    public void checkOrder(CustomerOrderDTO order) throws OrderException {
+        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+            throw new OrderException("Order has no items");
+        }
+        Map<Long, Stock> current = stock;
+        if (current == null) {
+            return;
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItemDTO line : order.getOrderItems()) {
+            if (line == null) {
+                throw new OrderException("Order contains an empty line");
+            }
+            if (line.getInventoryId() == null || line.getQuantity() <= 0) {
+                throw new OrderException("Invalid order line for inventory with ID: " + line.getInventoryId());
+            }
+            quantities.merge(line.getInventoryId(), line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Stock row = current.get(line.getKey());
+            if (row == null) {
+                throw new OrderException("Inventory not found with ID: " + line.getKey());
+            }
+            if (!row.active()) {
+                throw new OrderException("Inventory with ID " + line.getKey() + " is inactive");
+            }
+            long available = row.quantity() + hotSkuStockCounters.available(line.getKey()).orElse(0);
+            if (available < line.getValue()) {
+                throw new OrderException("Not enough stock for inventory with ID: " + line.getKey());
+            }
+        }
+    }
+
+    /**
+     * Records the state of a row once the surrounding transaction commits.
+     */
+    public void putAfterCommit(Inventory inventory) {
+        Stock updated = Stock.of(inventory);
+        Long id = inventory.getId();
+        afterCommit(() -> stock.put(id, updated));
+    }
+
+    public void removeAfterCommit(Long inventoryId) {
+        afterCommit(() -> stock.remove(inventoryId));
+    }
+
+    /**
+     * Takes the given quantities off the snapshot once the surrounding transaction commits.
+     */
+    public void takeAfterCommit(Map<Long, Integer> quantities) {
+        afterCommit(() -> quantities.forEach((id, quantity) ->
+                stock.computeIfPresent(id, (key, row) -> new Stock(row.active(), row.quantity() - quantity))));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (stock == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private record Stock(boolean active, int quantity) {
+
+        static Stock of(Inventory inventory) {
+            return new Stock(Boolean.TRUE.equals(inventory.getIsActive()), inventory.getQuantity());
+        }
+    }
+}
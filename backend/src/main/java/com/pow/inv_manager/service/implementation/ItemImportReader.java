@@ -0,0 +1,250 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.exception.ItemException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads items one row at a time from a streamed CSV or NDJSON import body, so only the
+ * current row is ever held in memory. CSV needs a header row naming its columns; quoted
+ * fields may contain commas, doubled quotes and line breaks. Rows longer than
+ * {@link #MAX_ROW_LENGTH} characters are skipped and reported rather than buffered.
+ */
+final class ItemImportReader implements Closeable {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int MAX_ROW_LENGTH = 65_536;
+    private static final String TOO_LONG = "Row is longer than " + MAX_ROW_LENGTH + " characters.";
+    private static final List<String> COLUMNS = List.of("name", "description", "category", "price", "photo");
+
+    /**
+     * One parsed row. Exactly one of {@code item} and {@code error} is set.
+     */
+    record Row(long line, ItemDTO item, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final StringBuilder buffer = new StringBuilder();
+    private long line;
+    private String rowError;
+
+    private ItemImportReader(BufferedReader reader, boolean csv, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.csv = csv;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Opens a reader for the given body, picking the format from its content type, and
+     * reads the CSV header if there is one.
+     */
+    static ItemImportReader open(InputStream body, String contentType, ObjectMapper objectMapper)
+            throws ItemException, IOException {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            throw new ItemException("Unsupported import content type: " + contentType, e);
+        }
+        boolean csv = TEXT_CSV.includes(mediaType);
+        if (!csv && !APPLICATION_NDJSON.includes(mediaType)) {
+            throw new ItemException("Unsupported import content type: " + contentType);
+        }
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        ItemImportReader importReader = new ItemImportReader(
+                new BufferedReader(new InputStreamReader(body, charset)), csv, objectMapper);
+        if (csv) {
+            importReader.readHeader();
+        }
+        return importReader;
+    }
+
+    /**
+     * @return the next non-blank row, or null at the end of the body
+     */
+    Row next() throws IOException {
+        while (true) {
+            long startLine = line + 1;
+            List<String> fields = csv ? readRecord() : readLine();
+            if (fields == null) {
+                return null;
+            }
+            if (rowError != null) {
+                return new Row(startLine, null, rowError);
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            return csv ? csvRow(startLine, fields) : jsonRow(startLine, fields.get(0));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException, ItemException {
+        List<String> header = readRecord();
+        if (header == null || rowError != null) {
+            throw new ItemException("The CSV header row is missing.");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            if (COLUMNS.contains(column)) {
+                columns.putIfAbsent(column, i);
+            }
+        }
+        if (!columns.containsKey("name")) {
+            throw new ItemException("The CSV header must have a name column.");
+        }
+    }
+
+    private Row csvRow(long startLine, List<String> fields) {
+        ItemDTO item = ItemDTO.builder()
+                .name(field(fields, "name"))
+                .description(field(fields, "description"))
+                .category(field(fields, "category"))
+                .photo(field(fields, "photo"))
+                .build();
+        String price = field(fields, "price");
+        if (price != null) {
+            try {
+                item.setPrice(Double.parseDouble(price.trim()));
+            } catch (NumberFormatException e) {
+                return new Row(startLine, null, "Invalid price: " + price);
+            }
+            if (!Double.isFinite(item.getPrice())) {
+                return new Row(startLine, null, "Invalid price: " + price);
+            }
+        }
+        return new Row(startLine, item, null);
+    }
+
+    private Row jsonRow(long startLine, String json) {
+        try {
+            ItemDTO item = objectMapper.readValue(json, ItemDTO.class);
+            if (item == null) {
+                return new Row(startLine, null, "Expected a JSON object.");
+            }
+            item.setId(null);
+            return new Row(startLine, item, null);
+        } catch (JsonProcessingException e) {
+            return new Row(startLine, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private List<String> readLine() throws IOException {
+        buffer.setLength(0);
+        rowError = null;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            append(c);
+            c = reader.read();
+        }
+        line++;
+        if (!buffer.isEmpty() && buffer.charAt(buffer.length() - 1) == '\r') {
+            buffer.setLength(buffer.length() - 1);
+        }
+        return List.of(buffer.toString());
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        buffer.setLength(0);
+        rowError = null;
+        int length = 0;
+        boolean quoted = false;
+        boolean fieldStart = true;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1) {
+            if (++length > MAX_ROW_LENGTH) {
+                rowError = TOO_LONG;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        append(c);
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                if (rowError == null) {
+                    fields.add(buffer.toString());
+                }
+                buffer.setLength(0);
+                fieldStart = true;
+                c = reader.read();
+                continue;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                append(c);
+            }
+            fieldStart = false;
+            c = reader.read();
+        }
+        line++;
+        fields.add(buffer.toString());
+        if (quoted && rowError == null) {
+            rowError = "Unterminated quoted field.";
+        }
+        return fields;
+    }
+
+    private void append(int c) {
+        if (buffer.length() < MAX_ROW_LENGTH) {
+            buffer.append((char) c);
+        } else {
+            rowError = TOO_LONG;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.ItemImportErrorDTO;
+import com.pow.inv_manager.dto.ItemImportReportDTO;
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.exception.ItemException;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.ItemImportBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk-imports items from a streamed CSV or NDJSON body. Rows are read one at a time and
+ * written in chunks of {@code catalog.import.batch-size}, each chunk in its own transaction
+ * through {@link ItemImportBatchRepository}, so neither the body nor a persistence context
+ * grows with the file. A chunk the database rejects is retried row by row so only the bad
+ * rows are reported; a lost database connection or an unreadable body stops the import, and
+ * the report says why and how far it got.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+
+    private final ItemImportBatchRepository itemImportBatchRepository;
+    private final ItemMapper itemMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final InventorySnapshot inventorySnapshot;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ItemSearchIndex itemSearchIndex;
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+
+    public ItemImporter(ItemImportBatchRepository itemImportBatchRepository, ItemMapper itemMapper,
+                        TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                        InventorySnapshot inventorySnapshot, CatalogFacetIndex catalogFacetIndex,
+                        ItemSearchIndex itemSearchIndex) {
+        this.itemImportBatchRepository = itemImportBatchRepository;
+        this.itemMapper = itemMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.inventorySnapshot = inventorySnapshot;
+        this.catalogFacetIndex = catalogFacetIndex;
+        this.itemSearchIndex = itemSearchIndex;
+    }
+
+    /**
+     * Imports every valid row of the body. Rows committed before a failure stay imported.
+     *
+     * @param body        the request body, read once to the end
+     * @param contentType {@code text/csv} or {@code application/x-ndjson}
+     * @return the number of imported and rejected rows with the first errors by line, and the
+     * reason if the body or the database stopped being available mid-import
+     * @throws ItemException if the format is unsupported or the CSV header is unusable
+     */
+    public ItemImportReportDTO importItems(InputStream body, String contentType) throws ItemException {
+        ItemImportReportDTO report = ItemImportReportDTO.builder()
+                .errors(new ArrayList<>())
+                .build();
+        long started = System.nanoTime();
+        int chunkSize = Math.max(batchSize, 1);
+
+        try (ItemImportReader reader = ItemImportReader.open(body, contentType, objectMapper)) {
+            List<ItemImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            ItemImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                String error = row.error() != null ? row.error() : validate(row);
+                if (error != null) {
+                    reject(report, row.line(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    if (!importChunk(chunk, report)) {
+                        break;
+                    }
+                    chunk.clear();
+                }
+            }
+            if (report.getAborted() == null) {
+                importChunk(chunk, report);
+            }
+        } catch (IOException e) {
+            abort(report, "the request body could not be read.", e);
+        }
+
+        long elapsedMillis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        log.info("Imported {} items ({} rejected) in {} ms, {} rows/s", report.getImported(), report.getFailed(),
+                elapsedMillis, (report.getImported() + report.getFailed()) * 1000 / elapsedMillis);
+        return report;
+    }
+
+    /**
+     * @return false if the import has to stop, with the reason recorded in the report
+     */
+    private boolean importChunk(List<ItemImportReader.Row> chunk, ItemImportReportDTO report) {
+        if (chunk.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk));
+            report.setImported(report.getImported() + chunk.size());
+        } catch (DataAccessException | TransactionException e) {
+            if (DatabaseCircuitBreaker.isUnavailable(e)) {
+                abort(report, "the database is unavailable.", e);
+                return false;
+            }
+            if (chunk.size() == 1) {
+                reject(report, chunk.get(0).line(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                return true;
+            }
+            for (ItemImportReader.Row row : chunk) {
+                if (!importChunk(List.of(row), report)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void insert(List<ItemImportReader.Row> chunk) {
+        List<Item> items = new ArrayList<>(chunk.size());
+        for (ItemImportReader.Row row : chunk) {
+            items.add(itemMapper.toEntity(row.item()));
+        }
+        for (Inventory inventory : itemImportBatchRepository.insertAll(items)) {
+            inventorySnapshot.putAfterCommit(inventory);
+            catalogFacetIndex.putAfterCommit(inventory);
+            itemSearchIndex.putAfterCommit(itemMapper.toDTO(inventory.getItem()));
+        }
+    }
+
+    private String validate(ItemImportReader.Row row) {
+        if (row.item().getName() == null || row.item().getName().isEmpty()) {
+            return "Item name is required.";
+        }
+        return null;
+    }
+
+    private void abort(ItemImportReportDTO report, String reason, Exception cause) {
+        report.setAborted("Import stopped after " + report.getImported() + " rows: " + reason);
+        log.warn(report.getAborted(), cause);
+    }
+
+    private void reject(ItemImportReportDTO report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ItemImportErrorDTO(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+}
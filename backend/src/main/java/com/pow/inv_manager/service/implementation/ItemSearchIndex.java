@@ -0,0 +1,529 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.ItemSearchHitDTO;
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.rabbitmq.RemoteCacheInvalidation;
+import com.pow.inv_manager.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over item name, category and description, ranked with BM25 on
+ * field-weighted term frequencies (a name match counts {@value #NAME_WEIGHT}x, a category match
+ * {@value #CATEGORY_WEIGHT}x). Every query term must match. In prefix mode the last term also
+ * matches the indexed terms it starts, for typeahead: the term itself if indexed, plus the
+ * {@value #MAX_PREFIX_EXPANSIONS} expansions found in the most items.
+ * <p>
+ * Items get an ordinal when indexed and posting lists hold ordinals in increasing order, so the
+ * rarest term drives the search and the others are checked by seeking forward in theirs. Once
+ * the best hits are found, driving postings whose weight cannot beat the weakest of them are
+ * skipped, a block at a time where the block's highest weight is too low. A changed item is
+ * indexed under a new ordinal and its old one is skipped until the next compaction.
+ * <p>
+ * The index is built on startup and kept in sync by {@link ItemServiceImpl} after each commit.
+ * Items changed on other instances are marked stale when their item cache invalidation arrives
+ * and reread from the database together every {@code refresh-interval} ms.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ItemRepository itemRepository;
+    private final ItemMapper itemMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    /** Indexed items by ordinal, null once replaced or removed. */
+    private final List<Doc> docs = new ArrayList<>();
+    /** Item lengths by ordinal, -1 once replaced or removed, read while scoring. */
+    private int[] lengths = new int[1024];
+    private long totalLength;
+    /** Length of the shortest item indexed since the last compaction. */
+    private int minLength = Integer.MAX_VALUE;
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+
+    public ItemSearchIndex(ItemRepository itemRepository, ItemMapper itemMapper) {
+        this.itemRepository = itemRepository;
+        this.itemMapper = itemMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Item> items = itemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            items.forEach(item -> put(itemMapper.toDTO(item)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Item search index built with {} items", items.size());
+    }
+
+    /**
+     * @param query  the search text
+     * @param prefix whether the last term also matches terms it is a prefix of
+     * @param limit  the maximum number of hits
+     * @return the best matches, highest score first
+     */
+    public List<ItemSearchHitDTO> search(String query, boolean prefix, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = ordinals.size();
+            double averageLength = liveDocs == 0 ? 1 : (double) totalLength / liveDocs;
+
+            List<Clause> clauses = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                Clause clause = clause(terms.get(i), prefix && i == terms.size() - 1, liveDocs);
+                if (clause.postings().isEmpty()) {
+                    return List.of();
+                }
+                clauses.add(clause);
+            }
+            clauses.sort(Comparator.comparingInt(Clause::documentFrequency));
+
+            Clause driver = clauses.get(0);
+            List<Clause> others = clauses.subList(1, clauses.size());
+            // No item is shorter than the shortest ever indexed, so these scores bound every match
+            double minRelativeLength = minLength / averageLength;
+            double othersBound = others.stream()
+                    .mapToDouble(clause -> termScore(clause.idf(), clause.maxWeight(), minRelativeLength))
+                    .sum();
+            // Positions in the other clauses' postings, which only move forward while the driving
+            // postings are walked in ordinal order
+            int[][] cursors = new int[others.size()][];
+            float[] otherWeights = new float[others.size()];
+            for (int c = 0; c < cursors.length; c++) {
+                cursors[c] = new int[others.get(c).postings().size()];
+            }
+            TopHits best = new TopHits(limit, driver.postings().size() > 1);
+            // Walk the expansions with the highest weights first, so the cutoff rises early
+            List<Postings> driverPostingsByWeight = new ArrayList<>(driver.postings());
+            driverPostingsByWeight.sort(Comparator.comparingDouble((Postings postings) -> postings.maxWeight).reversed());
+            double cutoffThreshold = Double.NaN;
+            double cutoffWeight = 0;
+            // An item in several expansions of a prefix is offered once per expansion, and keeps
+            // its best score
+            for (Postings driverPostings : driverPostingsByWeight) {
+                for (int[] cursor : cursors) {
+                    Arrays.fill(cursor, 0);
+                }
+                for (int block = 0; block < driverPostings.blocks(); block++) {
+                    if (best.isFull() && driverPostings.blockMax[block] <= cutoffWeight) {
+                        continue;
+                    }
+                    int end = Math.min(driverPostings.size, (block + 1) << Postings.BLOCK_SHIFT);
+                    for (int i = block << Postings.BLOCK_SHIFT; i < end; i++) {
+                        float weight = driverPostings.weights[i];
+                        if (best.isFull()) {
+                            if (best.threshold() != cutoffThreshold) {
+                                cutoffThreshold = best.threshold();
+                                cutoffWeight = minimumWeight(driver.idf(), cutoffThreshold - othersBound, minRelativeLength);
+                            }
+                            if (weight <= cutoffWeight) {
+                                continue;
+                            }
+                        }
+                        collect(best, driverPostings.docs[i], driver.idf(), weight, others, cursors, otherWeights,
+                                averageLength);
+                    }
+                }
+            }
+
+            List<ItemSearchHitDTO> hits = new ArrayList<>(best.heap.size());
+            while (!best.heap.isEmpty()) {
+                Hit hit = best.heap.poll();
+                hits.add(ItemSearchHitDTO.builder().item(copy(docs.get(hit.ordinal()).item())).score(hit.score()).build());
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the item, or reindexes it, once the surrounding transaction commits.
+     */
+    public void putAfterCommit(ItemDTO item) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(item);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Marks items changed on another instance for the next {@link #refreshStale()}, without
+     * touching the database on the thread that received the invalidation.
+     */
+    @EventListener
+    public void onRemoteInvalidation(RemoteCacheInvalidation invalidation) {
+        if (NearCaches.ITEMS.equals(invalidation.cache())) {
+            stale.addAll(invalidation.ids());
+        }
+    }
+
+    /**
+     * Reindexes the items marked stale from the database with one query, and drops those
+     * that no longer exist.
+     */
+    @Scheduled(fixedDelayString = "${catalog.search.refresh-interval:1000}")
+    public void refreshStale() {
+        if (stale.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = new ArrayList<>(stale);
+        stale.removeAll(itemIds);
+        List<ItemDTO> items = itemRepository.findAllById(itemIds).stream().map(itemMapper::toDTO).toList();
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+            items.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Reindexed {} items changed on other instances", itemIds.size());
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private Clause clause(String term, boolean prefix, int liveDocs) {
+        List<Postings> matches = new ArrayList<>();
+        Postings exact = postings.get(term);
+        if (exact != null) {
+            matches.add(exact);
+        }
+        if (prefix) {
+            // Keep the expansions found in the most items, so a common word is never crowded
+            // out by rare ones that sort before it
+            PriorityQueue<Postings> widest = new PriorityQueue<>(Comparator.comparingInt(expansion -> expansion.size));
+            for (Postings expansion : postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                widest.add(expansion);
+                if (widest.size() > MAX_PREFIX_EXPANSIONS) {
+                    widest.poll();
+                }
+            }
+            matches.addAll(widest);
+        }
+        int documentFrequency = matches.stream().mapToInt(match -> match.size).sum();
+        double idf = Math.log(1 + (liveDocs - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        float maxWeight = (float) matches.stream().mapToDouble(match -> match.maxWeight).max().orElse(0);
+        return new Clause(matches, documentFrequency, Math.max(idf, 0.01), maxWeight);
+    }
+
+    /**
+     * Scores a document the driving clause matched with the given weight and offers it to the
+     * best hits.
+     */
+    private void collect(TopHits best, int ordinal, double driverIdf, float driverWeight, List<Clause> others,
+                         int[][] cursors, float[] otherWeights, double averageLength) {
+        if (!matchesAll(others, cursors, ordinal, otherWeights)) {
+            return;
+        }
+        int length = lengths[ordinal];
+        if (length < 0) {
+            return;
+        }
+        double relativeLength = length / averageLength;
+        double score = termScore(driverIdf, driverWeight, relativeLength);
+        for (int c = 0; c < others.size(); c++) {
+            score += termScore(others.get(c).idf(), otherWeights[c], relativeLength);
+        }
+        best.offer(ordinal, score);
+    }
+
+    /**
+     * Looks the document up in every clause, storing its weight in each.
+     *
+     * @return whether every clause matches it
+     */
+    private static boolean matchesAll(List<Clause> clauses, int[][] cursors, int ordinal, float[] weights) {
+        for (int c = 0; c < clauses.size(); c++) {
+            List<Postings> matches = clauses.get(c).postings();
+            float weight = 0;
+            for (int p = 0; p < matches.size(); p++) {
+                Postings match = matches.get(p);
+                int index = match.seek(ordinal, cursors[c][p]);
+                cursors[c][p] = index < 0 ? -index - 1 : index;
+                if (index >= 0) {
+                    weight = Math.max(weight, match.weights[index]);
+                }
+            }
+            if (weight == 0) {
+                return false;
+            }
+            weights[c] = weight;
+        }
+        return true;
+    }
+
+    private static double termScore(double idf, float weight, double relativeLength) {
+        return idf * weight * (K1 + 1) / (weight + K1 * (1 - B + B * relativeLength));
+    }
+
+    /**
+     * Inverts {@link #termScore}: the weight at or below which a term cannot score above
+     * {@code score}, infinite when no weight can.
+     */
+    private static double minimumWeight(double idf, double score, double relativeLength) {
+        if (score <= 0) {
+            return 0;
+        }
+        double ceiling = idf * (K1 + 1);
+        if (score >= ceiling) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return score * K1 * (1 - B + B * relativeLength) / (ceiling - score);
+    }
+
+    private void put(ItemDTO item) {
+        remove(item.getId());
+
+        Map<String, Integer> weights = new HashMap<>();
+        int length = addTerms(weights, item.getName(), NAME_WEIGHT)
+                + addTerms(weights, item.getCategory(), CATEGORY_WEIGHT)
+                + addTerms(weights, item.getDescription(), DESCRIPTION_WEIGHT);
+        int ordinal = docs.size();
+        docs.add(new Doc(copy(item), length));
+        if (ordinal == lengths.length) {
+            lengths = Arrays.copyOf(lengths, ordinal * 2);
+        }
+        lengths[ordinal] = length;
+        ordinals.put(item.getId(), ordinal);
+        totalLength += length;
+        if (length > 0) {
+            minLength = Math.min(minLength, length);
+        }
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new Postings()).add(ordinal, weight));
+    }
+
+    private void remove(Long itemId) {
+        Integer ordinal = ordinals.remove(itemId);
+        if (ordinal == null) {
+            return;
+        }
+        totalLength -= docs.get(ordinal).length();
+        docs.set(ordinal, null);
+        lengths[ordinal] = -1;
+        if (docs.size() > 2 * ordinals.size() + 1024) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuilds the posting lists without the ordinals of replaced and removed items.
+     */
+    private void compact() {
+        List<Doc> live = docs.stream().filter(Objects::nonNull).toList();
+        postings.clear();
+        ordinals.clear();
+        docs.clear();
+        totalLength = 0;
+        minLength = Integer.MAX_VALUE;
+        live.forEach(doc -> put(doc.item()));
+    }
+
+    private static int addTerms(Map<String, Integer> weights, String text, int weight) {
+        List<String> tokens = tokenize(text);
+        tokens.forEach(token -> weights.merge(token, weight, Integer::sum));
+        return tokens.size();
+    }
+
+    private static ItemDTO copy(ItemDTO item) {
+        return ItemDTO.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .category(item.getCategory())
+                .price(item.getPrice())
+                .photo(item.getPhoto())
+                .build();
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Ordinals in increasing order with their weighted term frequency, and the highest weight
+     * of each block of {@code 1 << BLOCK_SHIFT} postings so a search can skip blocks that
+     * cannot reach its best hits.
+     */
+    private static final class Postings {
+
+        static final int BLOCK_SHIFT = 7;
+
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private float[] blockMax = new float[1];
+        private int size;
+        private float maxWeight;
+
+        void add(int ordinal, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            int block = size >> BLOCK_SHIFT;
+            if (block == blockMax.length) {
+                blockMax = Arrays.copyOf(blockMax, block * 2);
+            }
+            blockMax[block] = Math.max(blockMax[block], weight);
+            docs[size] = ordinal;
+            weights[size++] = weight;
+            maxWeight = Math.max(maxWeight, weight);
+        }
+
+        int blocks() {
+            return (size + (1 << BLOCK_SHIFT) - 1) >> BLOCK_SHIFT;
+        }
+
+        /**
+         * Finds an ordinal at or after position {@code from}, galloping ahead before the binary
+         * search so that a walk in increasing ordinals costs about the log of each gap.
+         *
+         * @return its position, or {@code -(insertion point) - 1} as {@link Arrays#binarySearch}
+         */
+        int seek(int ordinal, int from) {
+            int low = from;
+            int step = 1;
+            while (low + step < size && docs[low + step] < ordinal) {
+                low += step;
+                step <<= 1;
+            }
+            return Arrays.binarySearch(docs, low, Math.min(low + step + 1, size), ordinal);
+        }
+    }
+
+    private record Doc(ItemDTO item, int length) {
+    }
+
+    private record Clause(List<Postings> postings, int documentFrequency, double idf, float maxWeight) {
+    }
+
+    private record Hit(int ordinal, double score) {
+    }
+
+    /**
+     * The best {@code limit} hits so far. When an item can be offered more than once, as with
+     * the expansions of a prefix, it is kept once with its best score.
+     */
+    private static final class TopHits {
+
+        private final int limit;
+        private final PriorityQueue<Hit> heap = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        /** The hits in the heap by ordinal, null when every item is offered once. */
+        private final Map<Integer, Hit> byOrdinal;
+
+        TopHits(int limit, boolean repeatedOffers) {
+            this.limit = limit;
+            this.byOrdinal = repeatedOffers ? new HashMap<>() : null;
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        double threshold() {
+            return heap.peek().score();
+        }
+
+        void offer(int ordinal, double score) {
+            if (isFull() && score <= threshold()) {
+                return;
+            }
+            Hit hit = new Hit(ordinal, score);
+            if (byOrdinal == null) {
+                heap.add(hit);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+                return;
+            }
+            Hit previous = byOrdinal.get(ordinal);
+            if (previous != null) {
+                if (previous.score() >= score) {
+                    return;
+                }
+                heap.remove(previous);
+            }
+            heap.add(hit);
+            byOrdinal.put(ordinal, hit);
+            if (heap.size() > limit) {
+                byOrdinal.remove(heap.poll().ordinal());
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.pow.inv_manager.service.implementation;
 
+import com.pow.inv_manager.dto.CacheStatsDTO;
+import com.pow.inv_manager.dto.FacetResultDTO;
 import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.ItemImportReportDTO;
+import com.pow.inv_manager.dto.ItemSearchHitDTO;
 import com.pow.inv_manager.dto.mapper.ItemMapper;
 import com.pow.inv_manager.exception.ItemException;
 import com.pow.inv_manager.model.Inventory;
@@ -13,24 +17,41 @@ import com.pow.inv_manager.service.ItemService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ItemServiceImpl implements ItemService {
 
     private static final String ITEM_NOT_FOUND_MESSAGE = "Item not found with ID: ";
+    private static final int MAX_SEARCH_HITS = 100;
+    private static final int MAX_FACET_IDS = 1000;
 
     private final ItemRepository itemRepository;
     private final ItemMapper itemMapper;
     private final InventoryRepository inventoryRepository;
     private final OrderItemRepository orderItemRepository;
-
-    public ItemServiceImpl(ItemRepository itemRepository, ItemMapper itemMapper, InventoryRepository inventoryRepository, OrderItemRepository orderItemRepository) {
+    private final InventorySnapshot inventorySnapshot;
+    private final NearCaches nearCaches;
+    private final ItemSearchIndex itemSearchIndex;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ItemImporter itemImporter;
+
+    public ItemServiceImpl(ItemRepository itemRepository, ItemMapper itemMapper, InventoryRepository inventoryRepository,
+                           OrderItemRepository orderItemRepository, InventorySnapshot inventorySnapshot,
+                           NearCaches nearCaches, ItemSearchIndex itemSearchIndex,
+                           CatalogFacetIndex catalogFacetIndex, ItemImporter itemImporter) {
         this.itemRepository = itemRepository;
         this.itemMapper = itemMapper;
         this.inventoryRepository = inventoryRepository;
         this.orderItemRepository = orderItemRepository;
+        this.inventorySnapshot = inventorySnapshot;
+        this.nearCaches = nearCaches;
+        this.itemSearchIndex = itemSearchIndex;
+        this.catalogFacetIndex = catalogFacetIndex;
+        this.itemImporter = itemImporter;
     }
 
     @Transactional
@@ -47,8 +68,12 @@ public class ItemServiceImpl implements ItemService {
                 .location("")
                 .isActive(false)
                 .build();
-        inventoryRepository.save(inventory);
-        return itemMapper.toDTO(savedItem);
+        Inventory savedInventory = inventoryRepository.save(inventory);
+        inventorySnapshot.putAfterCommit(savedInventory);
+        catalogFacetIndex.putAfterCommit(savedInventory);
+        ItemDTO savedItemDTO = itemMapper.toDTO(savedItem);
+        itemSearchIndex.putAfterCommit(savedItemDTO);
+        return savedItemDTO;
     }
 
     @Override
@@ -61,7 +86,11 @@ public class ItemServiceImpl implements ItemService {
 
         updateItemFields(existingItem, itemDTO);
         Item updatedItem = itemRepository.save(existingItem);
-        return itemMapper.toDTO(updatedItem);
+        nearCaches.invalidateAfterCommit(NearCaches.ITEMS, id);
+        catalogFacetIndex.updateItemAfterCommit(updatedItem);
+        ItemDTO updatedItemDTO = itemMapper.toDTO(updatedItem);
+        itemSearchIndex.putAfterCommit(updatedItemDTO);
+        return updatedItemDTO;
     }
 
     @Override
@@ -77,15 +106,21 @@ public class ItemServiceImpl implements ItemService {
             orderItemRepository.delete(orderItem);
         }
 
-        existingInventory.ifPresent(inventoryRepository::delete);
+        existingInventory.ifPresent(inventory -> {
+            inventoryRepository.delete(inventory);
+            inventorySnapshot.removeAfterCommit(inventory.getId());
+            catalogFacetIndex.removeAfterCommit(inventory.getId());
+            nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, inventory.getId());
+        });
 
         itemRepository.delete(existingItem);
+        nearCaches.invalidateAfterCommit(NearCaches.ITEMS, id);
+        itemSearchIndex.removeAfterCommit(id);
     }
 
     @Override
     public ItemDTO getItemById(Long id) throws ItemException {
-        return itemRepository.findById(id)
-                .map(itemMapper::toDTO)
+        return nearCaches.getItem(id)
                 .orElseThrow(() -> new ItemException(ITEM_NOT_FOUND_MESSAGE + id));
     }
 
@@ -97,6 +132,29 @@ public class ItemServiceImpl implements ItemService {
                 .toList();
     }
 
+    @Override
+    public List<ItemSearchHitDTO> searchItems(String query, boolean prefix, int limit) throws ItemException {
+        if (query == null || query.isBlank()) {
+            throw new ItemException("A search query is required.");
+        }
+        return itemSearchIndex.search(query, prefix, Math.min(Math.max(limit, 1), MAX_SEARCH_HITS));
+    }
+
+    @Override
+    public ItemImportReportDTO importItems(InputStream body, String contentType) throws ItemException {
+        return itemImporter.importItems(body, contentType);
+    }
+
+    @Override
+    public FacetResultDTO getFacets(Map<String, List<String>> selections, int limit) {
+        return catalogFacetIndex.query(selections, Math.min(Math.max(limit, 0), MAX_FACET_IDS));
+    }
+
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        return nearCaches.itemStats();
+    }
+
     private void validateItemData(ItemDTO itemDTO) throws ItemException {
         if (itemDTO.getName() == null || itemDTO.getName().isEmpty()) {
             throw new ItemException("Item name is required.");
@@ -0,0 +1,177 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.CacheStatsDTO;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache in front of a database lookup. Entries expire {@code ttlMs}
+ * after they were loaded; past {@code maxSize} the least recently used entry is evicted.
+ * <p>
+ * A TinyLFU admission filter keeps one-off reads from flushing popular entries: a 4-bit
+ * count-min sketch estimates how often each key was requested lately, and when the cache is
+ * full a newly loaded value is kept only if its key is requested more often than the entry it
+ * would evict. The sketch halves its counters every {@code 10 * maxSize} requests so old
+ * popularity fades.
+ * <p>
+ * An invalidation that happens while a value is being loaded wins: the load is returned to
+ * its caller but not cached, so a read racing a write cannot cache the old row.
+ */
+class NearCache<K, V> {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final byte[][] sketch;
+    private final int sketchMask;
+    private final int resetAfter;
+    private int sketchRequests;
+
+    /** Bumped on every invalidation; a load only caches its value if this did not move. */
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long loads;
+    private long loadNanos;
+    private long evictions;
+    private long expirations;
+    private long rejections;
+    private long invalidations;
+
+    NearCache(String name, int maxSize, long ttlMs) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        int width = Integer.highestOneBit(Math.max(16, this.maxSize * 2 - 1)) << 1;
+        this.sketch = new byte[SKETCH_DEPTH][width];
+        this.sketchMask = width - 1;
+        this.resetAfter = this.maxSize * 10;
+    }
+
+    /**
+     * Returns the cached value of the key, loading it on a miss.
+     *
+     * @param loader reads the value from the database; null means there is none, which is not cached
+     */
+    V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            recordRequest(key);
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                    hits++;
+                    return entry.value();
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        long loadedAt = System.nanoTime();
+
+        synchronized (this) {
+            loads++;
+            loadNanos += loadedAt - start;
+            if (value != null && generation == loadGeneration) {
+                admit(key, new Entry<>(value, loadedAt));
+            }
+        }
+        return value;
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    synchronized CacheStatsDTO stats() {
+        long requests = hits + misses;
+        return CacheStatsDTO.builder()
+                .name(name)
+                .size(entries.size())
+                .maxSize(maxSize)
+                .hits(hits)
+                .misses(misses)
+                .hitRatio(requests == 0 ? 0 : (double) hits / requests)
+                .evictions(evictions)
+                .expirations(expirations)
+                .admissionRejections(rejections)
+                .invalidations(invalidations)
+                .averageLoadMillis(loads == 0 ? 0 : loadNanos / 1_000_000.0 / loads)
+                .build();
+    }
+
+    private void admit(K key, Entry<V> entry) {
+        if (entries.containsKey(key) || entries.size() < maxSize) {
+            entries.put(key, entry);
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        Map.Entry<K, Entry<V>> victim = eldest.next();
+        if (frequency(key) <= frequency(victim.getKey())) {
+            rejections++;
+            return;
+        }
+        eldest.remove();
+        evictions++;
+        entries.put(key, entry);
+    }
+
+    private void recordRequest(K key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (sketch[row][index] < MAX_FREQUENCY) {
+                sketch[row][index]++;
+            }
+        }
+        if (++sketchRequests >= resetAfter) {
+            for (byte[] counters : sketch) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+            }
+            sketchRequests /= 2;
+        }
+    }
+
+    private int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            frequency = Math.min(frequency, sketch[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * (0x9E3779B9 + 2 * row + 1);
+        return (h ^ (h >>> 16)) & sketchMask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
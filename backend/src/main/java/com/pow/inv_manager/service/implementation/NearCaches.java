@@ -0,0 +1,172 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.CacheStatsDTO;
+import com.pow.inv_manager.dto.InventoryDTO;
+import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.rabbitmq.CacheInvalidationBroadcaster;
+import com.pow.inv_manager.repository.InventoryRepository;
+import com.pow.inv_manager.repository.ItemRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Read-through near caches of this instance: catalog items by ID, and inventory rows by ID
+ * without their item, which is read from the item cache so an item change never leaves a
+ * stale copy inside a cached inventory row. Every read returns fresh DTOs, so callers may
+ * modify what they get.
+ * <p>
+ * Writers invalidate after their transaction commits. The invalidation is applied here and
+ * broadcast to the other instances through {@link CacheInvalidationBroadcaster}, one message
+ * per cache and transaction however many rows it touched; an instance that misses a broadcast
+ * serves the old value for at most the cache TTL.
+ */
+@Component
+public class NearCaches {
+
+    public static final String ITEMS = "items";
+    public static final String INVENTORY = "inventory";
+
+    private final NearCache<Long, Item> items;
+    private final NearCache<Long, CachedInventory> inventory;
+    private final ItemRepository itemRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ItemMapper itemMapper;
+    private final ObjectProvider<CacheInvalidationBroadcaster> broadcaster;
+
+    public NearCaches(ItemRepository itemRepository, InventoryRepository inventoryRepository, ItemMapper itemMapper,
+                      @Value("${cache.items.max-size:10000}") int itemsMaxSize,
+                      @Value("${cache.items.ttl:300000}") long itemsTtlMs,
+                      @Value("${cache.inventory.max-size:10000}") int inventoryMaxSize,
+                      @Value("${cache.inventory.ttl:30000}") long inventoryTtlMs,
+                      ObjectProvider<CacheInvalidationBroadcaster> broadcaster) {
+        this.items = new NearCache<>(ITEMS, itemsMaxSize, itemsTtlMs);
+        this.inventory = new NearCache<>(INVENTORY, inventoryMaxSize, inventoryTtlMs);
+        this.itemRepository = itemRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.itemMapper = itemMapper;
+        this.broadcaster = broadcaster;
+    }
+
+    public Optional<ItemDTO> getItem(Long id) {
+        // Cache a detached copy, never an entity some persistence context may still change
+        return Optional.ofNullable(items.get(id, key -> itemRepository.findById(key)
+                        .map(item -> itemMapper.toEntity(itemMapper.toDTO(item)))
+                        .orElse(null)))
+                .map(itemMapper::toDTO);
+    }
+
+    /**
+     * @return the inventory row with its item, without the hot-SKU overlay
+     */
+    public Optional<InventoryDTO> getInventory(Long id) {
+        CachedInventory row = inventory.get(id, key -> inventoryRepository.findById(key).map(CachedInventory::of).orElse(null));
+        if (row == null) {
+            return Optional.empty();
+        }
+        Item item = row.itemId() == null ? null : getItem(row.itemId()).map(itemMapper::toEntity).orElse(null);
+        return Optional.of(InventoryDTO.builder()
+                .id(row.id())
+                .item(item)
+                .quantity(row.quantity())
+                .location(row.location())
+                .isActive(row.isActive())
+                .build());
+    }
+
+    /**
+     * Drops the entry here and on the other instances once the surrounding transaction commits.
+     */
+    public void invalidateAfterCommit(String cache, Long id) {
+        invalidateAfterCommit(cache, List.of(id));
+    }
+
+    /**
+     * Drops the entries here and on the other instances once the surrounding transaction
+     * commits. All invalidations of one transaction are collected and broadcast together.
+     */
+    public void invalidateAfterCommit(String cache, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateEverywhere(cache, ids);
+            return;
+        }
+        // Also drop them now, so this transaction's own later reads do not see the old rows
+        ids.forEach(id -> invalidateLocal(cache, id));
+        pendingInvalidations().computeIfAbsent(cache, key -> new TreeSet<>()).addAll(ids);
+    }
+
+    public void invalidateLocal(String cache, Long id) {
+        switch (cache) {
+            case ITEMS -> items.invalidate(id);
+            case INVENTORY -> inventory.invalidate(id);
+            default -> throw new IllegalArgumentException("Unknown cache: " + cache);
+        }
+    }
+
+    public CacheStatsDTO itemStats() {
+        return items.stats();
+    }
+
+    public CacheStatsDTO inventoryStats() {
+        return inventory.stats();
+    }
+
+    private void invalidateEverywhere(String cache, Collection<Long> ids) {
+        ids.forEach(id -> invalidateLocal(cache, id));
+        broadcaster.ifAvailable(publisher -> publisher.publish(cache, ids));
+    }
+
+    /**
+     * @return the IDs per cache to invalidate when the current transaction commits, bound to
+     * the transaction on first use
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Set<Long>> pendingInvalidations() {
+        Map<String, Set<Long>> pending = (Map<String, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<String, Set<Long>> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                created.forEach(NearCaches.this::invalidateEverywhere);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NearCaches.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * An inventory row as cached, referring to its item by ID.
+     */
+    private record CachedInventory(Long id, Long itemId, int quantity, String location, Boolean isActive) {
+
+        static CachedInventory of(Inventory inventory) {
+            Long itemId = inventory.getItem() == null ? null : inventory.getItem().getId();
+            return new CachedInventory(inventory.getId(), itemId, inventory.getQuantity(),
+                    inventory.getLocation(), inventory.getIsActive());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.OrderEventDTO;
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.OrderOutboxEvent;
+import com.pow.inv_manager.rabbitmq.OrderIntakeTransport;
+import com.pow.inv_manager.repository.OrderOutboxRepository;
+import com.pow.inv_manager.utils.OrderEventType;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Records order events in the outbox table. Every method joins the caller's transaction, so an
+ * event exists exactly when the order change it describes is committed; {@link OrderOutboxRelay}
+ * publishes it afterwards.
+ * <p>
+ * Under the {@value OrderIntakeTransport#IN_PROCESS_PROFILE} profile there is no broker and
+ * no relay, so nothing is recorded rather than letting the table grow without bound.
+ */
+@Component
+public class OrderEventOutbox {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public OrderEventOutbox(OrderOutboxRepository orderOutboxRepository, ObjectMapper objectMapper,
+                            Environment environment) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = !environment.acceptsProfiles(Profiles.of(OrderIntakeTransport.IN_PROCESS_PROFILE));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<CustomerOrder> orders) {
+        if (!enabled) {
+            return;
+        }
+        Date now = new Date();
+        orderOutboxRepository.insertAll(orders.stream()
+                .map(order -> toOutboxEvent(OrderEventDTO.builder()
+                        .type(OrderEventType.ORDER_CREATED.toString())
+                        .orderId(order.getId())
+                        .clientId(order.getClient().getId())
+                        .status(order.getStatus())
+                        .totalAmount(order.getTotalAmount())
+                        .occurredAt(now)
+                        .build()))
+                .toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanged(Collection<Long> orderIds, String status) {
+        record(orderIds, OrderEventType.ORDER_STATUS_CHANGED, status);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Collection<Long> orderIds) {
+        record(orderIds, OrderEventType.ORDER_DELETED, null);
+    }
+
+    private void record(Collection<Long> orderIds, OrderEventType type, String status) {
+        if (!enabled) {
+            return;
+        }
+        Date now = new Date();
+        List<OrderOutboxEvent> events = orderIds.stream()
+                .map(orderId -> toOutboxEvent(OrderEventDTO.builder()
+                        .type(type.toString())
+                        .orderId(orderId)
+                        .status(status)
+                        .occurredAt(now)
+                        .build()))
+                .toList();
+        orderOutboxRepository.insertAll(events);
+    }
+
+    private OrderOutboxEvent toOutboxEvent(OrderEventDTO event) {
+        try {
+            return OrderOutboxEvent.builder()
+                    .orderId(event.getOrderId())
+                    .eventType(event.getType())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(event.getOccurredAt())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order event for order " + event.getOrderId(), e);
+        }
+    }
+}
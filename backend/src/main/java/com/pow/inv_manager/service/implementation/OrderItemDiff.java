@@ -0,0 +1,98 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.OrderItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Difference between the stored lines of an order and the lines of an update request.
+ * Incoming lines are indexed by ID once, so the insert, update and delete sets are found in
+ * a single pass over the stored lines instead of a scan of the request for every line.
+ */
+class OrderItemDiff {
+
+    private final List<OrderItem> inserts = new ArrayList<>();
+    private final Map<OrderItem, OrderItem> updates = new HashMap<>();
+    private final Set<Long> deletes = new HashSet<>();
+    private final Map<Long, Integer> stockDeltas = new TreeMap<>();
+
+    private OrderItemDiff() {
+    }
+
+    /**
+     * @param existing the lines currently stored for the order
+     * @param incoming the lines of the update request; lines without an ID are new
+     * @return the changes that turn {@code existing} into {@code incoming}
+     * @throws OrderException if an incoming ID is repeated or does not belong to the order
+     */
+    static OrderItemDiff compute(List<OrderItem> existing, List<OrderItem> incoming) throws OrderException {
+        OrderItemDiff diff = new OrderItemDiff();
+        Map<Long, OrderItem> incomingById = new HashMap<>();
+        for (OrderItem item : incoming) {
+            if (item.getId() == null) {
+                diff.inserts.add(item);
+                diff.addStockDelta(item, item.getQuantity());
+            } else if (incomingById.put(item.getId(), item) != null) {
+                throw new OrderException("Order item appears more than once: " + item.getId());
+            }
+        }
+
+        for (OrderItem item : existing) {
+            OrderItem update = incomingById.remove(item.getId());
+            if (update == null) {
+                diff.deletes.add(item.getId());
+                diff.addStockDelta(item, -item.getQuantity());
+            } else if (update.getQuantity() != item.getQuantity() || update.getUnitPrice() != item.getUnitPrice()) {
+                diff.updates.put(item, update);
+                diff.addStockDelta(item, update.getQuantity() - item.getQuantity());
+            }
+        }
+
+        if (!incomingById.isEmpty()) {
+            throw new OrderException("Order items do not belong to this order: " + incomingById.keySet());
+        }
+        diff.stockDeltas.values().removeIf(delta -> delta == 0);
+        return diff;
+    }
+
+    private void addStockDelta(OrderItem item, int delta) {
+        if (item.getInventory() != null && item.getInventory().getId() != null) {
+            stockDeltas.merge(item.getInventory().getId(), delta, Integer::sum);
+        }
+    }
+
+    /**
+     * @return the change in ordered quantity per inventory row, positive where the update
+     *         needs more stock and negative where it gives stock back; unchanged rows are omitted
+     */
+    Map<Long, Integer> stockDeltas() {
+        return stockDeltas;
+    }
+
+    /**
+     * Applies the changes to a managed order. Hibernate flushes changed and removed lines as
+     * JDBC batches of {@code hibernate.jdbc.batch_size}; new lines are inserted one statement
+     * each, since their IDENTITY ids rule out insert batching.
+     */
+    void applyTo(CustomerOrder order) {
+        updates.forEach((item, update) -> {
+            item.setQuantity(update.getQuantity());
+            item.setUnitPrice(update.getUnitPrice());
+        });
+        if (!deletes.isEmpty()) {
+            order.getOrderItems().removeIf(item -> deletes.contains(item.getId()));
+        }
+        for (OrderItem item : inserts) {
+            item.setCustomerOrder(order);
+            order.getOrderItems().add(item);
+        }
+    }
+}
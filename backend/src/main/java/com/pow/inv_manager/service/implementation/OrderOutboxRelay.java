@@ -0,0 +1,173 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.model.OrderOutboxEvent;
+import com.pow.inv_manager.rabbitmq.OrderIntakeTransport;
+import com.pow.inv_manager.rabbitmq.RabbitMQConfig;
+import com.pow.inv_manager.repository.OrderOutboxRepository;
+import com.pow.inv_manager.utils.OrderEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox events to the order events exchange. Each run claims batches of the oldest
+ * events by leasing them for {@code orders.outbox.relay.lease} ms, publishes them in ID order
+ * and waits for the broker confirms, then deletes the confirmed rows. Claiming and deleting
+ * are single statements, so no transaction or connection is held while waiting for the
+ * broker. Unconfirmed events are released and published again on a later run, and events
+ * leased by an instance that died are picked up once the lease runs out, so delivery is at
+ * least once; consumers deduplicate on the message ID, which is the outbox row ID.
+ * <p>
+ * Every {@code orders.outbox.report-interval} ms the relay logs its throughput and the largest
+ * lag seen between an event being recorded and being published.
+ * <p>
+ * Not active under the {@value OrderIntakeTransport#IN_PROCESS_PROFILE} profile, which runs
+ * without a broker.
+ */
+@Slf4j
+@Component
+@Profile("!" + OrderIntakeTransport.IN_PROCESS_PROFILE)
+@ConditionalOnProperty(name = "orders.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxRelay {
+
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+
+    @Value("${orders.outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${orders.outbox.relay.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${orders.outbox.relay.lease:30000}")
+    private long leaseMs;
+
+    @Value("${orders.outbox.report-interval:60000}")
+    private long reportIntervalMs;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+
+    private long publishedSinceReport;
+    private long maxLagSinceReport;
+    private long lastReport = System.currentTimeMillis();
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository, ConnectionFactory connectionFactory) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        // Own template without mandatory: an event nobody subscribes to yet is not an error
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.outbox.relay.interval:200}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Order outbox relay run failed", e);
+        }
+        report();
+    }
+
+    /**
+     * @return the number of events claimed, so the caller knows whether more are waiting
+     */
+    private int relayBatch() {
+        List<OrderOutboxEvent> events = orderOutboxRepository.claimBatch(batchSize, leaseMs);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CorrelationData> correlations = new ArrayList<>(events.size());
+        try {
+            for (OrderOutboxEvent event : events) {
+                CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+                rabbitTemplate.send(RabbitMQConfig.EVENTS_EXCHANGE,
+                        OrderEventType.valueOf(event.getEventType()).routingKey(), toMessage(event), correlation);
+                correlations.add(correlation);
+            }
+        } catch (AmqpException e) {
+            // Events already sent may still be confirmed; publishing them again is harmless
+            orderOutboxRepository.releaseAll(events.stream().map(OrderOutboxEvent::getId).toList());
+            throw e;
+        }
+
+        List<Long> confirmed = new ArrayList<>(events.size());
+        List<Long> unconfirmed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONFIRM_TIMEOUT_MS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < events.size(); i++) {
+            if (awaitAck(correlations.get(i), deadline)) {
+                OrderOutboxEvent event = events.get(i);
+                confirmed.add(event.getId());
+                maxLagSinceReport = Math.max(maxLagSinceReport, now - event.getCreatedAt().getTime());
+            } else {
+                unconfirmed.add(events.get(i).getId());
+            }
+        }
+
+        orderOutboxRepository.deleteAll(confirmed);
+        orderOutboxRepository.releaseAll(unconfirmed);
+        publishedSinceReport += confirmed.size();
+        if (confirmed.size() < events.size()) {
+            log.warn("{} of {} order events were not confirmed and will be published again",
+                    events.size() - confirmed.size(), events.size());
+        }
+        return events.size();
+    }
+
+    private boolean awaitAck(CorrelationData correlation, long deadlineNanos) {
+        try {
+            long remaining = Math.max(deadlineNanos - System.nanoTime(), 0);
+            return correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for broker confirmation", e);
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private Message toMessage(OrderOutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setMessageId(String.valueOf(event.getId()));
+        properties.setType(event.getEventType());
+        properties.setTimestamp(event.getCreatedAt());
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private void report() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastReport;
+        if (elapsed < reportIntervalMs) {
+            return;
+        }
+        if (publishedSinceReport > 0) {
+            log.info("Order outbox relay published {} events ({} events/s), max lag {} ms",
+                    publishedSinceReport, publishedSinceReport * 1000 / elapsed, maxLagSinceReport);
+        }
+        publishedSinceReport = 0;
+        maxLagSinceReport = 0;
+        lastReport = now;
+    }
+}
@@ -0,0 +1,168 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.OrderRequestDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.OrderRequest;
+import com.pow.inv_manager.repository.OrderRequestRepository;
+import com.pow.inv_manager.service.OrderRequestService;
+import com.pow.inv_manager.utils.OrderRequestStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the lifecycle of queued order requests (QUEUED, then CREATED or FAILED, possibly
+ * UNCONFIRMED in between) keyed by their idempotency key, and wakes up long-polling
+ * callers in this instance when a request completes.
+ */
+@Service
+public class OrderRequestServiceImpl implements OrderRequestService {
+
+    private static final String REQUEST_NOT_FOUND_MESSAGE = "Order request not found with ID: ";
+
+    private final OrderRequestRepository orderRequestRepository;
+    private final Map<String, Set<CompletableFuture<OrderRequestDTO>>> waiters = new ConcurrentHashMap<>();
+
+    public OrderRequestServiceImpl(OrderRequestRepository orderRequestRepository) {
+        this.orderRequestRepository = orderRequestRepository;
+    }
+
+    /**
+     * Records a new request as QUEUED unless the key was seen before.
+     *
+     * @param requestId the idempotency key of the request
+     * @return true if the request is new and its order should be enqueued
+     */
+    @Override
+    @Transactional
+    public boolean registerRequest(String requestId) {
+        return orderRequestRepository.insertIfAbsent(requestId, OrderRequestStatus.QUEUED.toString()) == 1;
+    }
+
+    /**
+     * Forgets a request whose order could not be enqueued, so the caller can retry with the same key.
+     */
+    @Override
+    @Transactional
+    public void discardRequest(String requestId) {
+        orderRequestRepository.deleteByRequestId(requestId);
+    }
+
+    /**
+     * Marks a QUEUED request as UNCONFIRMED when the broker did not confirm its order in
+     * time. The order may still arrive, so the request is kept.
+     */
+    @Override
+    @Transactional
+    public void markUnconfirmed(String requestId) {
+        orderRequestRepository.updateStatus(requestId, OrderRequestStatus.QUEUED.toString(),
+                OrderRequestStatus.UNCONFIRMED.toString(), null);
+    }
+
+    /**
+     * Moves an UNCONFIRMED request back to QUEUED so a retry with the same key can publish
+     * its order again. The consumer's idempotent insert keeps a twice-delivered order single.
+     *
+     * @return true if the request was UNCONFIRMED and the caller should publish the order
+     */
+    @Override
+    @Transactional
+    public boolean reclaimUnconfirmed(String requestId) {
+        return orderRequestRepository.updateStatus(requestId, OrderRequestStatus.UNCONFIRMED.toString(),
+                OrderRequestStatus.QUEUED.toString(), null) == 1;
+    }
+
+    /**
+     * Marks a request as CREATED in the transaction that created its order.
+     */
+    @Override
+    @Transactional
+    public void markCreated(String requestId, Long orderId) {
+        orderRequestRepository.upsertWithOrder(requestId, OrderRequestStatus.CREATED.toString(), orderId);
+        notifyAfterCommit(new OrderRequestDTO(requestId, OrderRequestStatus.CREATED.toString(), orderId, null));
+    }
+
+    /**
+     * Marks a still QUEUED or UNCONFIRMED request as FAILED. A request already CREATED is
+     * left untouched.
+     */
+    @Override
+    @Transactional
+    public void markFailed(String requestId, String reason) {
+        int updated = orderRequestRepository.updateStatus(requestId, OrderRequestStatus.QUEUED.toString(),
+                OrderRequestStatus.FAILED.toString(), reason);
+        if (updated == 0) {
+            updated = orderRequestRepository.updateStatus(requestId, OrderRequestStatus.UNCONFIRMED.toString(),
+                    OrderRequestStatus.FAILED.toString(), reason);
+        }
+        if (updated == 1) {
+            notifyAfterCommit(new OrderRequestDTO(requestId, OrderRequestStatus.FAILED.toString(), null, reason));
+        }
+    }
+
+    @Override
+    public OrderRequestDTO getRequest(String requestId) throws OrderException {
+        return orderRequestRepository.findByRequestId(requestId)
+                .map(this::toDTO)
+                .orElseThrow(() -> new OrderException(REQUEST_NOT_FOUND_MESSAGE + requestId));
+    }
+
+    /**
+     * Returns a future completed when the request is created or fails in this instance. The store
+     * is checked again after registering, so a completion that raced the call is not missed.
+     * Cancel the future when no longer interested so it is unregistered.
+     */
+    @Override
+    public CompletableFuture<OrderRequestDTO> awaitCompletion(String requestId) {
+        CompletableFuture<OrderRequestDTO> completion = new CompletableFuture<>();
+        waiters.compute(requestId, (id, pending) -> {
+            Set<CompletableFuture<OrderRequestDTO>> registered = pending != null ? pending : ConcurrentHashMap.newKeySet();
+            registered.add(completion);
+            return registered;
+        });
+        completion.whenComplete((result, error) -> waiters.computeIfPresent(requestId, (id, pending) -> {
+            pending.remove(completion);
+            return pending.isEmpty() ? null : pending;
+        }));
+
+        orderRequestRepository.findByRequestId(requestId)
+                .filter(request -> !OrderRequestStatus.isPending(request.getStatus()))
+                .ifPresent(request -> completion.complete(toDTO(request)));
+        return completion;
+    }
+
+    private void notifyAfterCommit(OrderRequestDTO result) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(result);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                complete(result);
+            }
+        });
+    }
+
+    private void complete(OrderRequestDTO result) {
+        Set<CompletableFuture<OrderRequestDTO>> pending = waiters.remove(result.getRequestId());
+        if (pending != null) {
+            pending.forEach(completion -> completion.complete(result));
+        }
+    }
+
+    private OrderRequestDTO toDTO(OrderRequest request) {
+        return OrderRequestDTO.builder()
+                .requestId(request.getRequestId())
+                .status(request.getStatus())
+                .orderId(request.getOrderId())
+                .failureReason(request.getFailureReason())
+                .build();
+    }
+}
@@ -1,104 +1,214 @@
 package com.pow.inv_manager.service.implementation;
 
 import com.pow.inv_manager.dto.CustomerOrderDTO;
-import com.pow.inv_manager.dto.InventoryDTO;
-import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.dto.OrderPageDTO;
+import com.pow.inv_manager.dto.OrderStatusChangeResultDTO;
 import com.pow.inv_manager.dto.mapper.CustomerOrderMapper;
+import com.pow.inv_manager.dto.mapper.OrderEntityResolver;
 import com.pow.inv_manager.dto.mapper.OrderItemMapper;
+import com.pow.inv_manager.dto.mapper.OrderResolutionContext;
+import com.pow.inv_manager.exception.InventoryException;
+import com.pow.inv_manager.exception.OrderConflictException;
 import com.pow.inv_manager.exception.OrderException;
 import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.Inventory;
 import com.pow.inv_manager.model.OrderItem;
+import com.pow.inv_manager.repository.CustomerOrderBatchRepository;
 import com.pow.inv_manager.repository.CustomerOrderRepository;
 import com.pow.inv_manager.service.InventoryService;
-import com.pow.inv_manager.service.ItemService;
+import com.pow.inv_manager.service.OrderRequestService;
 import com.pow.inv_manager.service.OrderService;
 import com.pow.inv_manager.utils.OrderStatus;
+import com.pow.inv_manager.utils.StatusChangeOutcome;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int MAX_STATUS_CHANGE_IDS = 5000;
+
     private final CustomerOrderMapper customerOrderMapper;
     private final OrderItemMapper orderItemMapper;
+    private final OrderEntityResolver orderEntityResolver;
     private final CustomerOrderRepository customerOrderRepository;
+    private final CustomerOrderBatchRepository customerOrderBatchRepository;
     private final InventoryService inventoryService;
-    private final ItemService itemService;
+    private final OrderRequestService orderRequestService;
+    private final OrderEventOutbox orderEventOutbox;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.update.max-attempts:3}")
+    private int updateMaxAttempts;
 
+    /**
+     * Creates a new customer order. The client and all inventory rows referenced by the
+     * order lines are loaded with one query each before mapping, and stock for every line
+     * is taken atomically before the order is saved. An order carrying a request ID marks
+     * that request as created in the same transaction.
+     *
+     * @param customerOrderDTO The order to create.
+     * @return The created customer order DTO.
+     * @throws OrderException If the client or an inventory row does not exist, or stock is short.
+     */
     @Override
     @Transactional
-    public CustomerOrderDTO createOrder(CustomerOrderDTO customerOrderDTO) {
-        List<OrderItem> orderItems = customerOrderDTO.getOrderItems().stream()
-                .map(orderItemMapper::toEntity)
-                .toList();
+    public CustomerOrderDTO createOrder(CustomerOrderDTO customerOrderDTO) throws OrderException {
+        OrderResolutionContext context = orderEntityResolver.resolve(customerOrderDTO);
+        CustomerOrder customerOrder = customerOrderMapper.toEntity(customerOrderDTO, context);
+        reserveStock(customerOrder);
 
-        CustomerOrder customerOrder = customerOrderMapper.toEntity(customerOrderDTO);
-        customerOrder.setOrderItems(orderItems);
+        CustomerOrder savedOrder = customerOrderRepository.save(customerOrder);
+        markRequestCreated(savedOrder);
+        orderEventOutbox.recordCreated(List.of(savedOrder));
+        return customerOrderMapper.toDTO(savedOrder);
+    }
 
-        customerOrder.calculateTotalAmount();
+    /**
+     * Creates a batch of orders in a single transaction. Clients and inventory rows for the
+     * whole batch are loaded with one IN query each, and orders and lines are inserted with
+     * JDBC batches. Every inventory row the batch touches is locked first, in one ID order,
+     * so concurrent batches cannot deadlock. Orders that reference an unknown client or
+     * inventory, or whose stock cannot be taken, are skipped and logged so they do not fail
+     * the rest of the batch.
+     *
+     * @param customerOrderDTOs The orders to create.
+     * @return The created orders, in input order, without the rejected ones.
+     */
+    @Override
+    @Transactional
+    public List<CustomerOrderDTO> createOrders(List<CustomerOrderDTO> customerOrderDTOs) {
+        OrderResolutionContext context = orderEntityResolver.resolve(customerOrderDTOs);
+        inventoryService.lockInventory(customerOrderDTOs.stream()
+                .filter(dto -> dto.getOrderItems() != null)
+                .flatMap(dto -> dto.getOrderItems().stream())
+                .filter(Objects::nonNull)
+                .map(OrderItemDTO::getInventoryId)
+                .toList());
+
+        List<CustomerOrder> orders = new ArrayList<>(customerOrderDTOs.size());
+        for (CustomerOrderDTO dto : customerOrderDTOs) {
+            try {
+                CustomerOrder order = customerOrderMapper.toEntity(dto, context);
+                reserveStock(order);
+                orders.add(order);
+            } catch (OrderException e) {
+                log.error("Rejected order in batch: {}", e.getMessage());
+                if (dto.getRequestId() != null) {
+                    orderRequestService.markFailed(dto.getRequestId(), e.getMessage());
+                }
+            }
+        }
 
-        return customerOrderMapper.toDTO(customerOrderRepository.save(customerOrder));
+        customerOrderBatchRepository.insertAll(orders);
+        orders.forEach(this::markRequestCreated);
+        orderEventOutbox.recordCreated(orders);
+
+        return orders.stream()
+                .map(customerOrderMapper::toDTO)
+                .toList();
     }
 
     /**
-     * Updates an existing customer order with the provided details.
+     * Updates an existing customer order with the provided details. Lines are matched by ID
+     * in one pass and only the inserted, changed and removed lines are written. While the
+     * order still holds its stock, the change in quantity per inventory row is taken or
+     * given back in the same transaction.
+     * <p>
+     * If the request carries the {@code version} the caller read, a stale version is
+     * rejected. Without one, a concurrent update detected at commit is retried against
+     * the fresh order, up to {@code orders.update.max-attempts} times.
      *
      * @param orderId           The ID of the order to update.
      * @param customerOrderDTO  The updated customer order details.
      * @return The updated customer order DTO.
+     * @throws OrderConflictException If the order was changed concurrently.
      * @throws OrderException If there is an error during order update.
      */
     @Override
-    @Transactional
     public CustomerOrderDTO updateOrder(Long orderId, CustomerOrderDTO customerOrderDTO) throws OrderException {
-        CustomerOrder existingOrder = getOrderEntity(orderId);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        return applyOrderUpdate(orderId, customerOrderDTO);
+                    } catch (OrderException e) {
+                        throw new OrderUpdateFailure(e);
+                    }
+                });
+            } catch (OrderUpdateFailure e) {
+                throw e.getCause();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (customerOrderDTO.getVersion() != null || attempt >= updateMaxAttempts) {
+                    throw new OrderConflictException("Order was modified concurrently: " + orderId, e);
+                }
+                log.warn("Concurrent update of order {}, retrying (attempt {})", orderId, attempt);
+            }
+        }
+    }
+
+    private CustomerOrderDTO applyOrderUpdate(Long orderId, CustomerOrderDTO customerOrderDTO) throws OrderException {
+        CustomerOrder existingOrder = customerOrderRepository.findAllWithDetailsByIdIn(List.of(orderId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new OrderException("Order not found with id: " + orderId));
+
+        if (customerOrderDTO.getVersion() != null && customerOrderDTO.getVersion() != existingOrder.getVersion()) {
+            throw new OrderConflictException("Order " + orderId + " is at version " + existingOrder.getVersion()
+                    + ", not " + customerOrderDTO.getVersion());
+        }
 
         // Check if the client is the same
         if (!existingOrder.getClient().getId().equals(customerOrderDTO.getClientId())) {
             throw new OrderException("Cannot change the client of an existing order.");
         }
 
-        validateOrderItems(customerOrderDTO);
-        List<OrderItem> updatedItems = customerOrderDTO.getOrderItems().stream()
-                .map(orderItemMapper::toEntity)
-                .toList();
-
-        // Iterate through the existing items to check which need to be modified or deleted
-        for (OrderItem existingItem : existingOrder.getOrderItems()) {
-            Optional<OrderItem> updatedItem = updatedItems.stream()
-                    .filter(item -> item.getId().equals(existingItem.getId()))
-                    .findFirst();
-
-            if (updatedItem.isPresent()) {
-                OrderItem itemToUpdate = updatedItem.get();
-                existingItem.setQuantity(itemToUpdate.getQuantity());
-                existingItem.setUnitPrice(itemToUpdate.getUnitPrice());
-                existingItem.setSubtotal(itemToUpdate.getSubtotal());
-            } else {
-                existingOrder.getOrderItems().remove(existingItem);
-            }
-        }
+        OrderResolutionContext context = orderEntityResolver.resolve(customerOrderDTO);
+        List<OrderItem> updatedItems = orderItemMapper.toEntities(customerOrderDTO.getOrderItems(), context);
+        validateOrderItems(updatedItems);
 
-        for (OrderItem newItem : updatedItems) {
-            if (newItem.getId() == null) {
-                newItem.setCustomerOrder(existingOrder);
-                existingOrder.getOrderItems().add(newItem);
-            }
+        OrderItemDiff diff = OrderItemDiff.compute(existingOrder.getOrderItems(), updatedItems);
+        if (reservesStock(existingOrder.getStatus())) {
+            adjustStock(diff.stockDeltas());
         }
-
+        diff.applyTo(existingOrder);
         existingOrder.calculateTotalAmount();
 
-        return customerOrderMapper.toDTO(customerOrderRepository.save(existingOrder));
+        // Flush now so the version check runs and the returned DTO carries the new version
+        return customerOrderMapper.toDTO(customerOrderRepository.saveAndFlush(existingOrder));
     }
 
     /**
-     * Retrieves a customer order by its ID.
+     * Retrieves a customer order by its ID. The order, its client and its lines are read as
+     * flat rows in one query and grouped into the DTO, without loading managed entities.
      *
      * @param orderId The ID of the order to retrieve.
      * @return The corresponding customer order DTO.
@@ -106,54 +216,168 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public CustomerOrderDTO getOrder(Long orderId) throws OrderException {
-        CustomerOrder order = getOrderEntity(orderId);
-        return customerOrderMapper.toDTO(order);
+        return customerOrderMapper.toDTOs(customerOrderRepository.findReadRowsById(orderId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new OrderException("Order not found with id: " + orderId));
     }
 
     /**
-     * Retrieves all customer orders.
+     * Counts all customer orders.
      *
-     * @return A list of all customer order DTOs.
+     * @return The number of orders.
      */
     @Override
-    public List<CustomerOrderDTO> getAllOrders() {
-        List<CustomerOrder> orders = customerOrderRepository.findAllWithOrderItemsAndClient();
-        return orders.stream()
-                .map(customerOrderMapper::toDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public long countOrders() {
+        return customerOrderRepository.count();
     }
 
     /**
-     * Updates the status of an existing order.
+     * Retrieves one page of customer orders, newest first, using keyset pagination on the
+     * order ID. The page's IDs are read first and then loaded with their client and items in
+     * a single query, so each page costs two queries whatever the table size.
+     *
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param size   The number of orders per page, capped at {@value #MAX_PAGE_SIZE}.
+     * @return The page of orders and the cursor of the next page, null on the last page.
+     * @throws OrderException If the cursor is malformed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageDTO getOrdersPage(String cursor, int size) throws OrderException {
+        PageRequest limit = PageRequest.of(0, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        List<Long> ids = cursor == null
+                ? customerOrderRepository.findPageIds(limit)
+                : customerOrderRepository.findPageIdsBefore(decodeCursor(cursor), limit);
+
+        List<CustomerOrderDTO> orders = loadOrders(ids, Comparator.comparing(CustomerOrder::getId).reversed());
+        String nextCursor = ids.size() < limit.getPageSize() ? null : encodeCursor(ids.get(ids.size() - 1));
+
+        return OrderPageDTO.builder()
+                .orders(orders)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Streams every customer order, oldest first, to the given consumer. Order IDs are read
+     * through a server-side cursor and loaded in chunks of {@value #STREAM_CHUNK_SIZE} with one
+     * query per chunk; the persistence context is cleared after each chunk so memory stays
+     * flat however many orders there are.
+     *
+     * @param consumer Receives each order as it is loaded.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<CustomerOrderDTO> consumer) {
+        try (Stream<Long> ids = customerOrderRepository.streamAllIds()) {
+            Iterator<Long> iterator = ids.iterator();
+            List<Long> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    loadOrders(chunk, Comparator.comparing(CustomerOrder::getId)).forEach(consumer);
+                    entityManager.clear();
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the status of an existing order. The order must be in one of the allowed
+     * predecessors of {@code status}, as for {@link #updateOrderStatuses}. Cancelling an
+     * order gives its stock back.
      *
      * @param orderId The ID of the order to update.
      * @param status  The new status to set.
-     * @throws OrderException If the order is not found or there is an error during the update.
+     * @throws OrderException If the order is not found or cannot move to {@code status}.
      */
     @Override
     @Transactional
     public void updateOrderStatus(Long orderId, OrderStatus status) throws OrderException {
-        CustomerOrder order = getOrderEntity(orderId);
-        order.setStatus(status.toString());
-        customerOrderRepository.save(order);
+        Map<Long, String> current = customerOrderBatchRepository.lockStatuses(List.of(orderId));
+        if (!current.containsKey(orderId)) {
+            throw new OrderException("Order not found with id: " + orderId);
+        }
+        String previousStatus = current.get(orderId);
+        if (status.allowedPredecessors().stream().noneMatch(predecessor -> predecessor.toString().equals(previousStatus))) {
+            throw new OrderException("Cannot move order " + orderId + " from " + previousStatus + " to " + status);
+        }
+        customerOrderRepository.updateStatus(orderId, status.toString());
+
+        // Every predecessor of CANCELLED still holds its stock
+        if (status == OrderStatus.CANCELLED) {
+            releaseStock(List.of(orderId));
+        }
+        orderEventOutbox.recordStatusChanged(List.of(orderId), status.toString());
+    }
+
+    /**
+     * Moves many orders to a new status with one set-based UPDATE. Only orders whose current
+     * status is an allowed predecessor of {@code status} are changed; the transition check
+     * runs in the WHERE clause, so no order is loaded. Cancelled orders give their stock back.
+     *
+     * @param orderIds The IDs of the orders to move.
+     * @param status   The target status.
+     * @return One result per distinct requested ID, in request order.
+     * @throws OrderException If no IDs or too many IDs are given.
+     */
+    @Override
+    @Transactional
+    public List<OrderStatusChangeResultDTO> updateOrderStatuses(List<Long> orderIds, OrderStatus status) throws OrderException {
+        if (orderIds == null || orderIds.isEmpty() || status == null) {
+            throw new OrderException("Order IDs and a target status are required.");
+        }
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        if (ids.size() > MAX_STATUS_CHANGE_IDS) {
+            throw new OrderException("At most " + MAX_STATUS_CHANGE_IDS + " orders can be changed at once.");
+        }
+
+        List<String> fromStatuses = status.allowedPredecessors().stream()
+                .map(OrderStatus::toString)
+                .toList();
+        Set<Long> updated = fromStatuses.isEmpty()
+                ? Set.of()
+                : new HashSet<>(customerOrderBatchRepository.updateStatuses(ids, status.toString(), fromStatuses));
+        if (status == OrderStatus.CANCELLED) {
+            releaseStock(updated);
+        }
+        orderEventOutbox.recordStatusChanged(updated, status.toString());
+
+        Set<Long> notUpdated = new HashSet<>(ids);
+        notUpdated.removeAll(updated);
+        Map<Long, String> currentStatuses = notUpdated.isEmpty()
+                ? Map.of()
+                : customerOrderBatchRepository.findStatuses(notUpdated);
+
+        return ids.stream()
+                .map(id -> {
+                    if (updated.contains(id)) {
+                        return new OrderStatusChangeResultDTO(id, StatusChangeOutcome.UPDATED, status.toString());
+                    }
+                    String currentStatus = currentStatuses.get(id);
+                    StatusChangeOutcome outcome = currentStatuses.containsKey(id)
+                            ? StatusChangeOutcome.INVALID_TRANSITION
+                            : StatusChangeOutcome.NOT_FOUND;
+                    return new OrderStatusChangeResultDTO(id, outcome, currentStatus);
+                })
+                .toList();
     }
 
     /**
-     * Retrieves all orders for a specific user.
+     * Retrieves all orders for a specific user with a single projection query.
      *
      * @param userId The ID of the user whose orders are to be retrieved.
      * @return A list of customer order DTOs.
      */
     @Override
     public List<CustomerOrderDTO> getUserOrders(Long userId) {
-        List<CustomerOrder> orders = customerOrderRepository.findByClientId(userId);
-        return orders.stream()
-                .map(customerOrderMapper::toDTO)
-                .toList();
+        return customerOrderMapper.toDTOs(customerOrderRepository.findReadRowsByClientId(userId));
     }
 
     /**
-     * Deletes a customer order by its ID.
+     * Deletes a customer order by its ID, giving its stock back if it still holds it.
      *
      * @param orderId The ID of the order to delete.
      * @throws OrderException If the order is not found or there is an error during deletion.
@@ -161,14 +385,27 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void deleteOrder(Long orderId) throws OrderException {
+        Map<Long, String> current = customerOrderBatchRepository.lockStatuses(List.of(orderId));
         CustomerOrder order = getOrderEntity(orderId);
+        if (reservesStock(current.get(orderId))) {
+            releaseStock(List.of(orderId));
+        }
         customerOrderRepository.delete(order);
+        orderEventOutbox.recordDeleted(List.of(orderId));
     }
 
     @Override
     @Transactional
     public void deleteOrderByClientId(Long clientId) {
+        List<Long> orderIds = customerOrderRepository.findIdsByClientId(clientId);
+        if (!orderIds.isEmpty()) {
+            releaseStock(customerOrderBatchRepository.lockStatuses(orderIds).entrySet().stream()
+                    .filter(order -> reservesStock(order.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList());
+        }
         customerOrderRepository.deleteCustomerOrderByClient_Id(clientId);
+        orderEventOutbox.recordDeleted(orderIds);
     }
 
     /**
@@ -180,9 +417,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void confirmOrder(Long orderId) throws OrderException {
-        CustomerOrder order = getOrderEntity(orderId);
-        order.setStatus(OrderStatus.CONFIRMED.toString());
-        customerOrderRepository.save(order);
+        updateOrderStatus(orderId, OrderStatus.CONFIRMED);
     }
 
     /**
@@ -198,23 +433,158 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * Validates the order items, ensuring that the quantities are available in inventory.
+     * Loads the given orders with their client and items in one query and maps them.
      *
-     * @param customerOrderDTO The customer order DTO
+     * @param ids   The order IDs.
+     * @param order The order in which to return them.
+     * @return The mapped orders.
      */
-    @SneakyThrows
-    private void validateOrderItems(CustomerOrderDTO customerOrderDTO) {
-        for (OrderItem orderItem : customerOrderDTO.getOrderItems().stream()
-                .map(orderItemMapper::toEntity)
-                .toList()) {
-            ItemDTO item = itemService.getItemById(orderItem.getInventory().getItem().getId());
-            InventoryDTO inventory = inventoryService.getInventoryById(item.getId());
+    private List<CustomerOrderDTO> loadOrders(List<Long> ids, Comparator<CustomerOrder> order) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return customerOrderRepository.findAllWithDetailsByIdIn(ids).stream()
+                .sorted(order)
+                .map(customerOrderMapper::toDTO)
+                .toList();
+    }
 
-            if (inventory.getQuantity() < orderItem.getQuantity() && Boolean.TRUE.equals(!orderItem.getInventory().getIsActive())) {
-                throw new OrderException("Not enough stock for item: " + item.getName());
+    private String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    private Long decodeCursor(String cursor) throws OrderException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new OrderException("Invalid cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new OrderException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Takes the stock for all lines of an order, or none of it.
+     *
+     * @param customerOrder The order whose lines to reserve.
+     * @throws OrderException If any line cannot be served.
+     */
+    private void reserveStock(CustomerOrder customerOrder) throws OrderException {
+        List<InventoryReductionDTO> reductions = customerOrder.getOrderItems().stream()
+                .map(orderItem -> InventoryReductionDTO.builder()
+                        .inventoryId(orderItem.getInventory().getId())
+                        .quantity(orderItem.getQuantity())
+                        .build())
+                .toList();
+        try {
+            inventoryService.reduceInventory(reductions);
+        } catch (InventoryException e) {
+            throw new OrderException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes or gives back stock for the change in an order's lines. The rows are locked in ID
+     * order first, since releases and reductions each run in their own order.
+     *
+     * @param stockDeltas The change in ordered quantity per inventory row.
+     * @throws OrderException If an increase cannot be served.
+     */
+    private void adjustStock(Map<Long, Integer> stockDeltas) throws OrderException {
+        if (stockDeltas.isEmpty()) {
+            return;
+        }
+        inventoryService.lockInventory(stockDeltas.keySet());
+
+        List<InventoryReductionDTO> releases = new ArrayList<>();
+        List<InventoryReductionDTO> reductions = new ArrayList<>();
+        stockDeltas.forEach((inventoryId, delta) -> (delta < 0 ? releases : reductions).add(InventoryReductionDTO.builder()
+                .inventoryId(inventoryId)
+                .quantity(Math.abs(delta))
+                .build()));
+        inventoryService.releaseInventory(releases);
+        try {
+            inventoryService.reduceInventory(reductions);
+        } catch (InventoryException e) {
+            throw new OrderException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gives back the stock of every line of the given orders.
+     *
+     * @param orderIds The orders whose stock to release, already locked by the caller.
+     */
+    private void releaseStock(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        inventoryService.releaseInventory(toReductions(customerOrderBatchRepository.sumLineQuantities(orderIds)));
+    }
+
+    private List<InventoryReductionDTO> toReductions(Map<Long, Integer> quantities) {
+        return quantities.entrySet().stream()
+                .filter(line -> line.getValue() > 0)
+                .map(line -> InventoryReductionDTO.builder()
+                        .inventoryId(line.getKey())
+                        .quantity(line.getValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Orders created without a status are pending; unknown statuses hold no stock.
+     */
+    private static boolean reservesStock(String status) {
+        if (status == null) {
+            return true;
+        }
+        try {
+            return OrderStatus.valueOf(status).reservesStock();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validates the order items, ensuring that the quantities are available in inventory,
+     * and prices each line from its catalog item.
+     *
+     * @param orderItems The order items, already mapped against a resolution context
+     * @throws OrderException If an item does not have enough stock
+     */
+    private void validateOrderItems(List<OrderItem> orderItems) throws OrderException {
+        for (OrderItem orderItem : orderItems) {
+            Inventory inventory = orderItem.getInventory();
+
+            if (inventory.getQuantity() < orderItem.getQuantity() && Boolean.FALSE.equals(inventory.getIsActive())) {
+                throw new OrderException("Not enough stock for item: " + inventory.getItem().getName());
             }
 
             orderItem.setUnitPrice(inventory.getItem().getPrice());
         }
     }
+
+    private void markRequestCreated(CustomerOrder order) {
+        if (order.getRequestId() != null) {
+            orderRequestService.markCreated(order.getRequestId(), order.getId());
+        }
+    }
+
+    /**
+     * Carries a checked {@link OrderException} out of a transaction callback, rolling it back.
+     */
+    private static class OrderUpdateFailure extends RuntimeException {
+        OrderUpdateFailure(OrderException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized OrderException getCause() {
+            return (OrderException) super.getCause();
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.model.CompletedJob;
+import com.pow.inv_manager.repository.CompletedJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * One-time job that fills the stored {@code order_item.subtotal} and
+ * {@code customer_order.total_amount} columns for orders written before they were
+ * persisted. It walks the order ID range in chunks, each in its own transaction, so it
+ * never locks the whole table. Enable it with {@code orders.totals.backfill.enabled=true};
+ * a finished run is recorded as a {@link CompletedJob}, so later starts skip it even if the
+ * flag stays on. An interrupted run starts over on the next start.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "orders.totals.backfill.enabled", havingValue = "true")
+public class OrderTotalsBackfillJob implements ApplicationRunner {
+
+    private static final String JOB_NAME = "order-totals-backfill";
+
+    private static final String UPDATE_SUBTOTALS =
+            "UPDATE order_item SET subtotal = quantity * unit_price WHERE order_id BETWEEN ? AND ?";
+    private static final String UPDATE_TOTALS =
+            "UPDATE customer_order co SET total_amount = " +
+            "COALESCE((SELECT SUM(oi.subtotal) FROM order_item oi WHERE oi.order_id = co.id), 0) " +
+            "WHERE co.id BETWEEN ? AND ?";
+
+    @Value("${orders.totals.backfill.chunk-size:1000}")
+    private long chunkSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CompletedJobRepository completedJobRepository;
+
+    public OrderTotalsBackfillJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  CompletedJobRepository completedJobRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.completedJobRepository = completedJobRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (completedJobRepository.existsById(JOB_NAME)) {
+            log.info("Order totals backfill already ran, skipping; orders.totals.backfill.enabled can be turned off");
+            return;
+        }
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM customer_order");
+        if (range.get("min_id") == null) {
+            markCompleted();
+            return;
+        }
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+
+        log.info("Backfilling order totals for IDs {} to {} in chunks of {}", minId, maxId, chunkSize);
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            backfillChunk(from, Math.min(from + chunkSize - 1, maxId));
+        }
+        markCompleted();
+        log.info("Order totals backfill finished");
+    }
+
+    private void markCompleted() {
+        completedJobRepository.save(CompletedJob.builder()
+                .name(JOB_NAME)
+                .completedAt(new Date())
+                .build());
+    }
+
+    private void backfillChunk(long fromId, long toId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(UPDATE_SUBTOTALS, fromId, toId);
+            jdbcTemplate.update(UPDATE_TOTALS, fromId, toId);
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.pow.inv_manager.service.implementation;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock budget of a single inventory row split across cache-line padded stripes.
+ * A thread takes units from its home stripe with a CAS and only falls back to the
+ * other stripes, and finally to a locked sweep over all of them, when its own is short.
+ * Units are only ever moved between stripes, never created, so the budget cannot be
+ * oversold.
+ */
+class StripedStockCounter {
+
+    /** 16 longs = 128 bytes between stripes, enough to keep them on separate cache lines. */
+    private static final int PADDING = 16;
+
+    /** Picked once per thread, so a thread keeps hitting the same stripe. */
+    private static final ThreadLocal<Integer> PROBE = ThreadLocal.withInitial(() -> ThreadLocalRandom.current().nextInt());
+
+    private final int stripes;
+    private final AtomicLongArray available;
+
+    StripedStockCounter(int stripes, long quantity) {
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.available = new AtomicLongArray(this.stripes * PADDING);
+        distribute(quantity);
+    }
+
+    boolean tryTake(long quantity) {
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            if (tryTakeFrom((home + i) & (stripes - 1), quantity)) {
+                return true;
+            }
+        }
+        return tryTakeAcrossStripes(quantity);
+    }
+
+    void putBack(long quantity) {
+        available.addAndGet(index(homeStripe()), quantity);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += available.get(index(i));
+        }
+        return sum;
+    }
+
+    /**
+     * Empties the budget and returns what was left in it.
+     */
+    synchronized long drain() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += available.getAndSet(index(i), 0);
+        }
+        return sum;
+    }
+
+    private boolean tryTakeFrom(int stripe, long quantity) {
+        int idx = index(stripe);
+        long current;
+        do {
+            current = available.get(idx);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!available.compareAndSet(idx, current, current - quantity));
+        return true;
+    }
+
+    private synchronized boolean tryTakeAcrossStripes(long quantity) {
+        long gathered = 0;
+        for (int i = 0; i < stripes; i++) {
+            gathered += available.getAndSet(index(i), 0);
+        }
+        boolean taken = gathered >= quantity;
+        distribute(taken ? gathered - quantity : gathered);
+        return taken;
+    }
+
+    private void distribute(long quantity) {
+        long share = quantity / stripes;
+        for (int i = 0; i < stripes; i++) {
+            available.addAndGet(index(i), share);
+        }
+        available.addAndGet(index(0), quantity - share * stripes);
+    }
+
+    private int homeStripe() {
+        return PROBE.get() & (stripes - 1);
+    }
+
+    private static int index(int stripe) {
+        return stripe * PADDING;
+    }
+}
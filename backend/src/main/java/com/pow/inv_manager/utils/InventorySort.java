@@ -0,0 +1,7 @@
+package com.pow.inv_manager.utils;
+
+public enum InventorySort {
+    ID,
+    PRICE,
+    QUANTITY
+}
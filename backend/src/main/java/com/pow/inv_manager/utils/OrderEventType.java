@@ -0,0 +1,14 @@
+package com.pow.inv_manager.utils;
+
+public enum OrderEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED,
+    ORDER_DELETED;
+
+    /**
+     * Routing key of this event on the order events exchange, e.g. {@code order.status.changed}.
+     */
+    public String routingKey() {
+        return name().toLowerCase().replace('_', '.');
+    }
+}
@@ -0,0 +1,20 @@
+package com.pow.inv_manager.utils;
+
+public enum OrderRequestStatus {
+    QUEUED,
+    /**
+     * The broker did not confirm the order in time, so it may or may not be queued. The
+     * consumer settles it as CREATED or FAILED if it arrives; a retry with the same key
+     * publishes it again.
+     */
+    UNCONFIRMED,
+    CREATED,
+    FAILED;
+
+    /**
+     * @return true while a request with this status may still be created or fail
+     */
+    public static boolean isPending(String status) {
+        return QUEUED.toString().equals(status) || UNCONFIRMED.toString().equals(status);
+    }
+}
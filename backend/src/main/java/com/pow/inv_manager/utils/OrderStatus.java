@@ -1,9 +1,34 @@
 package com.pow.inv_manager.utils;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
     SHIPPED,
     COMPLETED,
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * Statuses an order must be in to be moved to this one. A new order always starts as
+     * {@link #PENDING}, and nothing leaves {@link #CANCELLED} or {@link #COMPLETED}.
+     */
+    public Set<OrderStatus> allowedPredecessors() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(OrderStatus.class);
+            case CONFIRMED -> EnumSet.of(PENDING);
+            case SHIPPED -> EnumSet.of(CONFIRMED);
+            case COMPLETED -> EnumSet.of(SHIPPED);
+            case CANCELLED -> EnumSet.of(PENDING, CONFIRMED);
+        };
+    }
+
+    /**
+     * Whether an order in this status holds stock that was taken from inventory but not yet
+     * shipped, and so must give it back when it is cancelled, deleted or shrunk.
+     */
+    public boolean reservesStock() {
+        return this == PENDING || this == CONFIRMED;
+    }
 }
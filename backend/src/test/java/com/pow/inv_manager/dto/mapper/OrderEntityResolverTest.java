@@ -0,0 +1,125 @@
+package com.pow.inv_manager.dto.mapper;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.Client;
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.ClientRepository;
+import com.pow.inv_manager.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderEntityResolverTest {
+
+    private ClientRepository clientRepository;
+    private InventoryRepository inventoryRepository;
+    private OrderEntityResolver resolver;
+    private CustomerOrderMapper customerOrderMapper;
+
+    @BeforeEach
+    void setUp() {
+        clientRepository = mock(ClientRepository.class);
+        inventoryRepository = mock(InventoryRepository.class);
+        resolver = new OrderEntityResolver(clientRepository, inventoryRepository);
+        customerOrderMapper = new CustomerOrderMapper(new OrderItemMapper());
+
+        when(clientRepository.findAllWithAddressByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> Client.builder().id(id).build()).toList();
+        });
+        when(inventoryRepository.findAllWithItemByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> Inventory.builder().id(id).item(Item.builder().id(id).name("item " + id).build()).build())
+                    .toList();
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50, 500})
+    void queryCountDoesNotGrowWithLines(int lines) throws OrderException {
+        CustomerOrderDTO order = order(1L, lines);
+
+        CustomerOrder entity = customerOrderMapper.toEntity(order, resolver.resolve(order));
+
+        assertThat(entity.getOrderItems()).hasSize(lines);
+        verify(clientRepository, times(1)).findAllWithAddressByIdIn(anyCollection());
+        verify(inventoryRepository, times(1)).findAllWithItemByIdIn(anyCollection());
+        verifyNoMoreInteractions(clientRepository, inventoryRepository);
+    }
+
+    @Test
+    void resolvesSeveralOrdersWithOneQueryPerRepository() throws OrderException {
+        List<CustomerOrderDTO> orders = List.of(order(1L, 20), order(2L, 30), order(1L, 5));
+
+        OrderResolutionContext context = resolver.resolve(orders);
+        for (CustomerOrderDTO order : orders) {
+            customerOrderMapper.toEntity(order, context);
+        }
+
+        verify(clientRepository, times(1)).findAllWithAddressByIdIn(anyCollection());
+        verify(inventoryRepository, times(1)).findAllWithItemByIdIn(anyCollection());
+        verifyNoMoreInteractions(clientRepository, inventoryRepository);
+    }
+
+    @Test
+    void pricesNewLinesFromTheCatalog() throws OrderException {
+        when(inventoryRepository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of(
+                Inventory.builder().id(1L).item(Item.builder().id(1L).name("item 1").price(10.0).build()).build()));
+        CustomerOrderDTO order = order(1L, 1);
+        order.getOrderItems().get(0).setQuantity(3);
+        order.getOrderItems().get(0).setUnitPrice(0.01);
+
+        CustomerOrder entity = customerOrderMapper.toEntity(order, resolver.resolve(order));
+
+        assertThat(entity.getOrderItems()).singleElement().satisfies(line -> {
+            assertThat(line.getUnitPrice()).isEqualTo(10.0);
+            assertThat(line.getSubtotal()).isEqualTo(30.0);
+        });
+        assertThat(entity.getTotalAmount()).isEqualTo(30.0);
+    }
+
+    @Test
+    void rejectsUnknownInventory() {
+        when(inventoryRepository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of());
+        CustomerOrderDTO order = order(1L, 1);
+
+        OrderResolutionContext context = resolver.resolve(order);
+
+        assertThatThrownBy(() -> customerOrderMapper.toEntity(order, context))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("Inventory not found");
+    }
+
+    private static CustomerOrderDTO order(Long clientId, int lines) {
+        List<OrderItemDTO> orderItems = new ArrayList<>(lines);
+        LongStream.rangeClosed(1, lines).forEach(inventoryId -> orderItems.add(OrderItemDTO.builder()
+                .inventoryId(inventoryId)
+                .quantity(1)
+                .unitPrice(2.5)
+                .build()));
+        return CustomerOrderDTO.builder()
+                .clientId(clientId)
+                .orderItems(orderItems)
+                .build();
+    }
+}
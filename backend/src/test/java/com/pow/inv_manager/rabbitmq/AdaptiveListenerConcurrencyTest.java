@@ -0,0 +1,119 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drains a backlog through a simulated listener and database with static consumer counts and
+ * with {@link AdaptiveListenerConcurrency} adjusting them. Time is simulated in one-second
+ * steps and the controller samples every {@value #INTERVAL_SECONDS} of them, as with the
+ * default {@code orders.listener.adaptive.interval}. The database has {@value #DB_CORES} cores
+ * and a pool of {@value #POOL_SIZE} connections: an order holds a connection for
+ * {@value #SERVICE_MILLIS} ms, stretched in proportion once more than {@value #DB_CORES}
+ * transactions run at once, and consumers beyond the pool size wait for a connection.
+ */
+class AdaptiveListenerConcurrencyTest {
+
+    private static final int BACKLOG = 100_000;
+    private static final int POOL_SIZE = 10;
+    private static final int DB_CORES = 4;
+    private static final double SERVICE_MILLIS = 10;
+    private static final int INTERVAL_SECONDS = 5;
+
+    @Test
+    void drainsLikeManyConsumersWithoutWaitingForThePool() {
+        Result single = drain(1, false);
+        Result many = drain(16, false);
+        Result adaptive = drain(1, true);
+
+        System.out.printf("Backlog of %d: static 1 consumer %d s, %.1f ms pool wait per order; "
+                        + "static 16 consumers %d s, %.1f ms; adaptive %d s, %.1f ms, ended at %d consumers%n",
+                BACKLOG, single.drainSeconds(), single.poolWaitMillisPerOrder(), many.drainSeconds(),
+                many.poolWaitMillisPerOrder(), adaptive.drainSeconds(), adaptive.poolWaitMillisPerOrder(),
+                adaptive.peakConsumers());
+        assertThat(adaptive.drainSeconds()).isLessThan(single.drainSeconds() / 2);
+        assertThat(adaptive.drainSeconds()).isLessThan((long) (many.drainSeconds() * 1.5));
+        assertThat(many.poolWaitMillisPerOrder()).isPositive();
+        assertThat(adaptive.poolWaitMillisPerOrder()).isZero();
+        assertThat(adaptive.peakConsumers()).isLessThanOrEqualTo(POOL_SIZE);
+    }
+
+    private Result drain(int initialConsumers, boolean adaptive) {
+        int[] consumers = {initialConsumers};
+        long[] backlog = {BACKLOG};
+        int[] active = {0};
+        int[] awaiting = {0};
+
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        ReflectionTestUtils.setField(container, "prefetchCount", 250);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getActiveConsumerCount()).thenAnswer(invocation -> consumers[0]);
+        doAnswer(invocation -> consumers[0] = invocation.getArgument(0)).when(container).setConcurrentConsumers(anyInt());
+        RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(RabbitMQConfig.ORDER_LISTENER_ID)).thenReturn(container);
+
+        AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+        when(amqpAdmin.getQueueInfo(RabbitMQConfig.QUEUE_ORDER))
+                .thenAnswer(invocation -> new QueueInformation(RabbitMQConfig.QUEUE_ORDER, (int) backlog[0], consumers[0]));
+
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(pool.getActiveConnections()).thenAnswer(invocation -> active[0]);
+        when(pool.getThreadsAwaitingConnection()).thenAnswer(invocation -> awaiting[0]);
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        when(hikari.getMaximumPoolSize()).thenReturn(POOL_SIZE);
+        DataSource dataSource = mock(DataSource.class);
+        try {
+            when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+            when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        AdaptiveListenerConcurrency controller = new AdaptiveListenerConcurrency(registry, amqpAdmin, dataSource);
+        ReflectionTestUtils.setField(controller, "minConsumers", 1);
+        ReflectionTestUtils.setField(controller, "maxConsumers", 8);
+        ReflectionTestUtils.setField(controller, "minPrefetch", 10);
+        ReflectionTestUtils.setField(controller, "maxPrefetch", 250);
+        ReflectionTestUtils.setField(controller, "scaleUpDepth", 500L);
+        ReflectionTestUtils.setField(controller, "requiredSamples", 3);
+        ReflectionTestUtils.setField(controller, "dbHighWater", 0.9);
+        ReflectionTestUtils.setField(controller, "dbLowWater", 0.6);
+
+        long seconds = 0;
+        double waitSeconds = 0;
+        int peakConsumers = consumers[0];
+        while (backlog[0] > 0) {
+            active[0] = Math.min(consumers[0], POOL_SIZE);
+            awaiting[0] = Math.max(consumers[0] - POOL_SIZE, 0);
+            double serviceSeconds = SERVICE_MILLIS / 1000 * Math.max(1.0, (double) active[0] / DB_CORES);
+            long processed = Math.min(backlog[0], (long) (active[0] / serviceSeconds));
+            backlog[0] -= processed;
+            waitSeconds += awaiting[0];
+            seconds++;
+
+            if (adaptive && seconds % INTERVAL_SECONDS == 0) {
+                controller.adjust();
+                peakConsumers = Math.max(peakConsumers, consumers[0]);
+            }
+        }
+        return new Result(seconds, waitSeconds * 1000 / BACKLOG, peakConsumers);
+    }
+
+    private record Result(long drainSeconds, double poolWaitMillisPerOrder, int peakConsumers) {
+    }
+}
@@ -0,0 +1,209 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderPublishException;
+import com.pow.inv_manager.exception.OrderUnconfirmedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class MessagePublisherServiceTest {
+
+    private static final int PRODUCERS = 32;
+    /** Orders per second offered by all producers together. */
+    private static final int OFFERED_RATE = 10_000;
+    private static final int ORDERS = 16_000;
+    /** Cost of writing and flushing one publish on the shared connection. */
+    private static final long FLUSH_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    /** Added cost of each further message written in the same flush. */
+    private static final long MESSAGE_NANOS = TimeUnit.MICROSECONDS.toNanos(2);
+    /** Time from a flush until the broker's confirm arrives. */
+    private static final long CONFIRM_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The connection socket: one writer at a time. */
+    private final Object socket = new Object();
+    private final ScheduledExecutorService broker = Executors.newSingleThreadScheduledExecutor();
+    private MessagePublisherService publisher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (publisher != null) {
+            publisher.stop();
+        }
+        broker.shutdownNow();
+    }
+
+    /**
+     * 32 producers offer {@value #OFFERED_RATE} orders/s between them with batching off and
+     * on. Without batching every order pays its own flush on the shared connection; with it
+     * one flush carries up to a batch of orders. Latency runs from when an order was due to
+     * be submitted until its confirm, so time spent waiting to submit is counted too.
+     */
+    @Test
+    void comparesLatencyAndThroughputWithBatchingOnAndOff() throws Exception {
+        run(publisher(false, true), 2_000);
+        Result off = run(publisher(false, true), ORDERS);
+        run(publisher(true, true), 2_000);
+        Result on = run(publisher(true, true), ORDERS);
+
+        System.out.printf("Publisher batching off: %.0f msgs/s, p50 %.1f ms, p99 %.1f ms%n",
+                off.messagesPerSecond(), off.p50Millis(), off.p99Millis());
+        System.out.printf("Publisher batching on: %.0f msgs/s, p50 %.1f ms, p99 %.1f ms%n",
+                on.messagesPerSecond(), on.p50Millis(), on.p99Millis());
+        // One flush per order cannot keep up with the offered rate; one flush per batch can
+        assertThat(off.messagesPerSecond()).isLessThan(OFFERED_RATE * 0.7);
+        assertThat(on.messagesPerSecond()).isGreaterThan(OFFERED_RATE * 0.9);
+        assertThat(on.p99Millis()).isLessThan(off.p99Millis());
+    }
+
+    @Test
+    void missingConfirmLeavesTheOutcomeOpen() throws Exception {
+        ReflectionTestUtils.setField(publisher(false, false), "confirmTimeoutMs", 50L);
+
+        CompletableFuture<Void> result = publisher.submit(order("unconfirmed"));
+
+        assertThatThrownBy(result::get)
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(OrderUnconfirmedException.class);
+    }
+
+    @Test
+    void rejectedOrderIsNotReportedAsUnconfirmed() throws Exception {
+        RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        publisher = publisher(rabbitTemplate, false);
+
+        CompletableFuture<Void> result = publisher.submit(order("rejected"));
+
+        assertThatThrownBy(result::get)
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(OrderPublishException.class)
+                .isNotInstanceOf(OrderUnconfirmedException.class)
+                .hasMessageContaining("queue full");
+    }
+
+    private Result run(MessagePublisherService publisher, int orders) throws Exception {
+        long[] latencies = new long[orders];
+        List<CompletableFuture<Void>> confirmed = new ArrayList<>(orders);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        long interval = TimeUnit.SECONDS.toNanos(1) / OFFERED_RATE;
+        long started = System.nanoTime();
+        try {
+            List<Callable<List<CompletableFuture<Void>>>> tasks = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                tasks.add(() -> {
+                    List<CompletableFuture<Void>> results = new ArrayList<>();
+                    for (int i = producer; i < orders; i += PRODUCERS) {
+                        int index = i;
+                        long due = started + i * interval;
+                        LockSupport.parkNanos(due - System.nanoTime());
+                        results.add(publisher.submit(order("order-" + i))
+                                .whenComplete((ignored, error) -> latencies[index] = System.nanoTime() - due));
+                    }
+                    return results;
+                });
+            }
+            for (var future : producers.invokeAll(tasks)) {
+                confirmed.addAll(future.get());
+            }
+            CompletableFuture.allOf(confirmed.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        } finally {
+            producers.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - started;
+        publisher.stop();
+
+        Arrays.sort(latencies);
+        return new Result(orders * 1e9 / elapsed, latencies[orders / 2] / 1e6, latencies[orders * 99 / 100] / 1e6);
+    }
+
+    private MessagePublisherService publisher(boolean batching, boolean confirm) {
+        // Stub-only: recording tens of thousands of sends would dominate the run
+        RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class, withSettings().stubOnly());
+        RabbitOperations channel = mock(RabbitOperations.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            synchronized (socket) {
+                LockSupport.parkNanos(FLUSH_NANOS);
+            }
+            if (confirm) {
+                confirmLater(invocation.getArgument(3));
+            }
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        // Within invoke() the messages go out on one channel and are flushed together
+        doAnswer(invocation -> {
+            long until = System.nanoTime() + MESSAGE_NANOS;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            confirmLater(invocation.getArgument(3));
+            return null;
+        }).when(channel).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            synchronized (socket) {
+                LockSupport.parkNanos(FLUSH_NANOS);
+                return invocation.<RabbitTemplate.OperationsCallback<?>>getArgument(0).doInRabbit(channel);
+            }
+        });
+        return publisher(rabbitTemplate, batching);
+    }
+
+    private MessagePublisherService publisher(RabbitTemplate rabbitTemplate, boolean batching) {
+        publisher = new MessagePublisherService(rabbitTemplate, new OrderMessageCodec(new ObjectMapper(), 512),
+                new OrderPartitioner(0), new OrderPriorityClassifier(""), 2_000);
+        ReflectionTestUtils.setField(publisher, "acquireTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(publisher, "batchingEnabled", batching);
+        ReflectionTestUtils.setField(publisher, "batchSize", 100);
+        ReflectionTestUtils.setField(publisher, "batchWindowMs", 5L);
+        publisher.start();
+        return publisher;
+    }
+
+    private void confirmLater(CorrelationData correlation) {
+        broker.schedule(() -> correlation.getFuture().complete(new CorrelationData.Confirm(true, null)),
+                CONFIRM_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    private static CustomerOrderDTO order(String requestId) {
+        return CustomerOrderDTO.builder()
+                .requestId(requestId)
+                .clientId(1L)
+                .orderItems(List.of(OrderItemDTO.builder().inventoryId(1L).quantity(1).unitPrice(1.0).build()))
+                .build();
+    }
+
+    private record Result(double messagesPerSecond, double p50Millis, double p99Millis) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBatchListenerTest {
+
+    private static final int ORDERS = 1000;
+    /** Cost of one transaction commit, paid once per createOrders call. */
+    private static final long COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /** Cost of inserting one order inside an open transaction. */
+    private static final long ROW_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final OrderMessageCodec codec = new OrderMessageCodec(new ObjectMapper(), 512);
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private OrderService orderService;
+    private OrderRetryService orderRetryService;
+    private OrderIntakeHandler orderIntakeHandler;
+    private OrderBatchListener listener;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        orderRetryService = mock(OrderRetryService.class);
+        orderIntakeHandler = mock(OrderIntakeHandler.class);
+        OrderOutageJournal orderOutageJournal = mock(OrderOutageJournal.class);
+
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            List<CustomerOrderDTO> orders = invocation.getArgument(0);
+            LockSupport.parkNanos(COMMIT_NANOS + orders.size() * ROW_NANOS);
+            transactions.incrementAndGet();
+            created.addAndGet(orders.size());
+            return orders;
+        });
+
+        listener = new OrderBatchListener(orderService, orderRetryService, new RecentRequestWindow(10 * ORDERS),
+                codec, orderIntakeHandler, orderOutageJournal);
+    }
+
+    /**
+     * Compares intake throughput at batch sizes 1, 50 and 500 against a database whose commit
+     * costs {@value #COMMIT_NANOS} ns and whose insert costs {@value #ROW_NANOS} ns per order.
+     * The listener's own work (decoding, duplicate checks) is measured for real.
+     */
+    @Test
+    void throughputGrowsWithBatchSize() throws OrderException {
+        List<Message> messages = messages("order", ORDERS);
+        deliver(messages("warmup", ORDERS), 50);
+
+        double single = ordersPerSecond(messages, 1, "single");
+        double fifty = ordersPerSecond(messages("order-50", ORDERS), 50, "fifty");
+        double fiveHundred = ordersPerSecond(messages("order-500", ORDERS), 500, "five hundred");
+
+        System.out.printf("Batch intake: size 1 %.0f orders/s, size 50 %.0f orders/s, size 500 %.0f orders/s%n",
+                single, fifty, fiveHundred);
+        // One commit per batch instead of one per order
+        assertThat(fifty).isGreaterThan(single * 10);
+        assertThat(fiveHundred).isGreaterThan(fifty);
+    }
+
+    @Test
+    void failuresStayWithTheirOwnMessage() throws OrderException {
+        Message undecodable = new Message(new byte[]{9, 0}, new MessageProperties());
+        Message good = message(order("good"));
+        Message duplicate = message(order("good"));
+        Message bad = message(order("bad"));
+        doThrow(new IllegalStateException("Batch rolled back")).when(orderService).createOrders(anyList());
+        doThrow(new IllegalStateException("Inventory missing"))
+                .when(orderIntakeHandler).process(argThat(order -> order.getRequestId().equals("bad")));
+
+        listener.handleOrderMessages(List.of(undecodable, good, duplicate, bad));
+
+        verify(orderRetryService).handleFailure(any(Message.class), isNull(), any(OrderException.class));
+        verify(orderIntakeHandler, times(2)).process(any(CustomerOrderDTO.class));
+        verify(orderRetryService).handleFailure(any(Message.class),
+                argThat(order -> order != null && order.getRequestId().equals("bad")), any(IllegalStateException.class));
+        verify(orderRetryService, times(2)).handleFailure(any(), any(), any());
+    }
+
+    private double ordersPerSecond(List<Message> messages, int batchSize, String label) {
+        transactions.set(0);
+        created.set(0);
+        long elapsed = deliver(messages, batchSize);
+
+        assertThat(created.get()).as(label).isEqualTo(messages.size());
+        assertThat(transactions.get()).as(label).isEqualTo((messages.size() + batchSize - 1) / batchSize);
+        return messages.size() * 1e9 / elapsed;
+    }
+
+    private long deliver(List<Message> messages, int batchSize) {
+        long started = System.nanoTime();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            listener.handleOrderMessages(messages.subList(from, Math.min(from + batchSize, messages.size())));
+        }
+        return System.nanoTime() - started;
+    }
+
+    private List<Message> messages(String prefix, int count) throws OrderException {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(message(order(prefix + "-" + i)));
+        }
+        return messages;
+    }
+
+    private Message message(CustomerOrderDTO order) throws OrderException {
+        return new Message(codec.encode(order), new MessageProperties());
+    }
+
+    private static CustomerOrderDTO order(String requestId) {
+        return CustomerOrderDTO.builder()
+                .requestId(requestId)
+                .clientId(1L)
+                .orderItems(List.of(OrderItemDTO.builder().inventoryId(1L).quantity(1).unitPrice(1.0).build()))
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures time-to-persist of priority orders that arrive behind a backlog of
+ * {@value #BACKLOG} ordinary orders, with the express lane off (all {@value #ORDINARY_CONSUMERS}
+ * + {@value #EXPRESS_CONSUMERS} consumers on the shared queue) and on (the same consumers split
+ * between the two queues). The broker is modelled by in-memory queues and persisting an order
+ * by a {@value #PERSIST_MILLIS} ms pause; decoding and the listeners themselves are real.
+ */
+class OrderExpressLaneTest {
+
+    private static final int BACKLOG = 3000;
+    private static final int PRIORITY_ORDERS = 200;
+    private static final long PRIORITY_INTERVAL_MILLIS = 10;
+    private static final int ORDINARY_CONSUMERS = 4;
+    private static final int EXPRESS_CONSUMERS = 2;
+    private static final long PERSIST_MILLIS = 2;
+    private static final long VIP_CLIENT = 7;
+
+    private final OrderMessageCodec codec = new OrderMessageCodec(new ObjectMapper(), 512);
+
+    @Test
+    void priorityOrdersSkipTheBacklogWithoutStarvingIt() throws Exception {
+        Run off = run(false);
+        Run on = run(true);
+
+        System.out.printf("Priority p99 time-to-persist behind %d orders: lane off %d ms, on %d ms; "
+                        + "backlog drained in %d ms off, %d ms on%n",
+                BACKLOG, off.priorityP99Millis(), on.priorityP99Millis(), off.backlogDrainMillis(), on.backlogDrainMillis());
+        assertThat(on.priorityP99Millis()).isLessThan(off.priorityP99Millis() / 5);
+        // The ordinary lane keeps its own consumers: it drains, only with fewer of them
+        assertThat(on.backlogDrainMillis()).isLessThan(off.backlogDrainMillis() * 3);
+    }
+
+    private Run run(boolean expressLane) throws Exception {
+        OrderPriorityClassifier classifier = new OrderPriorityClassifier(String.valueOf(VIP_CLIENT));
+        ReflectionTestUtils.setField(classifier, "enabled", expressLane);
+        Map<String, Long> published = new ConcurrentHashMap<>();
+        Map<String, Long> persisted = new ConcurrentHashMap<>();
+
+        OrderIntakeHandler orderIntakeHandler = mock(OrderIntakeHandler.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            CustomerOrderDTO order = invocation.getArgument(0);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(PERSIST_MILLIS));
+            persisted.put(order.getRequestId(), System.nanoTime());
+            return null;
+        }).when(orderIntakeHandler).process(any());
+        OrderRetryService orderRetryService = mock(OrderRetryService.class, withSettings().stubOnly());
+        OrderListener orderListener = new OrderListener(orderIntakeHandler, orderRetryService, codec);
+        OrderExpressListener orderExpressListener = new OrderExpressListener(orderIntakeHandler, orderRetryService, codec);
+
+        BlockingQueue<Message> shared = new LinkedBlockingQueue<>();
+        BlockingQueue<Message> express = new LinkedBlockingQueue<>();
+        List<Thread> consumers = new ArrayList<>();
+        if (expressLane) {
+            consumers.addAll(consume(shared, ORDINARY_CONSUMERS, orderListener::handleOrderMessage));
+            consumers.addAll(consume(express, EXPRESS_CONSUMERS, orderExpressListener::handleOrderMessage));
+        } else {
+            consumers.addAll(consume(shared, ORDINARY_CONSUMERS + EXPRESS_CONSUMERS, orderListener::handleOrderMessage));
+        }
+
+        for (int i = 0; i < BACKLOG; i++) {
+            publish(order("ordinary-" + i, 1L), classifier, shared, express, published);
+        }
+        long started = System.nanoTime();
+        consumers.forEach(Thread::start);
+        for (int i = 0; i < PRIORITY_ORDERS; i++) {
+            LockSupport.parkNanos(started + TimeUnit.MILLISECONDS.toNanos(i * PRIORITY_INTERVAL_MILLIS) - System.nanoTime());
+            publish(order("priority-" + i, VIP_CLIENT), classifier, shared, express, published);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (persisted.size() < BACKLOG + PRIORITY_ORDERS && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        consumers.forEach(Thread::interrupt);
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+        assertThat(persisted).hasSize(BACKLOG + PRIORITY_ORDERS);
+
+        long[] priorityMillis = published.keySet().stream()
+                .filter(requestId -> requestId.startsWith("priority-"))
+                .mapToLong(requestId -> TimeUnit.NANOSECONDS.toMillis(persisted.get(requestId) - published.get(requestId)))
+                .sorted()
+                .toArray();
+        long backlogDrained = persisted.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("ordinary-"))
+                .mapToLong(Map.Entry::getValue)
+                .max()
+                .orElseThrow();
+        return new Run(priorityMillis[(int) Math.ceil(priorityMillis.length * 0.99) - 1],
+                TimeUnit.NANOSECONDS.toMillis(backlogDrained - started));
+    }
+
+    private void publish(CustomerOrderDTO order, OrderPriorityClassifier classifier, BlockingQueue<Message> shared,
+                         BlockingQueue<Message> express, Map<String, Long> published) throws Exception {
+        Message message = new Message(codec.encode(order), new MessageProperties());
+        published.put(order.getRequestId(), System.nanoTime());
+        (classifier.isExpress(order) ? express : shared).add(message);
+    }
+
+    private static List<Thread> consume(BlockingQueue<Message> queue, int consumers, Consumer<Message> listener) {
+        List<Thread> threads = new ArrayList<>(consumers);
+        for (int i = 0; i < consumers; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        listener.accept(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        return threads;
+    }
+
+    private static CustomerOrderDTO order(String requestId, long clientId) {
+        return CustomerOrderDTO.builder()
+                .requestId(requestId)
+                .clientId(clientId)
+                .orderItems(List.of(OrderItemDTO.builder().inventoryId(1L).quantity(1).unitPrice(1.0).build()))
+                .build();
+    }
+
+    private record Run(long priorityP99Millis, long backlogDrainMillis) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.pow.inv_manager.rabbitmq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysEntriesNotMarkedDone() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            assertThat(journal.open()).isEmpty();
+            long first = journal.append(bytes("a"));
+            journal.append(bytes("b"));
+            long third = journal.append(bytes("c"));
+            journal.markDone(first);
+            journal.markDone(third);
+        }
+
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            Map<Long, byte[]> pending = journal.open();
+            assertThat(pending).containsOnlyKeys(2L);
+            assertThat(strings(pending)).containsExactly("b");
+            // Sequence numbers continue after the highest pending entry
+            assertThat(journal.append(bytes("d"))).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void compactsToPendingEntriesOnOpen() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            journal.open();
+            for (int i = 0; i < 100; i++) {
+                journal.markDone(journal.append(bytes("done-" + i)));
+            }
+            journal.append(bytes("pending"));
+        }
+        long before = Files.size(path);
+
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            assertThat(strings(journal.open())).containsExactly("pending");
+        }
+        assertThat(Files.size(path)).isLessThan(before);
+        assertThat(Files.exists(path.resolveSibling("orders.journal.compact"))).isFalse();
+    }
+
+    @Test
+    void ignoresTornTail() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            journal.open();
+            journal.append(bytes("a"));
+            journal.append(bytes("b"));
+        }
+        // An ENQUEUED record claiming 50 payload bytes, cut off after 2 of them
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(15).put((byte) 1).putLong(3).putInt(50).put(new byte[2]).flip());
+        }
+
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            assertThat(strings(journal.open())).containsExactly("a", "b");
+            journal.append(bytes("c"));
+        }
+        try (OrderJournal journal = new OrderJournal(path, false)) {
+            assertThat(strings(journal.open())).containsExactly("a", "b", "c");
+        }
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(Map<Long, byte[]> entries) {
+        return entries.values().stream().map(payload -> new String(payload, StandardCharsets.UTF_8)).toList();
+    }
+}
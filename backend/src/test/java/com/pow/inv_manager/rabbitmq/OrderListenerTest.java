@@ -0,0 +1,134 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.service.OrderRequestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OrderListenerTest {
+
+    private static final int MESSAGES = 1000;
+    private static final long WORK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OrderMessageCodec codec = new OrderMessageCodec(new ObjectMapper(), 512);
+    private final AtomicInteger created = new AtomicInteger();
+    private RabbitTemplate rabbitTemplate;
+    private OrderListener listener;
+
+    @BeforeEach
+    void setUp() throws OrderException {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        // The broker confirms every republished message at once
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        OrderRetryService orderRetryService = new OrderRetryService(rabbitTemplate, mock(OrderRequestService.class));
+        ReflectionTestUtils.setField(orderRetryService, "retryDelays", new long[]{1000, 5000, 30000});
+        ReflectionTestUtils.setField(orderRetryService, "maxAttempts", 4);
+
+        // Every order costs the same database work; poison orders then fail with a transient error
+        OrderIntakeHandler orderIntakeHandler = mock(OrderIntakeHandler.class);
+        doAnswer(invocation -> {
+            CustomerOrderDTO order = invocation.getArgument(0);
+            LockSupport.parkNanos(WORK_NANOS);
+            if (order.getRequestId().startsWith("poison")) {
+                throw new TransientDataAccessResourceException("Deadlock detected");
+            }
+            created.incrementAndGet();
+            return null;
+        }).when(orderIntakeHandler).process(any(CustomerOrderDTO.class));
+
+        listener = new OrderListener(orderIntakeHandler, orderRetryService, codec);
+    }
+
+    @Test
+    void poisonMessagesDoNotSlowDownHealthyOnes() throws OrderException {
+        List<Message> healthy = messages(0);
+        List<Message> poisoned = messages(10);
+
+        deliver(healthy);
+        long baselineNanos = deliver(healthy);
+        created.set(0);
+        long poisonedNanos = deliver(poisoned);
+
+        assertThat(created.get()).isEqualTo(MESSAGES * 9 / 10);
+        // Each poison message is handed to the retry tier once instead of being redelivered in place
+        verify(rabbitTemplate, times(MESSAGES / 10)).send(eq(RabbitMQConfig.RETRY_EXCHANGE),
+                eq(RabbitMQConfig.retryRoutingKey(1000)), any(Message.class), any(CorrelationData.class));
+        // A poison message costs one attempt like any other, so the mixed run keeps the healthy pace
+        assertThat(poisonedNanos).isLessThan(baselineNanos * 5 / 4);
+    }
+
+    @Test
+    void parksMessagesAfterTheLastAttempt() throws OrderException {
+        Message message = message(order("poison-1"));
+        message.getMessageProperties().setHeader(RabbitMQConfig.ATTEMPTS_HEADER, 3);
+
+        listener.handleOrderMessage(message);
+
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE), eq(RabbitMQConfig.PARKING_ROUTING_KEY),
+                any(Message.class), any(CorrelationData.class));
+        verify(rabbitTemplate, never()).send(eq(RabbitMQConfig.RETRY_EXCHANGE), eq(RabbitMQConfig.retryRoutingKey(1000)),
+                any(Message.class), any(CorrelationData.class));
+    }
+
+    private long deliver(List<Message> messages) {
+        long started = System.nanoTime();
+        for (Message message : messages) {
+            listener.handleOrderMessage(message);
+        }
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * @param poisonPercent share of messages whose order always fails
+     */
+    private List<Message> messages(int poisonPercent) throws OrderException {
+        List<Message> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            boolean poison = i % 100 < poisonPercent;
+            messages.add(message(order((poison ? "poison-" : "order-") + i)));
+        }
+        return messages;
+    }
+
+    private Message message(CustomerOrderDTO order) throws OrderException {
+        return new Message(codec.encode(order), new MessageProperties());
+    }
+
+    private static CustomerOrderDTO order(String requestId) {
+        return CustomerOrderDTO.builder()
+                .requestId(requestId)
+                .clientId(1L)
+                .orderItems(List.of(OrderItemDTO.builder().inventoryId(1L).quantity(1).unitPrice(1.0).build()))
+                .build();
+    }
+}
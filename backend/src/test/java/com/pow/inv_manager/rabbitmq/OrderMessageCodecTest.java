@@ -0,0 +1,182 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.exception.OrderException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderMessageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OrderMessageCodec codec = new OrderMessageCodec(objectMapper, 512);
+
+    @Test
+    void roundTripsOrder() throws OrderException {
+        CustomerOrderDTO order = order(3);
+        order.setOrderDate(new Date(1_700_000_000_000L));
+        order.setStatus("PENDING");
+
+        byte[] message = codec.encode(order);
+        CustomerOrderDTO decoded = codec.decode(message);
+
+        assertThat(message[0]).isEqualTo(OrderMessageCodec.VERSION_1);
+        assertThat(message[1]).isZero();
+        assertThat(decoded.getRequestId()).isEqualTo(order.getRequestId());
+        assertThat(decoded.getClientId()).isEqualTo(order.getClientId());
+        assertThat(decoded.getOrderDate()).isEqualTo(order.getOrderDate());
+        assertThat(decoded.getStatus()).isEqualTo("PENDING");
+        assertThat(decoded.getOrderItems()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(order.getOrderItems());
+    }
+
+    @Test
+    void keepsNullsAndNegativeQuantities() throws OrderException {
+        CustomerOrderDTO order = CustomerOrderDTO.builder()
+                .orderItems(List.of(OrderItemDTO.builder().quantity(-2).unitPrice(-0.5).build()))
+                .build();
+
+        CustomerOrderDTO decoded = codec.decode(codec.encode(order));
+
+        assertThat(decoded.getRequestId()).isNull();
+        assertThat(decoded.getClientId()).isNull();
+        assertThat(decoded.getOrderDate()).isNull();
+        assertThat(decoded.getOrderItems()).singleElement().satisfies(item -> {
+            assertThat(item.getInventoryId()).isNull();
+            assertThat(item.getQuantity()).isEqualTo(-2);
+            assertThat(item.getUnitPrice()).isEqualTo(-0.5);
+        });
+    }
+
+    @Test
+    void deflatesLargeBodies() throws OrderException {
+        CustomerOrderDTO order = order(500);
+
+        byte[] message = codec.encode(order);
+
+        assertThat(message[1] & OrderMessageCodec.FLAG_DEFLATED).isNotZero();
+        assertThat(codec.decode(message).getOrderItems()).hasSize(500);
+    }
+
+    @Test
+    void decodesLegacyJson() throws Exception {
+        CustomerOrderDTO order = order(2);
+        String json = objectMapper.writeValueAsString(order);
+
+        CustomerOrderDTO plain = codec.decode(json.getBytes(StandardCharsets.UTF_8));
+        CustomerOrderDTO wrapped = codec.decode(objectMapper.writeValueAsBytes(json));
+
+        assertThat(plain.getRequestId()).isEqualTo(order.getRequestId());
+        assertThat(wrapped.getOrderItems()).hasSize(2);
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownMessages() throws OrderException {
+        byte[] message = codec.encode(order(3));
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(message, message.length - 3)))
+                .isInstanceOf(OrderException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[0])).isInstanceOf(OrderException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[]{9, 0})).isInstanceOf(OrderException.class);
+    }
+
+    @Test
+    void rejectsNegativeLengths() {
+        byte[] minusOne = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+        ByteArrayOutputStream negativeLineCount = new ByteArrayOutputStream();
+        negativeLineCount.writeBytes(new byte[]{OrderMessageCodec.VERSION_1, 0, 0, 0, 0, 0});
+        negativeLineCount.writeBytes(minusOne);
+        ByteArrayOutputStream negativeStringLength = new ByteArrayOutputStream();
+        negativeStringLength.writeBytes(new byte[]{OrderMessageCodec.VERSION_1, 0});
+        negativeStringLength.writeBytes(minusOne);
+
+        assertThatThrownBy(() -> codec.decode(negativeLineCount.toByteArray()))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("Too many lines");
+        assertThatThrownBy(() -> codec.decode(negativeStringLength.toByteArray()))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("Malformed string");
+    }
+
+    /**
+     * Prints bytes per message and encode/decode time of the binary format against the JSON
+     * it replaced, for orders of 1, 10 and 100 lines.
+     */
+    @Test
+    void isSmallerThanJson() throws Exception {
+        for (int lines : new int[]{1, 10, 100}) {
+            CustomerOrderDTO order = order(lines);
+            order.setRequestId("5f0c2d7e-8b1a-4c3e-9d2f-6a7b8c9d0e1f");
+            order.setOrderDate(new Date(1_700_000_000_000L));
+            order.setStatus("PENDING");
+
+            byte[] binary = codec.encode(order);
+            byte[] json = objectMapper.writeValueAsBytes(order);
+            long binaryEncode = nanosPerCall(() -> codec.encode(order));
+            long binaryDecode = nanosPerCall(() -> codec.decode(binary));
+            long jsonEncode = nanosPerCall(() -> objectMapper.writeValueAsBytes(order));
+            long jsonDecode = nanosPerCall(() -> objectMapper.readValue(json, CustomerOrderDTO.class));
+
+            System.out.printf("%d lines: binary %d bytes, encode %d ns, decode %d ns; JSON %d bytes, encode %d ns, decode %d ns%n",
+                    lines, binary.length, binaryEncode, binaryDecode, json.length, jsonEncode, jsonDecode);
+            assertThat(binary.length).isLessThan(json.length / 2);
+        }
+    }
+
+    @Test
+    void refusesToEncodeWhatCannotBeDecoded() {
+        CustomerOrderDTO longRequestId = order(1);
+        longRequestId.setRequestId("é".repeat(513));
+        CustomerOrderDTO tooManyLines = order(10_001);
+        CustomerOrderDTO nullLine = order(1);
+        nullLine.getOrderItems().add(null);
+
+        assertThatThrownBy(() -> codec.encode(longRequestId)).isInstanceOf(OrderException.class);
+        assertThatThrownBy(() -> codec.encode(tooManyLines)).isInstanceOf(OrderException.class);
+        assertThatThrownBy(() -> codec.encode(nullLine)).isInstanceOf(OrderException.class);
+    }
+
+    @Test
+    void acceptsStringAtTheLimit() throws OrderException {
+        CustomerOrderDTO order = order(1);
+        order.setRequestId("é".repeat(512));
+
+        assertThat(codec.decode(codec.encode(order)).getRequestId()).isEqualTo(order.getRequestId());
+    }
+
+    private static long nanosPerCall(Callable<?> call) throws Exception {
+        int iterations = 20_000;
+        for (int i = 0; i < iterations; i++) {
+            call.call();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.call();
+        }
+        return (System.nanoTime() - started) / iterations;
+    }
+
+    private static CustomerOrderDTO order(int lines) {
+        List<OrderItemDTO> items = new ArrayList<>(lines);
+        for (int i = 1; i <= lines; i++) {
+            items.add(OrderItemDTO.builder().inventoryId((long) i).quantity(i).unitPrice(i * 1.25).build());
+        }
+        return CustomerOrderDTO.builder()
+                .requestId("request-" + lines)
+                .clientId(42L)
+                .orderItems(items)
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes orders whose inventory IDs follow a Zipfian distribution (exponent 1 over
+ * {@value #INVENTORY_ROWS} rows), the usual shape of a catalogue with a few best sellers.
+ */
+class OrderPartitionerTest {
+
+    private static final int INVENTORY_ROWS = 10_000;
+    private static final int PARTITIONS = 8;
+    private static final int ORDERS = 200_000;
+
+    private final OrderPartitioner partitioner = new OrderPartitioner(PARTITIONS);
+
+    @Test
+    void spreadsZipfianOrdersOverAllPartitions() {
+        long[] inventoryIds = zipfianInventoryIds(ORDERS);
+        int[] load = new int[PARTITIONS];
+        for (long inventoryId : inventoryIds) {
+            load[partitionOf(partitioner.routingKey(order(inventoryId)))]++;
+        }
+
+        double[] share = Arrays.stream(load).mapToDouble(count -> (double) count / ORDERS).toArray();
+        System.out.printf("Zipfian load per partition: %s%n", Arrays.toString(share));
+        // The hottest row alone carries about a tenth of the orders, so its partition is busier
+        assertThat(Arrays.stream(share).max().orElseThrow()).isLessThan(0.3);
+        assertThat(Arrays.stream(share).min().orElseThrow()).isGreaterThan(0.05);
+    }
+
+    @Test
+    void keepsEveryInventoryRowOnOnePartition() {
+        Map<Long, Set<String>> partitionsByRow = new HashMap<>();
+        for (long inventoryId : zipfianInventoryIds(ORDERS)) {
+            partitionsByRow.computeIfAbsent(inventoryId, row -> new HashSet<>())
+                    .add(partitioner.routingKey(order(inventoryId)));
+        }
+
+        assertThat(partitionsByRow.values()).allSatisfy(partitions -> assertThat(partitions).hasSize(1));
+    }
+
+    @Test
+    void movesAboutOneKeyInNineWhenAPartitionIsAdded() {
+        int moved = 0;
+        for (long key = 1; key <= INVENTORY_ROWS; key++) {
+            int before = OrderPartitioner.partition(key, PARTITIONS);
+            int after = OrderPartitioner.partition(key, PARTITIONS + 1);
+            if (before != after) {
+                assertThat(after).isEqualTo(PARTITIONS);
+                moved++;
+            }
+        }
+
+        assertThat((double) moved / INVENTORY_ROWS).isBetween(0.09, 0.14);
+    }
+
+    /**
+     * Counts row lock waits when {@value #PARTITIONS} consumers each hold one order in flight.
+     * On the shared queue the consumers take the next {@value #PARTITIONS} orders, and two of them
+     * on the same row wait for each other's lock. On the partitioned queues each consumer takes
+     * the head of its own partition, and a row never appears in two partitions.
+     */
+    @Test
+    void removesRowLockWaitsBetweenConsumers() {
+        long[] inventoryIds = zipfianInventoryIds(ORDERS);
+
+        int sharedWaits = 0;
+        for (int from = 0; from < inventoryIds.length; from += PARTITIONS) {
+            sharedWaits += lockWaits(Arrays.copyOfRange(inventoryIds, from, Math.min(from + PARTITIONS, inventoryIds.length)));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Long>[] queues = new List[PARTITIONS];
+        Arrays.setAll(queues, i -> new ArrayList<>());
+        for (long inventoryId : inventoryIds) {
+            queues[partitionOf(partitioner.routingKey(order(inventoryId)))].add(inventoryId);
+        }
+        int partitionedWaits = 0;
+        int longest = Arrays.stream(queues).mapToInt(List::size).max().orElseThrow();
+        for (int position = 0; position < longest; position++) {
+            int index = position;
+            partitionedWaits += lockWaits(Arrays.stream(queues)
+                    .filter(queue -> index < queue.size())
+                    .mapToLong(queue -> queue.get(index))
+                    .toArray());
+        }
+
+        System.out.printf("Row lock waits for %d Zipfian orders on %d consumers: shared queue %d, partitioned %d%n",
+                ORDERS, PARTITIONS, sharedWaits, partitionedWaits);
+        assertThat(sharedWaits).isGreaterThan(ORDERS / 40);
+        assertThat(partitionedWaits).isZero();
+    }
+
+    private static int lockWaits(long[] inFlight) {
+        return inFlight.length - (int) Arrays.stream(inFlight).distinct().count();
+    }
+
+    private static int partitionOf(String routingKey) {
+        for (int i = 0; i < PARTITIONS; i++) {
+            if (routingKey.equals(RabbitMQConfig.partitionRoutingKey(i))) {
+                return i;
+            }
+        }
+        throw new AssertionError("Not a partition routing key: " + routingKey);
+    }
+
+    private static long[] zipfianInventoryIds(int count) {
+        double[] cumulative = new double[INVENTORY_ROWS];
+        double sum = 0;
+        for (int rank = 1; rank <= INVENTORY_ROWS; rank++) {
+            sum += 1.0 / rank;
+            cumulative[rank - 1] = sum;
+        }
+        Random random = new Random(42);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            ids[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return ids;
+    }
+
+    private static CustomerOrderDTO order(long inventoryId) {
+        return CustomerOrderDTO.builder()
+                .clientId(1L)
+                .orderItems(List.of(OrderItemDTO.builder().inventoryId(inventoryId).quantity(1).build()))
+                .build();
+    }
+}
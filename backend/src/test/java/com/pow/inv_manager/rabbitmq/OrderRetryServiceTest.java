@@ -0,0 +1,92 @@
+package com.pow.inv_manager.rabbitmq;
+
+import com.pow.inv_manager.service.OrderRequestService;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderRetryServiceTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private Channel channel;
+    private OrderRetryService orderRetryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        channel = mock(Channel.class);
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(RabbitMQConfig.ATTEMPTS_HEADER, 4))
+                .build();
+        when(channel.basicGet(RabbitMQConfig.PARKING_QUEUE, false))
+                .thenReturn(new GetResponse(new Envelope(7L, false, RabbitMQConfig.RETRY_EXCHANGE, RabbitMQConfig.PARKING_ROUTING_KEY),
+                        properties, new byte[]{1, 0}, 0))
+                .thenReturn(null);
+
+        orderRetryService = new OrderRetryService(rabbitTemplate, mock(OrderRequestService.class));
+        ReflectionTestUtils.setField(orderRetryService, "redriveRate", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRetryService.stop();
+    }
+
+    @Test
+    void acknowledgesParkedMessageOnlyAfterTheCopyIsConfirmed() throws Exception {
+        confirmPublishes(true);
+
+        assertThat(orderRetryService.startRedrive(10, 0)).isTrue();
+
+        verify(channel, timeout(5000)).basicAck(7L, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.EXCHANGE), eq(RabbitMQConfig.ROUTING_KEY_ORDER),
+                argThat((Message message) ->
+                        message.getMessageProperties().getHeader(RabbitMQConfig.ATTEMPTS_HEADER) == null),
+                any(CorrelationData.class));
+    }
+
+    @Test
+    void leavesParkedMessageInPlaceWhenTheCopyIsRejected() throws Exception {
+        confirmPublishes(false);
+
+        assertThat(orderRetryService.startRedrive(10, 0)).isTrue();
+
+        verify(channel, timeout(5000)).basicNack(7L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    private void confirmPublishes(boolean ack) {
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(ack, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+}
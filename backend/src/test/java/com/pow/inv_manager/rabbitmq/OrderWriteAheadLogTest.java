@@ -0,0 +1,129 @@
+package com.pow.inv_manager.rabbitmq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderWriteAheadLogTest {
+
+    private static final long LARGE_SEGMENTS = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dropsTornTailOnRestart() throws IOException {
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            append(wal, "a", "b", "c");
+        }
+        Path segment = segments().get(0);
+        long intactSize = Files.size(segment);
+        // Header of a fourth record claiming 100 bytes, followed by only 3 of them
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(19).putInt(100).putInt(0).putLong(4).put(new byte[3]).flip());
+        }
+
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            assertThat(Files.size(segment)).isEqualTo(intactSize);
+            assertThat(payloads(wal.readAfterCheckpoint(10))).containsExactly("a", "b", "c");
+            assertThat(wal.append(bytes("d"))).isEqualTo(4);
+        }
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            assertThat(payloads(wal.readAfterCheckpoint(10))).containsExactly("a", "b", "c", "d");
+        }
+    }
+
+    @Test
+    void resumesAfterCheckpointOnRestart() throws IOException {
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            append(wal, "a", "b", "c", "d", "e");
+            List<OrderWriteAheadLog.Record> records = wal.readAfterCheckpoint(3);
+            assertThat(payloads(records)).containsExactly("a", "b", "c");
+            wal.checkpoint(records.get(2).sequence());
+        }
+
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            assertThat(wal.isEmpty()).isFalse();
+            List<OrderWriteAheadLog.Record> records = wal.readAfterCheckpoint(10);
+            assertThat(payloads(records)).containsExactly("d", "e");
+            wal.checkpoint(records.get(1).sequence());
+            assertThat(wal.isEmpty()).isTrue();
+            assertThat(wal.append(bytes("f"))).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void deletesReplayedSegments() throws IOException {
+        // Every record fills a segment, so each append after the first rolls a new one
+        try (OrderWriteAheadLog wal = open(1)) {
+            append(wal, "a", "b", "c", "d");
+            assertThat(segments()).hasSize(4);
+
+            wal.checkpoint(wal.readAfterCheckpoint(2).get(1).sequence());
+            assertThat(segments()).hasSize(2);
+            assertThat(payloads(wal.readAfterCheckpoint(10))).containsExactly("c", "d");
+
+            wal.checkpoint(4);
+            assertThat(wal.isEmpty()).isTrue();
+            assertThat(segments()).hasSize(1);
+            assertThat(Files.size(segments().get(0))).isZero();
+        }
+
+        try (OrderWriteAheadLog wal = open(1)) {
+            assertThat(wal.isEmpty()).isTrue();
+            assertThat(wal.readAfterCheckpoint(10)).isEmpty();
+            assertThat(wal.append(bytes("e"))).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void rejectsOversizedPayload() throws IOException {
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            append(wal, "a");
+            assertThatThrownBy(() -> wal.append(new byte[(1 << 20) + 1])).isInstanceOf(IOException.class);
+            append(wal, "b");
+        }
+
+        try (OrderWriteAheadLog wal = open(LARGE_SEGMENTS)) {
+            assertThat(payloads(wal.readAfterCheckpoint(10))).containsExactly("a", "b");
+        }
+    }
+
+    private OrderWriteAheadLog open(long segmentBytes) throws IOException {
+        OrderWriteAheadLog wal = new OrderWriteAheadLog(directory, segmentBytes, false);
+        wal.open();
+        return wal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static void append(OrderWriteAheadLog wal, String... payloads) throws IOException {
+        for (String payload : payloads) {
+            wal.append(bytes(payload));
+        }
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(List<OrderWriteAheadLog.Record> records) {
+        return records.stream().map(record -> new String(record.payload(), StandardCharsets.UTF_8)).toList();
+    }
+}
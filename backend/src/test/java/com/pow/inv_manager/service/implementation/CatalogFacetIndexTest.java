@@ -0,0 +1,180 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.FacetResultDTO;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.InventoryRepository;
+import com.pow.inv_manager.service.ItemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogFacetIndexTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int QUERIES = 1_000;
+    private static final int CATEGORIES = 50;
+    private static final int LOCATIONS = 20;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final CatalogFacetIndex index = new CatalogFacetIndex(inventoryRepository, new double[]{10, 50});
+
+    @Test
+    void filtersAndCountsFacets() {
+        Item chair = Item.builder().id(1L).category("Furniture").price(40).build();
+        Item lamp = Item.builder().id(2L).category("Lighting").price(5).build();
+        when(inventoryRepository.findAllWithItem()).thenReturn(List.of(
+                inventory(1L, chair, "A", 3),
+                inventory(2L, chair, "B", 0),
+                inventory(3L, lamp, "A", 7)));
+        index.rebuild();
+
+        FacetResultDTO result = index.query(Map.of(ItemService.FACET_LOCATION, List.of("A")), 10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getInventoryIds()).containsExactly(1L, 3L);
+        assertThat(result.getFacets().get(ItemService.FACET_CATEGORY))
+                .containsExactly(Map.entry("Furniture", 1L), Map.entry("Lighting", 1L));
+        assertThat(result.getFacets().get(ItemService.FACET_PRICE_BAND))
+                .containsExactly(Map.entry("0-10", 1L), Map.entry("10-50", 1L), Map.entry("50+", 0L));
+        // Counts of the selected facet ignore its own selection
+        assertThat(result.getFacets().get(ItemService.FACET_LOCATION))
+                .containsExactly(Map.entry("A", 2L), Map.entry("B", 1L));
+    }
+
+    @Test
+    void leavesOutRowsWithIdsBeyondIntRange() {
+        Item chair = Item.builder().id(1L).category("Furniture").price(40).build();
+        long tooLarge = Integer.MAX_VALUE + 1L;
+        when(inventoryRepository.findAllWithItem()).thenReturn(List.of(
+                inventory(1L, chair, "A", 3),
+                inventory(tooLarge, chair, "A", 3)));
+        index.rebuild();
+        index.putAfterCommit(inventory(tooLarge, chair, "B", 1));
+        index.takeAfterCommit(Map.of(tooLarge, 1));
+        index.removeAfterCommit(tooLarge);
+
+        FacetResultDTO result = index.query(Map.of(), 10);
+
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getInventoryIds()).containsExactly(1L);
+    }
+
+    /**
+     * Indexes {@value #ROWS} inventory rows over {@value #CATEGORIES} categories,
+     * {@value #LOCATIONS} locations, the default price bands and the stock flag. It prints the
+     * heap the index retains and the latency of {@value #QUERIES} random facet selections,
+     * each returning the first 50 IDs and every facet count. For comparison it also prints the
+     * full scan that browsing did before, filtering every row in memory.
+     */
+    @Test
+    void answersFacetQueriesOverAMillionRows() {
+        Random random = new Random(11);
+        List<Item> items = new ArrayList<>();
+        for (long id = 1; id <= ROWS / 4; id++) {
+            items.add(Item.builder().id(id).category("category" + random.nextInt(CATEGORIES))
+                    .price(1 + random.nextInt(500)).build());
+        }
+        List<Inventory> inventories = new ArrayList<>(ROWS);
+        for (long id = 1; id <= ROWS; id++) {
+            inventories.add(inventory(id, items.get(random.nextInt(items.size())), "location" + random.nextInt(LOCATIONS),
+                    random.nextInt(20)));
+        }
+        when(inventoryRepository.findAllWithItem()).thenReturn(inventories);
+        CatalogFacetIndex large = new CatalogFacetIndex(inventoryRepository, new double[]{10, 25, 50, 100, 250});
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        large.rebuild();
+        System.gc();
+        long retained = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        long bitmapBytes = ReflectionTestUtils.invokeMethod(large, "sizeInBytes");
+
+        List<Map<String, List<String>>> selections = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            selections.add(selection(random));
+        }
+        selections.forEach(selection -> large.query(selection, 50));
+        long[] facetNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long started = System.nanoTime();
+            large.query(selections.get(i), 50);
+            facetNanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(facetNanos);
+        long[] scanNanos = new long[20];
+        for (int i = 0; i < scanNanos.length; i++) {
+            Map<String, List<String>> selection = selections.get(i);
+            long started = System.nanoTime();
+            long matches = inventories.stream().filter(inventory -> matches(inventory, selection)).count();
+            scanNanos[i] = System.nanoTime() - started;
+            assertThat(large.query(selection, 0).getTotal()).isEqualTo(matches);
+        }
+        Arrays.sort(scanNanos);
+
+        System.out.printf("Facet index over %d rows: %d MB retained (%d MB of bitmaps), query p50 %d us, p99 %d us; "
+                        + "full scan p50 %d us%n",
+                ROWS, retained >> 20, bitmapBytes >> 20, micros(facetNanos, 0.5), micros(facetNanos, 0.99),
+                micros(scanNanos, 0.5));
+        assertThat(bitmapBytes).isLessThan(16L << 20);
+        assertThat(micros(facetNanos, 0.5)).isLessThan(micros(scanNanos, 0.5) / 5);
+    }
+
+    private static Map<String, List<String>> selection(Random random) {
+        Map<String, List<String>> selection = new HashMap<>();
+        List<String> facets = new ArrayList<>(List.of(ItemService.FACET_CATEGORY, ItemService.FACET_PRICE_BAND,
+                ItemService.FACET_IN_STOCK, ItemService.FACET_LOCATION));
+        for (int picked = 1 + random.nextInt(3); picked > 0; picked--) {
+            String facet = facets.remove(random.nextInt(facets.size()));
+            List<String> values = new ArrayList<>();
+            for (int i = 1 + random.nextInt(2); i > 0; i--) {
+                values.add(switch (facet) {
+                    case ItemService.FACET_CATEGORY -> "category" + random.nextInt(CATEGORIES);
+                    case ItemService.FACET_PRICE_BAND -> List.of("0-10", "10-25", "25-50", "50-100", "100-250", "250+")
+                            .get(random.nextInt(6));
+                    case ItemService.FACET_IN_STOCK -> Boolean.toString(random.nextInt(10) > 0);
+                    default -> "location" + random.nextInt(LOCATIONS);
+                });
+            }
+            selection.put(facet, values);
+        }
+        return selection;
+    }
+
+    /**
+     * The in-memory filter of a full listing that the facet index replaces.
+     */
+    private static boolean matches(Inventory inventory, Map<String, List<String>> selection) {
+        double price = inventory.getItem().getPrice();
+        String band = price < 10 ? "0-10" : price < 25 ? "10-25" : price < 50 ? "25-50" : price < 100 ? "50-100"
+                : price < 250 ? "100-250" : "250+";
+        Map<String, String> values = Map.of(
+                ItemService.FACET_CATEGORY, inventory.getItem().getCategory(),
+                ItemService.FACET_PRICE_BAND, band,
+                ItemService.FACET_IN_STOCK, Boolean.toString(inventory.getIsActive() && inventory.getQuantity() > 0),
+                ItemService.FACET_LOCATION, inventory.getLocation());
+        return selection.entrySet().stream().allMatch(entry -> entry.getValue().contains(values.get(entry.getKey())));
+    }
+
+    private static long micros(long[] sortedNanos, double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(sortedNanos[(int) Math.ceil(sortedNanos.length * percentile) - 1]);
+    }
+
+    private static Inventory inventory(Long id, Item item, String location, int quantity) {
+        return Inventory.builder().id(id).item(item).location(location).quantity(quantity).isActive(true).build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.pow.inv_manager.service.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedBitmapTest {
+
+    @Test
+    void addsRemovesAndListsInOrder() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(70_000);
+        bitmap.add(5);
+        bitmap.add(Integer.MAX_VALUE);
+        bitmap.add(5);
+
+        assertThat(bitmap.cardinality()).isEqualTo(3);
+        assertThat(bitmap.first(10)).containsExactly(5, 70_000, Integer.MAX_VALUE);
+        assertThat(bitmap.first(2)).containsExactly(5, 70_000);
+
+        bitmap.remove(70_000);
+        bitmap.remove(42);
+
+        assertThat(bitmap.contains(70_000)).isFalse();
+        assertThat(bitmap.first(10)).containsExactly(5, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void switchesBetweenArrayAndBitmapContainers() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 10_000; value++) {
+            bitmap.add(value);
+        }
+        long dense = bitmap.sizeInBytes();
+        assertThat(bitmap.cardinality()).isEqualTo(10_000);
+
+        for (int value = 100; value < 10_000; value++) {
+            bitmap.remove(value);
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(100);
+        assertThat(bitmap.sizeInBytes()).isLessThan(dense);
+        assertThat(bitmap.first(200)).hasSize(100).startsWith(0, 1, 2).endsWith(99);
+    }
+
+    @Test
+    void matchesSetOperationsOnRandomData() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            // Alternate sparse and dense groups so every container pairing is exercised
+            int range = round % 2 == 0 ? 1 << 20 : 3 << 16;
+            int count = random.nextInt(20_000);
+            TreeSet<Integer> leftValues = new TreeSet<>();
+            TreeSet<Integer> rightValues = new TreeSet<>();
+            CompressedBitmap left = new CompressedBitmap();
+            CompressedBitmap right = new CompressedBitmap();
+            for (int i = 0; i < count; i++) {
+                int value = random.nextInt(range);
+                leftValues.add(value);
+                left.add(value);
+                value = random.nextInt(range);
+                rightValues.add(value);
+                right.add(value);
+            }
+
+            TreeSet<Integer> intersection = new TreeSet<>(leftValues);
+            intersection.retainAll(rightValues);
+            TreeSet<Integer> union = new TreeSet<>(leftValues);
+            union.addAll(rightValues);
+
+            assertThat(left.cardinality()).isEqualTo(leftValues.size());
+            assertThat(left.and(right).first(Integer.MAX_VALUE)).containsExactly(toArray(intersection));
+            assertThat(left.andCardinality(right)).isEqualTo(intersection.size());
+            assertThat(left.or(right).first(Integer.MAX_VALUE)).containsExactly(toArray(union));
+        }
+    }
+
+    @Test
+    void resultsDoNotShareStateWithOperands() {
+        CompressedBitmap left = new CompressedBitmap();
+        CompressedBitmap right = new CompressedBitmap();
+        left.add(1);
+        right.add(1);
+        right.add(2);
+
+        CompressedBitmap union = left.or(right);
+        CompressedBitmap intersection = left.and(right);
+        union.add(3);
+        intersection.remove(1);
+
+        assertThat(left.first(10)).containsExactly(1);
+        assertThat(right.first(10)).containsExactly(1, 2);
+    }
+
+    private static int[] toArray(TreeSet<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,188 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.InventoryReductionDTO;
+import com.pow.inv_manager.dto.mapper.InventoryMapper;
+import com.pow.inv_manager.exception.InventoryException;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class HotSkuStockCountersTest {
+
+    private static final long HOT_SKU = 1L;
+    private static final int THREADS = 64;
+    /** How long an order transaction keeps the row locked after its guarded UPDATE. */
+    private static final long ROW_LOCK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /** The inventory row; a decrement holds its lock as an open transaction would. */
+    private final Object rowLock = new Object();
+    private final AtomicInteger rowDecrements = new AtomicInteger();
+    private int rowQuantity;
+    private HotSkuStockCounters counters;
+
+    @AfterEach
+    void tearDown() {
+        if (counters != null) {
+            counters.returnSlices();
+        }
+    }
+
+    /**
+     * 64 threads order one unit each of a single SKU with hot-SKU mode off and on. With it
+     * off every order waits for the row lock; with it on orders are served from memory and
+     * only the refill takes the lock, once per slice.
+     */
+    @Test
+    void hotSkuModeRemovesTheRowFromTheOrderPath() throws Exception {
+        int orders = 64_000;
+
+        double off = ordersPerSecond(service(false, 10_000_000, 20_000), orders, "off");
+        int offDecrements = rowDecrements.getAndSet(0);
+        double on = ordersPerSecond(service(true, 10_000_000, 20_000), orders, "on");
+        int onDecrements = rowDecrements.get();
+
+        System.out.printf("Hot SKU, %d threads: off %.0f orders/s (%d row decrements), on %.0f orders/s (%d row decrements)%n",
+                THREADS, off, offDecrements, on, onDecrements);
+        assertThat(offDecrements).isEqualTo(orders);
+        assertThat(onDecrements).isLessThan(orders / 10);
+        assertThat(on).isGreaterThan(off * 3);
+    }
+
+    @Test
+    void neverOversellsWhenTheStockRunsOut() throws Exception {
+        int initial = 20_000;
+        InventoryServiceImpl inventoryService = service(true, initial, 1_000);
+
+        int sold = runOrders(inventoryService, initial * 2);
+
+        long inSlice = counters.available(HOT_SKU).orElseThrow();
+        assertThat(sold).isLessThanOrEqualTo(initial);
+        assertThat(sold + rowQuantity + inSlice).isEqualTo(initial);
+    }
+
+    @Test
+    void ordersLargerThanTheSliceAreTakenFromTheRow() throws Exception {
+        InventoryServiceImpl inventoryService = service(true, 1_000, 100);
+        long inSlice = counters.available(HOT_SKU).orElseThrow();
+
+        inventoryService.reduceInventory(List.of(reduction(150)));
+
+        assertThat(counters.available(HOT_SKU).orElseThrow()).isEqualTo(inSlice);
+        assertThat(rowQuantity).isEqualTo(1_000 - 100 - 150);
+    }
+
+    private double ordersPerSecond(InventoryServiceImpl inventoryService, int orders, String label) throws Exception {
+        runOrders(inventoryService, THREADS * 100);
+        rowDecrements.set(0);
+        long started = System.nanoTime();
+        int sold = runOrders(inventoryService, orders);
+        long elapsed = System.nanoTime() - started;
+        assertThat(sold).as(label).isEqualTo(orders);
+        return orders * 1e9 / elapsed;
+    }
+
+    /**
+     * @return the units sold out of {@code orders} one-unit orders spread over the threads
+     */
+    private int runOrders(InventoryServiceImpl inventoryService, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Integer>> buyers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                buyers.add(() -> {
+                    int sold = 0;
+                    for (int i = 0; i < orders / THREADS; i++) {
+                        try {
+                            inventoryService.reduceInventory(List.of(reduction(1)));
+                            sold++;
+                        } catch (InventoryException e) {
+                            // Out of stock
+                        }
+                    }
+                    return sold;
+                });
+            }
+            int sold = 0;
+            for (Future<Integer> future : executor.invokeAll(buyers)) {
+                sold += future.get();
+            }
+            return sold;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private InventoryServiceImpl service(boolean hotSkuMode, int quantity, int sliceSize) {
+        if (counters != null) {
+            counters.returnSlices();
+        }
+        rowQuantity = quantity;
+        // Stub-only mocks: recording millions of calls would be the bottleneck
+        InventoryRepository inventoryRepository = mock(InventoryRepository.class, withSettings().stubOnly());
+        when(inventoryRepository.decrementIfAvailable(anyLong(), anyInt())).thenAnswer(invocation -> {
+            int wanted = invocation.getArgument(1);
+            synchronized (rowLock) {
+                rowDecrements.incrementAndGet();
+                LockSupport.parkNanos(ROW_LOCK_NANOS);
+                if (rowQuantity < wanted) {
+                    return 0;
+                }
+                rowQuantity -= wanted;
+                return 1;
+            }
+        });
+        when(inventoryRepository.increment(anyLong(), anyInt())).thenAnswer(invocation -> {
+            synchronized (rowLock) {
+                rowQuantity += invocation.<Integer>getArgument(1);
+                return 1;
+            }
+        });
+        when(inventoryRepository.findActiveQuantity(HOT_SKU)).thenAnswer(invocation -> {
+            synchronized (rowLock) {
+                return Optional.of(rowQuantity);
+            }
+        });
+        when(inventoryRepository.findAllById(any())).thenReturn(List.of(Inventory.builder().id(HOT_SKU).isActive(true).build()));
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        counters = new HotSkuStockCounters(inventoryRepository, transactionTemplate);
+        ReflectionTestUtils.setField(counters, "enabled", hotSkuMode);
+        ReflectionTestUtils.setField(counters, "hotInventoryIds", String.valueOf(HOT_SKU));
+        ReflectionTestUtils.setField(counters, "sliceSize", sliceSize);
+        counters.load();
+        rowDecrements.set(0);
+
+        return new InventoryServiceImpl(inventoryRepository, mock(InventoryMapper.class), counters,
+                mock(InventorySnapshot.class, withSettings().stubOnly()), mock(NearCaches.class, withSettings().stubOnly()),
+                mock(CatalogFacetIndex.class, withSettings().stubOnly()));
+    }
+
+    private static InventoryReductionDTO reduction(int quantity) {
+        return InventoryReductionDTO.builder().inventoryId(HOT_SKU).quantity(quantity).build();
+    }
+}
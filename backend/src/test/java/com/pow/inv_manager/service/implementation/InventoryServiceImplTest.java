@@ -0,0 +1,202 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.InventoryFilterDTO;
+import com.pow.inv_manager.dto.InventoryPageDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
+import com.pow.inv_manager.dto.mapper.InventoryMapper;
+import com.pow.inv_manager.exception.InventoryException;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class InventoryServiceImplTest {
+
+    private static final long HOT_SKU = 1L;
+    private static final long OTHER_SKU = 2L;
+    private static final int SEARCH_ROWS = 1_000_000;
+    private static final int SEARCH_PAGE_SIZE = 100;
+
+    /** Stock per row, changed only the way the guarded UPDATE statements change it. */
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private InventoryRepository inventoryRepository;
+    private InventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        when(inventoryRepository.decrementIfAvailable(anyLong(), anyInt())).thenAnswer(invocation -> {
+            AtomicInteger row = stock.get(invocation.<Long>getArgument(0));
+            int quantity = invocation.getArgument(1);
+            // UPDATE ... SET quantity = quantity - ? WHERE id = ? AND quantity >= ?
+            return row != null && row.getAndUpdate(current -> current >= quantity ? current - quantity : current) >= quantity
+                    ? 1 : 0;
+        });
+        when(inventoryRepository.increment(anyLong(), anyInt())).thenAnswer(invocation -> {
+            stock.get(invocation.<Long>getArgument(0)).addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+
+        inventoryService = new InventoryServiceImpl(inventoryRepository, new InventoryMapper(),
+                mock(HotSkuStockCounters.class), mock(InventorySnapshot.class), mock(NearCaches.class),
+                mock(CatalogFacetIndex.class));
+    }
+
+    @Test
+    void takesAllLinesOrNone() throws InventoryException {
+        stock.put(HOT_SKU, new AtomicInteger(5));
+        stock.put(OTHER_SKU, new AtomicInteger(1));
+
+        assertThatThrownBy(() -> inventoryService.reduceInventory(List.of(reduction(HOT_SKU, 3), reduction(OTHER_SKU, 2))))
+                .isInstanceOf(InventoryException.class);
+        assertThat(stock.get(HOT_SKU).get()).isEqualTo(5);
+        assertThat(stock.get(OTHER_SKU).get()).isEqualTo(1);
+
+        inventoryService.reduceInventory(List.of(reduction(OTHER_SKU, 1), reduction(HOT_SKU, 2), reduction(HOT_SKU, 1)));
+        assertThat(stock.get(HOT_SKU).get()).isEqualTo(2);
+        assertThat(stock.get(OTHER_SKU).get()).isZero();
+    }
+
+    /**
+     * 32 threads order one hot SKU, each order also taking a second row, until the stock runs
+     * out. No unit may be sold twice and a failed order must leave both rows as they were.
+     */
+    @Test
+    void neverOversellsAHotSkuUnderContention() throws Exception {
+        int threads = 32;
+        int initial = 20_000;
+        stock.put(HOT_SKU, new AtomicInteger(initial));
+        stock.put(OTHER_SKU, new AtomicInteger(initial));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<int[]>> buyers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int quantity = 1 + t % 3;
+                buyers.add(() -> {
+                    int orders = 0;
+                    int attempts = 0;
+                    while (stock.get(HOT_SKU).get() >= quantity) {
+                        attempts++;
+                        try {
+                            inventoryService.reduceInventory(List.of(reduction(HOT_SKU, quantity), reduction(OTHER_SKU, 1)));
+                            orders++;
+                        } catch (InventoryException e) {
+                            // Short of stock: the lines already taken were put back
+                        }
+                    }
+                    return new int[]{orders * quantity, orders, attempts};
+                });
+            }
+
+            long started = System.nanoTime();
+            int sold = 0;
+            int orders = 0;
+            int attempts = 0;
+            for (Future<int[]> future : executor.invokeAll(buyers)) {
+                int[] result = future.get();
+                sold += result[0];
+                orders += result[1];
+                attempts += result[2];
+            }
+            long elapsed = System.nanoTime() - started;
+
+            System.out.printf("Hot SKU contention: %d threads, %d orders in %d attempts, %.0f decrements/s%n",
+                    threads, orders, attempts, 2.0 * attempts * 1e9 / elapsed);
+            assertThat(stock.get(HOT_SKU).get()).isBetween(0, 2);
+            assertThat(sold + stock.get(HOT_SKU).get()).isEqualTo(initial);
+            assertThat(orders + stock.get(OTHER_SKU).get()).isEqualTo(initial);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Pages through {@value #SEARCH_ROWS} rows sorted by ID. The repository returns the rows
+     * after the ID carried by the cursor, as the keyset predicate selects them, so every page
+     * must cost one limited query and no count, whatever its depth. The printed latency is the
+     * service side of a page only: the database is not part of this test, since the test
+     * environment has no PostgreSQL to plan the query against.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void pagesAMillionRowsWithOneQueryPerPage() throws InventoryException {
+        Item item = Item.builder().id(1L).name("bolt").price(1.0).build();
+        Inventory[] rows = new Inventory[SEARCH_ROWS];
+        for (int i = 0; i < SEARCH_ROWS; i++) {
+            rows[i] = Inventory.builder().id(i + 1L).item(item).quantity(10).location("A").isActive(true).build();
+        }
+        long[] afterId = {0};
+        FluentQuery.FetchableFluentQuery<Inventory> fluentQuery =
+                mock(FluentQuery.FetchableFluentQuery.class, withSettings().stubOnly());
+        int[] limit = {0};
+        when(fluentQuery.limit(anyInt())).thenAnswer(invocation -> {
+            limit[0] = invocation.getArgument(0);
+            return fluentQuery;
+        });
+        when(fluentQuery.all()).thenAnswer(invocation -> Arrays.asList(rows)
+                .subList((int) afterId[0], (int) Math.min(afterId[0] + limit[0], SEARCH_ROWS)));
+        when(inventoryRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenAnswer(invocation -> invocation.<Function<Object, Object>>getArgument(1).apply(fluentQuery));
+
+        InventoryFilterDTO filter = InventoryFilterDTO.builder().build();
+        // A full last page still carries a cursor, which then returns an empty page
+        long[] pageNanos = new long[SEARCH_ROWS / SEARCH_PAGE_SIZE + 1];
+        String cursor = null;
+        int pages = 0;
+        long seen = 0;
+        do {
+            long started = System.nanoTime();
+            InventoryPageDTO page = inventoryService.searchInventory(filter, cursor, SEARCH_PAGE_SIZE);
+            pageNanos[pages++] = System.nanoTime() - started;
+            if (!page.getInventory().isEmpty()) {
+                assertThat(page.getInventory().get(0).getId()).isEqualTo(seen + 1);
+            }
+            seen += page.getInventory().size();
+            cursor = page.getNextCursor();
+            afterId[0] = cursor == null ? 0 : ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor)).getLong(2 + Long.BYTES);
+        } while (cursor != null);
+
+        Arrays.sort(pageNanos);
+        System.out.printf("Keyset search over %d rows: %d pages of %d, service-side p50 %d us, p99 %d us per page (stubbed repository)%n",
+                SEARCH_ROWS, pages, SEARCH_PAGE_SIZE, TimeUnit.NANOSECONDS.toMicros(pageNanos[pageNanos.length / 2]),
+                TimeUnit.NANOSECONDS.toMicros(pageNanos[(int) (pageNanos.length * 0.99)]));
+        assertThat(seen).isEqualTo(SEARCH_ROWS);
+        assertThat(pages).isEqualTo(pageNanos.length);
+        verify(inventoryRepository, times(pages)).findBy(any(Specification.class), any(Function.class));
+        verifyNoMoreInteractions(inventoryRepository);
+    }
+
+    private static InventoryReductionDTO reduction(long inventoryId, int quantity) {
+        return InventoryReductionDTO.builder().inventoryId(inventoryId).quantity(quantity).build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.exception.ItemException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ItemImportReaderTest {
+
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsQuotedCsvFields() throws Exception {
+        List<ItemImportReader.Row> rows = read(CSV, "\uFEFFPrice,Name,Unknown,Description\r\n"
+                + "1.5,\"Desk, oak\",x,\"Says \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "2,Lamp,,\"First line\nsecond line\"\n"
+                + "3,Pen,,\n");
+
+        assertThat(rows).extracting(ItemImportReader.Row::line).containsExactly(2L, 4L, 6L);
+        assertThat(rows.get(0).item().getName()).isEqualTo("Desk, oak");
+        assertThat(rows.get(0).item().getDescription()).isEqualTo("Says \"hi\"");
+        assertThat(rows.get(0).item().getPrice()).isEqualTo(1.5);
+        assertThat(rows.get(1).item().getDescription()).isEqualTo("First line\nsecond line");
+        assertThat(rows.get(2).item().getName()).isEqualTo("Pen");
+        assertThat(rows.get(2).item().getDescription()).isNull();
+    }
+
+    @Test
+    void reportsBadCsvRowsAndKeepsReading() throws Exception {
+        String longName = "x".repeat(70_000);
+        List<ItemImportReader.Row> rows = read(CSV, "name,price\n"
+                + "Chair,cheap\n"
+                + longName + ",1\n"
+                + "Table,5\n"
+                + "\"Stool,2\n");
+
+        assertThat(rows).extracting(ItemImportReader.Row::line, ItemImportReader.Row::error).containsExactly(
+                tuple(2L, "Invalid price: cheap"),
+                tuple(3L, "Row is longer than 65536 characters."),
+                tuple(4L, null),
+                tuple(5L, "Unterminated quoted field."));
+        assertThat(rows.get(2).item().getName()).isEqualTo("Table");
+    }
+
+    @Test
+    void rejectsUnusableHeaderAndContentType() {
+        assertThatThrownBy(() -> read(CSV, "")).isInstanceOf(ItemException.class).hasMessageContaining("missing");
+        assertThatThrownBy(() -> read(CSV, "title,price\nChair,1\n"))
+                .isInstanceOf(ItemException.class).hasMessageContaining("name column");
+        assertThatThrownBy(() -> read("application/json", "{}")).isInstanceOf(ItemException.class);
+        assertThatThrownBy(() -> read("not a type", "{}")).isInstanceOf(ItemException.class);
+    }
+
+    @Test
+    void readsNdjsonLines() throws Exception {
+        List<ItemImportReader.Row> rows = read(NDJSON, """
+                {"id": 9, "name": "Chair", "price": 12.5}\r
+
+                {"name": "Lamp"
+                null
+                {"name": "Table", "category": "Furniture"}""");
+
+        assertThat(rows).extracting(ItemImportReader.Row::line).containsExactly(1L, 3L, 4L, 5L);
+        assertThat(rows.get(0).item().getId()).isNull();
+        assertThat(rows.get(0).item().getName()).isEqualTo("Chair");
+        assertThat(rows.get(0).item().getPrice()).isEqualTo(12.5);
+        assertThat(rows.get(1).error()).startsWith("Malformed JSON");
+        assertThat(rows.get(2).error()).isEqualTo("Expected a JSON object.");
+        assertThat(rows.get(3).item().getCategory()).isEqualTo("Furniture");
+    }
+
+    private List<ItemImportReader.Row> read(String contentType, String body) throws ItemException, IOException {
+        List<ItemImportReader.Row> rows = new ArrayList<>();
+        try (ItemImportReader reader = ItemImportReader.open(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType, objectMapper)) {
+            ItemImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,230 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pow.inv_manager.dto.ItemImportReportDTO;
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.exception.ItemException;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.repository.ItemImportBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class ItemImporterTest {
+
+    private static final int ROWS = 1_000_000;
+
+    private final ItemImportBatchRepository itemImportBatchRepository = mock(ItemImportBatchRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ItemImporter importer = new ItemImporter(itemImportBatchRepository, new ItemMapper(),
+            transactionTemplate, new ObjectMapper(), mock(InventorySnapshot.class), mock(CatalogFacetIndex.class),
+            mock(ItemSearchIndex.class));
+
+    ItemImporterTest() {
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+        ReflectionTestUtils.setField(importer, "maxErrors", 10);
+        when(itemImportBatchRepository.insertAll(anyList())).thenReturn(List.of());
+    }
+
+    @Test
+    void reportsRejectedRowsOfAFailedChunk() throws ItemException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // The database refuses Lamp, which fails its whole chunk until it is retried alone
+        when(itemImportBatchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            if (invocation.<List<Item>>getArgument(0).stream().anyMatch(item -> item.getName().equals("Lamp"))) {
+                throw new DataIntegrityViolationException("duplicate name");
+            }
+            return List.of();
+        });
+
+        ItemImportReportDTO report = importItems("name\nChair\nLamp\nDesk\n");
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> assertThat(error.getLine()).isEqualTo(3));
+        assertThat(report.getAborted()).isNull();
+    }
+
+    @Test
+    void stopsWithPartialReportWhenTheDatabaseGoesAway() throws ItemException {
+        AtomicInteger chunks = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (chunks.incrementAndGet() > 1) {
+                throw new CannotCreateTransactionException("Connection refused");
+            }
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        ItemImportReportDTO report = importItems("name\nA\nB\nC\nD\nE\nF\n");
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getAborted()).isEqualTo("Import stopped after 2 rows: the database is unavailable.");
+        // The import stops at the first failed chunk instead of reading the rest of the body
+        assertThat(chunks.get()).isEqualTo(2);
+    }
+
+    /**
+     * Streams a generated body of {@value #ROWS} rows, CSV and then NDJSON, through the real
+     * reader and chunking against a repository that only assigns IDs, and prints rows per
+     * second and the heap high-water marks. The old generation's peak is what the import
+     * keeps alive; the young generation fills with short-lived rows between collections.
+     */
+    @Test
+    void importsAMillionRowsInBoundedHeap() throws ItemException {
+        ItemImportBatchRepository repository = mock(ItemImportBatchRepository.class, withSettings().stubOnly());
+        TransactionTemplate transactions = mock(TransactionTemplate.class, withSettings().stubOnly());
+        ItemImporter large = new ItemImporter(repository, new ItemMapper(), transactions, new ObjectMapper(),
+                mock(InventorySnapshot.class, withSettings().stubOnly()),
+                mock(CatalogFacetIndex.class, withSettings().stubOnly()),
+                mock(ItemSearchIndex.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(large, "batchSize", 500);
+        ReflectionTestUtils.setField(large, "maxErrors", 1000);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactions).executeWithoutResult(any());
+        AtomicLong ids = new AtomicLong();
+        when(repository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            List<Inventory> inventories = new ArrayList<>(items.size());
+            for (Item item : items) {
+                item.setId(ids.incrementAndGet());
+                inventories.add(Inventory.builder().id(item.getId()).item(item).quantity(0).location("")
+                        .isActive(false).build());
+            }
+            return inventories;
+        });
+        large.importItems(new GeneratedBody(false, 10_000), "text/csv");
+
+        for (boolean ndjson : new boolean[]{false, true}) {
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            System.gc();
+            long oldBefore = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                pool.resetPeakUsage();
+                if (isOldGeneration(pool)) {
+                    oldBefore += pool.getUsage().getUsed();
+                }
+            }
+            long started = System.nanoTime();
+            ItemImportReportDTO report = large.importItems(new GeneratedBody(ndjson, ROWS),
+                    ndjson ? "application/x-ndjson" : "text/csv");
+            long elapsed = System.nanoTime() - started;
+            long peak = 0;
+            long oldPeak = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                peak += pool.getPeakUsage().getUsed();
+                if (isOldGeneration(pool)) {
+                    oldPeak += pool.getPeakUsage().getUsed();
+                }
+            }
+
+            System.out.printf("Import of %d %s rows: %.0f rows/s, heap peak %d MB, old generation grew at most %d MB%n",
+                    ROWS, ndjson ? "NDJSON" : "CSV", ROWS * 1e9 / elapsed, peak >> 20, (oldPeak - oldBefore) >> 20);
+            assertThat(report.getImported()).isEqualTo(ROWS);
+            assertThat(report.getFailed()).isZero();
+            assertThat(oldPeak - oldBefore).isLessThan(64L << 20);
+        }
+    }
+
+    private static boolean isOldGeneration(MemoryPoolMXBean pool) {
+        return pool.getName().contains("Old") || pool.getName().contains("Tenured");
+    }
+
+    /**
+     * A request body that generates its rows as it is read, so the test holds no more of it in
+     * memory than a client streaming from disk would.
+     */
+    private static final class GeneratedBody extends InputStream {
+
+        private final boolean ndjson;
+        private final int rows;
+        private int row = -1;
+        private byte[] current = new byte[0];
+        private int position;
+
+        GeneratedBody(boolean ndjson, int rows) {
+            this.ndjson = ndjson;
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int copied = 0;
+            while (copied < length) {
+                if (position == current.length && !advance()) {
+                    break;
+                }
+                int count = Math.min(length - copied, current.length - position);
+                System.arraycopy(current, position, buffer, offset + copied, count);
+                position += count;
+                copied += count;
+            }
+            return copied == 0 ? -1 : copied;
+        }
+
+        private boolean advance() {
+            if (row == rows) {
+                return false;
+            }
+            String text;
+            if (row < 0) {
+                text = ndjson ? "" : "name,description,category,price\n";
+            } else if (ndjson) {
+                text = "{\"name\":\"Item " + row + "\",\"description\":\"Imported from supplier sheet row " + row
+                        + "\",\"category\":\"category" + row % 50 + "\",\"price\":" + (1 + row % 500) + ".99}\n";
+            } else {
+                text = "Item " + row + ",\"Imported, supplier sheet row " + row + "\",category" + row % 50 + ","
+                        + (1 + row % 500) + ".99\n";
+            }
+            row++;
+            current = text.getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+
+    private ItemImportReportDTO importItems(String csv) throws ItemException {
+        return importer.importItems(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "text/csv");
+    }
+}
@@ -0,0 +1,263 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.ItemDTO;
+import com.pow.inv_manager.dto.ItemSearchHitDTO;
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.rabbitmq.RemoteCacheInvalidation;
+import com.pow.inv_manager.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ItemSearchIndexTest {
+
+    private static final int CORPUS_ITEMS = 500_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 2_000;
+    private static final String[] SYLLABLES = {"ba", "ko", "ri", "tel", "mon", "sa", "du", "ven", "lo", "fi",
+            "gra", "pe", "nu", "star", "zo", "che", "mi", "ta", "rol", "ex"};
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemSearchIndex index = new ItemSearchIndex(itemRepository, new ItemMapper());
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        index.putAfterCommit(item(1L, "Desk lamp", "Lighting", "Bright light for a chair side"));
+        index.putAfterCommit(item(2L, "Office chair", "Furniture", "Adjustable"));
+        index.putAfterCommit(item(3L, "Footrest", "Furniture", "Goes under any desk"));
+
+        assertThat(ids(index.search("chair", false, 10))).containsExactly(2L, 1L);
+        assertThat(ids(index.search("desk", false, 10))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shorterDocumentsScoreHigherForTheSameMatch() {
+        index.putAfterCommit(item(1L, "Cable", null, "Long description about many things besides the cable itself"));
+        index.putAfterCommit(item(2L, "Cable", null, "Short"));
+
+        List<ItemSearchHitDTO> hits = index.search("cable", false, 10);
+
+        assertThat(ids(hits)).containsExactly(2L, 1L);
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+    }
+
+    @Test
+    void requiresEveryTermAndFoldsAccents() {
+        index.putAfterCommit(item(1L, "Crème brûlée torch", "Kitchen", null));
+        index.putAfterCommit(item(2L, "Creme pot", "Kitchen", null));
+
+        assertThat(ids(index.search("CREME Brulee", false, 10))).containsExactly(1L);
+        assertThat(index.search("creme blender", false, 10)).isEmpty();
+    }
+
+    @Test
+    void expandsPrefixToTheMostFrequentTerms() {
+        long id = 1;
+        // 70 rare terms that all sort before "lamp"
+        for (int i = 0; i < 70; i++) {
+            index.putAfterCommit(item(id++, "laa" + (char) ('a' + i / 26) + (char) ('a' + i % 26), null, null));
+        }
+        for (int i = 0; i < 5; i++) {
+            index.putAfterCommit(item(id++, "Lamp " + i, null, null));
+        }
+
+        List<ItemSearchHitDTO> hits = index.search("la", true, 100);
+
+        assertThat(hits).hasSize(5 + 64 - 1);
+        assertThat(ids(index.search("lam", true, 10))).hasSize(5);
+        assertThat(index.search("lam", false, 10)).isEmpty();
+    }
+
+    @Test
+    void prefixKeepsTheExactTerm() {
+        index.putAfterCommit(item(1L, "Lamp", null, null));
+        index.putAfterCommit(item(2L, "Lampshade", null, null));
+
+        assertThat(ids(index.search("lamp", true, 10))).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void reindexesRemoteChangesInOneQuery() {
+        index.putAfterCommit(item(1L, "Old name", null, null));
+        index.putAfterCommit(item(2L, "Removed", null, null));
+        when(itemRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(
+                Item.builder().id(1L).name("New name").build()));
+
+        index.onRemoteInvalidation(new RemoteCacheInvalidation(NearCaches.INVENTORY, List.of(1L)));
+        index.refreshStale();
+        verifyNoInteractions(itemRepository);
+
+        index.onRemoteInvalidation(new RemoteCacheInvalidation(NearCaches.ITEMS, List.of(1L, 2L)));
+        index.refreshStale();
+
+        verify(itemRepository).findAllById(List.of(1L, 2L));
+        assertThat(ids(index.search("new", false, 10))).containsExactly(1L);
+        assertThat(index.search("old", false, 10)).isEmpty();
+        assertThat(index.search("removed", false, 10)).isEmpty();
+    }
+
+    @Test
+    void replacedItemsAreFoundOnceAfterCompaction() {
+        index.putAfterCommit(item(1L, "Stapler", null, null));
+        for (int i = 0; i < 2000; i++) {
+            index.putAfterCommit(item(1L, "Stapler v" + i, null, null));
+        }
+
+        assertThat(ids(index.search("stapler", false, 10))).containsExactly(1L);
+    }
+
+    /**
+     * Loads a generated catalogue of {@value #CORPUS_ITEMS} items, then runs {@value #QUERIES}
+     * full-text queries of one to three words and as many two- to four-letter typeahead
+     * prefixes, and prints the latency percentiles of each. The target is a p99 under 5 ms; the
+     * assertion is ten times looser so that a busy build machine does not fail it, while still
+     * catching a search that scans every candidate.
+     */
+    @Test
+    void answersACatalogueCorpusQuickly() {
+        Corpus corpus = new Corpus();
+        when(itemRepository.findAll()).thenReturn(corpus.items(CORPUS_ITEMS));
+        index.load();
+        List<String> fullText = corpus.queries(QUERIES);
+        List<String> prefixes = corpus.prefixes(QUERIES);
+        // Warm up the search path before timing it
+        fullText.forEach(query -> index.search(query, false, 20));
+        prefixes.forEach(query -> index.search(query, true, 10));
+
+        long[] fullTextNanos = timeQueries(fullText, false, 20);
+        long[] prefixNanos = timeQueries(prefixes, true, 10);
+
+        System.out.printf("Search over %d items: full text p50 %d us, p99 %d us; prefix p50 %d us, p99 %d us%n",
+                CORPUS_ITEMS, micros(fullTextNanos, 0.5), micros(fullTextNanos, 0.99),
+                micros(prefixNanos, 0.5), micros(prefixNanos, 0.99));
+        assertThat(index.search(fullText.get(0), false, 20)).isNotEmpty();
+        assertThat(micros(fullTextNanos, 0.99)).isLessThan(TimeUnit.MILLISECONDS.toMicros(50));
+        assertThat(micros(prefixNanos, 0.99)).isLessThan(TimeUnit.MILLISECONDS.toMicros(50));
+    }
+
+    /**
+     * Skipping the postings that cannot reach the best hits must not change them: a limited
+     * search returns the same scores as the head of a search whose limit is never reached.
+     */
+    @Test
+    void skippingPostingsKeepsTheBestHits() {
+        Corpus corpus = new Corpus();
+        when(itemRepository.findAll()).thenReturn(corpus.items(20_000));
+        index.load();
+
+        for (String query : corpus.queries(300)) {
+            assertThat(scores(index.search(query, false, 10)))
+                    .as(query)
+                    .isEqualTo(scores(index.search(query, false, Integer.MAX_VALUE)).stream().limit(10).toList());
+        }
+        for (String query : corpus.prefixes(300)) {
+            assertThat(scores(index.search(query, true, 10)))
+                    .as(query)
+                    .isEqualTo(scores(index.search(query, true, Integer.MAX_VALUE)).stream().limit(10).toList());
+        }
+    }
+
+    private long[] timeQueries(List<String> queries, boolean prefix, int limit) {
+        long[] nanos = new long[queries.size()];
+        for (int i = 0; i < nanos.length; i++) {
+            long started = System.nanoTime();
+            index.search(queries.get(i), prefix, limit);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static long micros(long[] sortedNanos, double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(sortedNanos[(int) Math.ceil(sortedNanos.length * percentile) - 1]);
+    }
+
+    private static List<Double> scores(List<ItemSearchHitDTO> hits) {
+        return hits.stream().map(ItemSearchHitDTO::getScore).toList();
+    }
+
+    /**
+     * Generated catalogue text whose words follow a Zipfian distribution (exponent 1) over
+     * {@value #VOCABULARY} terms, the usual shape of product text.
+     */
+    private static final class Corpus {
+
+        private final Random random = new Random(7);
+        private final String[] words = new String[VOCABULARY];
+        private final double[] cumulative = new double[VOCABULARY];
+
+        Corpus() {
+            double sum = 0;
+            for (int i = 0; i < VOCABULARY; i++) {
+                words[i] = SYLLABLES[i % 20] + SYLLABLES[(i / 20) % 20] + SYLLABLES[(i / 400) % 20] + SYLLABLES[i / 8000];
+                sum += 1.0 / (i + 1);
+                cumulative[i] = sum;
+            }
+        }
+
+        List<Item> items(int count) {
+            List<Item> items = new ArrayList<>(count);
+            for (long id = 1; id <= count; id++) {
+                items.add(Item.builder()
+                        .id(id)
+                        .name(phrase(2 + random.nextInt(3)))
+                        .category("category" + random.nextInt(40))
+                        .description(phrase(8 + random.nextInt(8)))
+                        .build());
+            }
+            return items;
+        }
+
+        List<String> queries(int count) {
+            List<String> queries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                queries.add(phrase(1 + random.nextInt(3)));
+            }
+            return queries;
+        }
+
+        List<String> prefixes(int count) {
+            List<String> prefixes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String word = word();
+                prefixes.add(word.substring(0, Math.min(word.length(), 2 + random.nextInt(3))));
+            }
+            return prefixes;
+        }
+
+        private String phrase(int length) {
+            StringBuilder phrase = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    phrase.append(' ');
+                }
+                phrase.append(word());
+            }
+            return phrase.toString();
+        }
+
+        private String word() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[VOCABULARY - 1]);
+            return words[index >= 0 ? index : -index - 1];
+        }
+    }
+
+    private static ItemDTO item(Long id, String name, String category, String description) {
+        return ItemDTO.builder().id(id).name(name).category(category).description(description).build();
+    }
+
+    private static List<Long> ids(List<ItemSearchHitDTO> hits) {
+        return hits.stream().map(hit -> hit.getItem().getId()).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.mapper.ItemMapper;
+import com.pow.inv_manager.rabbitmq.CacheInvalidationBroadcaster;
+import com.pow.inv_manager.repository.InventoryRepository;
+import com.pow.inv_manager.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class NearCachesTest {
+
+    private final CacheInvalidationBroadcaster broadcaster = mock(CacheInvalidationBroadcaster.class);
+    private final NearCaches nearCaches = nearCaches(broadcaster);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(nearCaches);
+    }
+
+    @Test
+    void broadcastsOncePerCacheAndTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, List.of(3L, 1L));
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, 2L);
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, 1L);
+        nearCaches.invalidateAfterCommit(NearCaches.ITEMS, 7L);
+        verifyNoInteractions(broadcaster);
+
+        complete(true);
+
+        verify(broadcaster).publish(NearCaches.INVENTORY, Set.of(1L, 2L, 3L));
+        verify(broadcaster).publish(NearCaches.ITEMS, Set.of(7L));
+        verifyNoMoreInteractions(broadcaster);
+    }
+
+    @Test
+    void doesNotBroadcastOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, List.of(1L, 2L));
+        complete(false);
+
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    void broadcastsAtOnceWithoutTransaction() {
+        nearCaches.invalidateAfterCommit(NearCaches.INVENTORY, List.of(1L, 2L));
+
+        verify(broadcaster).publish(NearCaches.INVENTORY, List.of(1L, 2L));
+    }
+
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (committed) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(committed
+                ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NearCaches nearCaches(CacheInvalidationBroadcaster broadcaster) {
+        ObjectProvider<CacheInvalidationBroadcaster> provider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<CacheInvalidationBroadcaster>>getArgument(0).accept(broadcaster);
+            return null;
+        }).when(provider).ifAvailable(any());
+        return new NearCaches(mock(ItemRepository.class), mock(InventoryRepository.class), mock(ItemMapper.class),
+                100, 60_000, 100, 60_000, provider);
+    }
+}
@@ -0,0 +1,96 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class OrderItemDiffTest {
+
+    @Test
+    void insertsUpdatesAndDeletes() throws OrderException {
+        CustomerOrder order = order(line(1L, 10L, 2, 5.0), line(2L, 20L, 1, 3.0), line(3L, 30L, 4, 1.0));
+
+        OrderItemDiff diff = OrderItemDiff.compute(order.getOrderItems(), List.of(
+                line(1L, 10L, 2, 5.0),
+                line(2L, 20L, 3, 3.0),
+                line(null, 40L, 5, 2.0)));
+        diff.applyTo(order);
+
+        assertThat(order.getOrderItems())
+                .extracting(OrderItem::getId, OrderItem::getQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, 2),
+                        tuple(2L, 3),
+                        tuple(null, 5));
+        assertThat(order.getOrderItems()).allSatisfy(item -> assertThat(item.getCustomerOrder()).isSameAs(order));
+        assertThat(diff.stockDeltas()).containsExactly(Map.entry(20L, 2), Map.entry(30L, -4), Map.entry(40L, 5));
+    }
+
+    @Test
+    void leavesUnchangedLinesAlone() throws OrderException {
+        OrderItem stored = line(1L, 10L, 2, 5.0);
+        CustomerOrder order = order(stored);
+
+        OrderItemDiff diff = OrderItemDiff.compute(order.getOrderItems(), List.of(line(1L, 10L, 2, 5.0)));
+        diff.applyTo(order);
+
+        assertThat(order.getOrderItems()).containsExactly(stored);
+        assertThat(diff.stockDeltas()).isEmpty();
+    }
+
+    @Test
+    void netsStockOfReplacedLine() throws OrderException {
+        CustomerOrder order = order(line(1L, 10L, 3, 5.0));
+
+        // Replacing a line with a new one on the same inventory row needs no stock change
+        OrderItemDiff diff = OrderItemDiff.compute(order.getOrderItems(), List.of(line(null, 10L, 3, 5.0)));
+
+        assertThat(diff.stockDeltas()).isEmpty();
+    }
+
+    @Test
+    void rejectsRepeatedLine() {
+        CustomerOrder order = order(line(1L, 10L, 2, 5.0));
+
+        assertThatThrownBy(() -> OrderItemDiff.compute(order.getOrderItems(),
+                List.of(line(1L, 10L, 1, 5.0), line(1L, 10L, 2, 5.0))))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("more than once");
+    }
+
+    @Test
+    void rejectsLineOfAnotherOrder() {
+        CustomerOrder order = order(line(1L, 10L, 2, 5.0));
+
+        assertThatThrownBy(() -> OrderItemDiff.compute(order.getOrderItems(), List.of(line(99L, 10L, 1, 5.0))))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("do not belong");
+    }
+
+    private static CustomerOrder order(OrderItem... lines) {
+        CustomerOrder order = CustomerOrder.builder().orderItems(new ArrayList<>(List.of(lines))).build();
+        for (OrderItem line : lines) {
+            line.setCustomerOrder(order);
+        }
+        return order;
+    }
+
+    private static OrderItem line(Long id, Long inventoryId, int quantity, double unitPrice) {
+        return OrderItem.builder()
+                .id(id)
+                .inventory(Inventory.builder().id(inventoryId).build())
+                .quantity(quantity)
+                .unitPrice(unitPrice)
+                .build();
+    }
+}
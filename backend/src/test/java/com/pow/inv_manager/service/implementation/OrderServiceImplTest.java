@@ -0,0 +1,282 @@
+package com.pow.inv_manager.service.implementation;
+
+import com.pow.inv_manager.dto.CustomerOrderDTO;
+import com.pow.inv_manager.dto.InventoryReductionDTO;
+import com.pow.inv_manager.dto.OrderItemDTO;
+import com.pow.inv_manager.dto.OrderReadRow;
+import com.pow.inv_manager.dto.mapper.CustomerOrderMapper;
+import com.pow.inv_manager.dto.mapper.OrderEntityResolver;
+import com.pow.inv_manager.dto.mapper.OrderItemMapper;
+import com.pow.inv_manager.exception.OrderException;
+import com.pow.inv_manager.model.Address;
+import com.pow.inv_manager.model.Client;
+import com.pow.inv_manager.model.CustomerOrder;
+import com.pow.inv_manager.model.Inventory;
+import com.pow.inv_manager.model.Item;
+import com.pow.inv_manager.model.OrderItem;
+import com.pow.inv_manager.repository.ClientRepository;
+import com.pow.inv_manager.repository.CustomerOrderBatchRepository;
+import com.pow.inv_manager.repository.CustomerOrderRepository;
+import com.pow.inv_manager.repository.InventoryRepository;
+import com.pow.inv_manager.service.InventoryService;
+import com.pow.inv_manager.service.OrderRequestService;
+import com.pow.inv_manager.utils.OrderStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private static final Long ORDER_ID = 7L;
+
+    private CustomerOrderRepository customerOrderRepository;
+    private CustomerOrderBatchRepository customerOrderBatchRepository;
+    private InventoryService inventoryService;
+    private ClientRepository clientRepository;
+    private InventoryRepository inventoryRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        customerOrderRepository = mock(CustomerOrderRepository.class);
+        customerOrderBatchRepository = mock(CustomerOrderBatchRepository.class);
+        inventoryService = mock(InventoryService.class);
+        clientRepository = mock(ClientRepository.class);
+        inventoryRepository = mock(InventoryRepository.class);
+        entityManager = mock(EntityManager.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(clientRepository.findAllWithAddressByIdIn(anyCollection()))
+                .thenReturn(List.of(Client.builder().id(1L).address(Address.builder().country("PT").build()).build()));
+        when(inventoryRepository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of(
+                Inventory.builder().id(10L).quantity(100).isActive(true)
+                        .item(Item.builder().id(10L).name("Lamp").price(4.0).build()).build()));
+        when(customerOrderRepository.save(any(CustomerOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(customerOrderBatchRepository.sumLineQuantities(anyCollection())).thenReturn(Map.of(10L, 3));
+
+        OrderItemMapper orderItemMapper = new OrderItemMapper();
+        orderService = new OrderServiceImpl(new CustomerOrderMapper(orderItemMapper), orderItemMapper,
+                new OrderEntityResolver(clientRepository, inventoryRepository), customerOrderRepository,
+                customerOrderBatchRepository, inventoryService, mock(OrderRequestService.class),
+                mock(OrderEventOutbox.class), entityManager, transactionTemplate);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"PENDING, CONFIRMED", "CONFIRMED, SHIPPED", "SHIPPED, COMPLETED"})
+    void movesForwardWithoutTouchingStock(OrderStatus from, OrderStatus to) throws Exception {
+        currentStatus(from);
+
+        orderService.updateOrderStatus(ORDER_ID, to);
+
+        verify(customerOrderRepository).updateStatus(ORDER_ID, to.toString());
+        verify(inventoryService, never()).releaseInventory(anyList());
+        verify(inventoryService, never()).reduceInventory(anyList());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"PENDING", "CONFIRMED"})
+    void cancellingGivesStockBack(OrderStatus from) throws Exception {
+        currentStatus(from);
+
+        orderService.updateOrderStatus(ORDER_ID, OrderStatus.CANCELLED);
+
+        ArgumentCaptor<List<InventoryReductionDTO>> released = ArgumentCaptor.forClass(List.class);
+        verify(inventoryService).releaseInventory(released.capture());
+        assertThat(released.getValue()).singleElement().satisfies(line -> {
+            assertThat(line.getInventoryId()).isEqualTo(10L);
+            assertThat(line.getQuantity()).isEqualTo(3);
+        });
+    }
+
+    /**
+     * Reopening a shipped order would let a later cancel put shipped units back on the shelf,
+     * and reopening a cancelled one would take its stock a second time.
+     */
+    @ParameterizedTest
+    @CsvSource({"SHIPPED, PENDING", "CANCELLED, PENDING", "CANCELLED, CONFIRMED", "SHIPPED, CANCELLED",
+            "COMPLETED, CANCELLED", "CONFIRMED, CONFIRMED"})
+    void rejectsTransitionsOutsideTheAllowedPredecessors(OrderStatus from, OrderStatus to) throws Exception {
+        currentStatus(from);
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(ORDER_ID, to))
+                .isInstanceOf(OrderException.class)
+                .hasMessageContaining("Cannot move order");
+        verify(customerOrderRepository, never()).updateStatus(anyLong(), anyString());
+        verify(inventoryService, never()).releaseInventory(anyList());
+        verify(inventoryService, never()).reduceInventory(anyList());
+    }
+
+    @Test
+    void createdOrdersArePendingWhateverTheClientSent() throws Exception {
+        CustomerOrderDTO order = CustomerOrderDTO.builder()
+                .id(99L)
+                .clientId(1L)
+                .status(OrderStatus.CANCELLED.toString())
+                .orderItems(List.of(OrderItemDTO.builder().id(55L).inventoryId(10L).quantity(2).unitPrice(4.0).build()))
+                .build();
+
+        orderService.createOrder(order);
+
+        ArgumentCaptor<CustomerOrder> saved = ArgumentCaptor.forClass(CustomerOrder.class);
+        verify(customerOrderRepository).save(saved.capture());
+        assertThat(saved.getValue().getId()).isNull();
+        assertThat(saved.getValue().getStatus()).isEqualTo(OrderStatus.PENDING.toString());
+        assertThat(saved.getValue().getOrderItems()).singleElement().satisfies(line -> assertThat(line.getId()).isNull());
+        verify(inventoryService).reduceInventory(anyList());
+    }
+
+    /**
+     * Reading an order through its entity lazily loaded the client, its address, the lines
+     * and then the inventory row and item of every line: up to 4 + 2 per line queries. The
+     * read projection returns all of it as flat rows of a single query.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 50, 1000})
+    void readsAnOrderWithOneQuery(int lines) throws OrderException {
+        when(customerOrderRepository.findReadRowsById(ORDER_ID)).thenReturn(readRows(ORDER_ID, lines));
+
+        CustomerOrderDTO order = orderService.getOrder(ORDER_ID);
+
+        assertThat(order.getId()).isEqualTo(ORDER_ID);
+        assertThat(order.getClientCountry()).isEqualTo("PT");
+        assertThat(order.getOrderItems()).hasSize(lines);
+        verify(customerOrderRepository).findReadRowsById(ORDER_ID);
+        verifyNoMoreInteractions(customerOrderRepository, customerOrderBatchRepository, clientRepository,
+                inventoryRepository, entityManager);
+    }
+
+    @Test
+    void readsAllOrdersOfAClientWithOneQuery() {
+        List<OrderReadRow> rows = new ArrayList<>();
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            rows.addAll(readRows(orderId, (int) orderId % 4));
+        }
+        when(customerOrderRepository.findReadRowsByClientId(1L)).thenReturn(rows);
+
+        List<CustomerOrderDTO> orders = orderService.getUserOrders(1L);
+
+        assertThat(orders).extracting(CustomerOrderDTO::getId).containsExactlyElementsOf(LongStream.rangeClosed(1, 20).boxed().toList());
+        assertThat(orders).allSatisfy(order -> assertThat(order.getOrderItems()).hasSize((int) (order.getId() % 4)));
+        verify(customerOrderRepository).findReadRowsByClientId(1L);
+        verifyNoMoreInteractions(customerOrderRepository, customerOrderBatchRepository, clientRepository,
+                inventoryRepository, entityManager);
+    }
+
+    /**
+     * Updates a 1000-line order, changing, removing and adding 100 lines each. The lines are
+     * matched in one pass, the 700 untouched lines are left as they were so Hibernate writes
+     * nothing for them, and the stock change of all lines goes out in one release and one
+     * reduction.
+     */
+    @Test
+    void updatesAThousandLineOrderWithAFixedNumberOfCalls() throws Exception {
+        int lines = 1000;
+        List<OrderItem> stored = new ArrayList<>(lines);
+        for (long id = 1; id <= lines; id++) {
+            stored.add(OrderItem.builder().id(id).inventory(inventory(id)).quantity(2).unitPrice(4.0).subtotal(8.0).build());
+        }
+        CustomerOrder existing = CustomerOrder.builder()
+                .id(ORDER_ID)
+                .client(Client.builder().id(1L).address(Address.builder().country("PT").build()).build())
+                .status(OrderStatus.PENDING.toString())
+                .orderItems(new ArrayList<>(stored))
+                .version(3)
+                .build();
+        stored.forEach(line -> line.setCustomerOrder(existing));
+        when(customerOrderRepository.findAllWithDetailsByIdIn(List.of(ORDER_ID))).thenReturn(List.of(existing));
+        when(customerOrderRepository.saveAndFlush(existing)).thenReturn(existing);
+        when(inventoryRepository.findAllWithItemByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(OrderServiceImplTest::inventory).toList());
+
+        List<OrderItemDTO> updated = new ArrayList<>();
+        for (long id = 1; id <= lines; id++) {
+            if (id <= 100) {
+                updated.add(OrderItemDTO.builder().id(id).inventoryId(id).quantity(5).build());
+            } else if (id > 200) {
+                updated.add(OrderItemDTO.builder().id(id).inventoryId(id).quantity(2).build());
+            }
+        }
+        for (long inventoryId = 1001; inventoryId <= 1100; inventoryId++) {
+            updated.add(OrderItemDTO.builder().inventoryId(inventoryId).quantity(1).build());
+        }
+
+        CustomerOrderDTO result = orderService.updateOrder(ORDER_ID,
+                CustomerOrderDTO.builder().clientId(1L).version(3L).orderItems(updated).build());
+
+        assertThat(result.getOrderItems()).hasSize(lines);
+        assertThat(existing.getOrderItems()).containsAll(stored.subList(200, lines));
+        assertThat(stored.subList(200, lines)).allSatisfy(line -> assertThat(line.getQuantity()).isEqualTo(2));
+        assertThat(existing.getTotalAmount()).isEqualTo(100 * 20.0 + 800 * 8.0 + 100 * 4.0);
+
+        verify(customerOrderRepository).findAllWithDetailsByIdIn(List.of(ORDER_ID));
+        verify(customerOrderRepository).saveAndFlush(existing);
+        verify(clientRepository).findAllWithAddressByIdIn(anyCollection());
+        verify(inventoryRepository).findAllWithItemByIdIn(anyCollection());
+        verifyNoMoreInteractions(customerOrderRepository, clientRepository, inventoryRepository, entityManager);
+
+        ArgumentCaptor<List<InventoryReductionDTO>> released = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<InventoryReductionDTO>> reduced = ArgumentCaptor.forClass(List.class);
+        verify(inventoryService).lockInventory(anyCollection());
+        verify(inventoryService).releaseInventory(released.capture());
+        verify(inventoryService).reduceInventory(reduced.capture());
+        assertThat(released.getValue()).hasSize(100).allSatisfy(line -> assertThat(line.getQuantity()).isEqualTo(2));
+        assertThat(reduced.getValue()).hasSize(200);
+    }
+
+    private static Inventory inventory(long id) {
+        return Inventory.builder().id(id).quantity(100).isActive(true)
+                .item(Item.builder().id(id).name("Item " + id).price(4.0).build()).build();
+    }
+
+    private static List<OrderReadRow> readRows(long orderId, int lines) {
+        Date orderDate = new Date();
+        if (lines == 0) {
+            return List.of(readRow(orderId, orderDate, null));
+        }
+        List<OrderReadRow> rows = new ArrayList<>(lines);
+        for (long line = 1; line <= lines; line++) {
+            rows.add(readRow(orderId, orderDate, orderId * 10_000 + line));
+        }
+        return rows;
+    }
+
+    private static OrderReadRow readRow(long orderId, Date orderDate, Long orderItemId) {
+        boolean hasLine = orderItemId != null;
+        return new OrderReadRow(orderId, orderDate, OrderStatus.PENDING.toString(), 8.0, 0L, 1L, "Ana", "Silva",
+                "ana@example.com", "912345678", "PT", "Porto", "Rua Nova", orderItemId,
+                hasLine ? orderItemId % 100 : null, hasLine ? "Lamp" : null, hasLine ? 2 : null,
+                hasLine ? 4.0 : null, hasLine ? 8.0 : null);
+    }
+
+    private void currentStatus(OrderStatus status) {
+        when(customerOrderBatchRepository.lockStatuses(List.of(ORDER_ID))).thenReturn(Map.of(ORDER_ID, status.toString()));
+    }
+}
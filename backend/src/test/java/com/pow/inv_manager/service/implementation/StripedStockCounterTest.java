@@ -0,0 +1,78 @@
+package com.pow.inv_manager.service.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockCounterTest {
+
+    @Test
+    void takesUpToTheBudget() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertThat(counter.tryTake(7)).isTrue();
+        assertThat(counter.tryTake(4)).isFalse();
+        assertThat(counter.tryTake(3)).isTrue();
+        assertThat(counter.available()).isZero();
+        assertThat(counter.tryTake(1)).isFalse();
+    }
+
+    @Test
+    void gathersUnitsSpreadOverStripes() {
+        // 9 units over 8 stripes leaves no single stripe able to cover the take
+        StripedStockCounter counter = new StripedStockCounter(8, 9);
+
+        assertThat(counter.tryTake(9)).isTrue();
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void putBackAndDrain() {
+        StripedStockCounter counter = new StripedStockCounter(4, 0);
+
+        counter.putBack(5);
+        assertThat(counter.available()).isEqualTo(5);
+        assertThat(counter.tryTake(2)).isTrue();
+        assertThat(counter.drain()).isEqualTo(3);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        int threads = 8;
+        int budget = 10_000;
+        StripedStockCounter counter = new StripedStockCounter(threads, budget);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Integer>> takers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                takers.add(() -> {
+                    int taken = 0;
+                    for (int i = 0; i < budget; i++) {
+                        if (counter.tryTake(3)) {
+                            taken += 3;
+                        }
+                    }
+                    return taken;
+                });
+            }
+            int taken = 0;
+            for (Future<Integer> future : executor.invokeAll(takers)) {
+                taken += future.get();
+            }
+
+            assertThat(taken).isLessThanOrEqualTo(budget);
+            assertThat(taken + counter.available()).isEqualTo(budget);
+            assertThat(counter.available()).isLessThan(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
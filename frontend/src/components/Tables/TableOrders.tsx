@@ -1,19 +1,21 @@
 import React, { useEffect, useState } from 'react';
 import { CustomerOrder } from '../../types/customerOrder.ts';
-import { getAllOrders, deleteOrder } from '../../services/orderService.ts';
+import { getOrdersPage, deleteOrder } from '../../services/orderService.ts';
 
 const TableOrders: React.FC = () => {
   const [orders, setOrders] = useState<CustomerOrder[]>([]);
   const [isLoading, setIsLoading] = useState<boolean>(true);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [isLoadingMore, setIsLoadingMore] = useState<boolean>(false);
   const [searchTerm, setSearchTerm] = useState<string>('');
   const [selectedOrder, setSelectedOrder] = useState<CustomerOrder | null>(null);
 
   useEffect(() => {
     const fetchOrders = async () => {
       try {
-        const data = await getAllOrders();
-        console.log(data);
-        setOrders(data);
+        const page = await getOrdersPage();
+        setOrders(page.orders);
+        setNextCursor(page.nextCursor);
       } catch (error) {
         console.error('Error fetching orders:', error);
       } finally {
@@ -23,6 +25,22 @@ const TableOrders: React.FC = () => {
     fetchOrders();
   }, []);
 
+  const handleLoadMoreClick = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    setIsLoadingMore(true);
+    try {
+      const page = await getOrdersPage(nextCursor);
+      setOrders((prevOrders) => [...prevOrders, ...page.orders]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error fetching orders:', error);
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
   const handleDetailsClick = (order: CustomerOrder) => {
     setSelectedOrder(order);
   };
@@ -134,6 +152,18 @@ const TableOrders: React.FC = () => {
         </div>
       </div>
       {renderOrdersData()}
+      {!isLoading && nextCursor && (
+        <div className="flex justify-center border-t border-stroke py-4 dark:border-strokedark">
+          <button
+            className="hover:text-primary"
+            title="Load More Orders"
+            onClick={handleLoadMoreClick}
+            disabled={isLoadingMore}
+          >
+            {isLoadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
       {selectedOrder && (
         <div className="fixed inset-0 bg-black bg-opacity-50 flex items-center justify-center z-99999">
           <div className="col-span-3 flex items-center justify-between p-6 bg-white rounded-lg shadow dark:bg-boxdark">
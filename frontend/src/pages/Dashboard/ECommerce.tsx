@@ -2,7 +2,7 @@ import React, { useEffect, useState } from 'react';
 import CardDataStats from '../../components/CardDataStats';
 import { getAllClients } from '../../services/clientService.ts';
 import { getAllSuppliers } from '../../services/supplierService.ts';
-import { getAllOrders } from '../../services/orderService.ts';
+import { getOrderCount, getOrdersPage } from '../../services/orderService.ts';
 import { listItems } from '../../services/itemService.ts';
 import { Client } from '../../types/client.ts';
 import { Supplier } from '../../types/supplier.ts';
@@ -85,17 +85,16 @@ const ECommerce: React.FC = () => {
     try {
       setLoading(true);
 
-      const [clients, suppliers, orders, items] = await Promise.all([
+      const [clients, suppliers, totalOrders, latestOrders, items] = await Promise.all([
         getAllClients(),
         getAllSuppliers(),
-        getAllOrders(),
+        getOrderCount(),
+        getOrdersPage(undefined, 1),
         listItems(),
       ]);
-      console.log(orders);
 
       const totalClients = clients.length;
       const totalSuppliers = suppliers.length;
-      const totalOrders = orders.length;
       const totalItems = items.length;
 
       const lastClient =
@@ -103,7 +102,7 @@ const ECommerce: React.FC = () => {
       const lastSupplier =
         suppliers.length > 0 ? suppliers[suppliers.length - 1] : emptySupplier;
       const lastOrder =
-        orders.length > 0 ? orders[orders.length - 1] : emptyOrder;
+        latestOrders.orders.length > 0 ? latestOrders.orders[0] : emptyOrder;
       const lastItem = items.length > 0 ? items[items.length - 1] : emptyItem;
 
       setTotals([totalClients, totalSuppliers, totalOrders, totalItems]);
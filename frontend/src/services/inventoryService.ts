@@ -1,5 +1,5 @@
 import axios from '../js/axios-config';
-import { Inventory } from '../types/Inventory.ts';
+import { Inventory, InventoryFilter, InventoryPage, InventoryReduction } from '../types/Inventory.ts';
 
 /**
  * Add a new inventory item.
@@ -33,12 +33,12 @@ export const updateInventory = async (id: number, updatedInventory: Inventory):
 };
 
 /**
- * Reduce the inventory quantity for an item.
- * @param inventoryItem - The inventory data with reduced quantity.
+ * Take stock from one or more inventory items, all or nothing.
+ * @param reductions - The inventory IDs and the quantities to take from each.
  * @returns A promise that resolves when the operation is successful.
  */
-export const reduceInventory = async (inventoryItem: Inventory): Promise<void> => {
-  await axios.put('/api/inventory/reduce', inventoryItem);
+export const reduceInventory = async (reductions: InventoryReduction[]): Promise<void> => {
+  await axios.put('/api/inventory/reduce', reductions);
 };
 
 /**
@@ -68,3 +68,15 @@ export const getAllInventory = async (): Promise<Inventory[]> => {
   const response = await axios.get('/api/inventory/all');
   return response.data;
 };
+
+/**
+ * Search inventory items on the server, one page at a time.
+ * @param filter - The filters, sort key and direction; omitted fields do not filter.
+ * @param cursor - The nextCursor of the previous page, omitted for the first page.
+ * @param size - The maximum number of items in the page.
+ * @returns A promise resolving to the page of items and the cursor of the next page.
+ */
+export const searchInventory = async (filter: InventoryFilter, cursor?: string, size = 50): Promise<InventoryPage> => {
+  const response = await axios.get('/api/inventory', { params: { ...filter, cursor, size } });
+  return response.data;
+};
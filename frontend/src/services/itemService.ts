@@ -1,5 +1,5 @@
 import axios from '../js/axios-config';
-import { Item } from '../types/item';
+import { Item, ItemImportReport, ItemSearchHit } from '../types/item';
 
 /**
  * Create a new item.
@@ -39,3 +39,36 @@ export const listItems = async (): Promise<Item[]> => {
 export const deleteItem = async (id: number): Promise<void> => {
   await axios.delete(`/api/items/delete/${id}`);
 };
+
+/**
+ * Search items by name, category and description, best match first.
+ * @param q - The search text; every word must match.
+ * @param prefix - Whether the last word may be incomplete, for typeahead.
+ * @param limit - The maximum number of results.
+ * @returns A promise resolving to the matching items with their scores.
+ */
+export const searchItems = async (q: string, prefix = false, limit = 20): Promise<ItemSearchHit[]> => {
+  const response = await axios.get('/api/items/search', { params: { q, prefix, limit } });
+  return response.data;
+};
+
+/**
+ * Bulk-import items from a CSV (with a header row) or NDJSON file.
+ * @param file - The file to upload; it is streamed as the request body.
+ * @param format - The file format.
+ * @returns A promise resolving to the import counts and the rejected rows by line; `aborted` says why an
+ * import stopped midway.
+ */
+export const importItems = async (file: File, format: 'csv' | 'ndjson'): Promise<ItemImportReport> => {
+  const contentType = format === 'csv' ? 'text/csv' : 'application/x-ndjson';
+  try {
+    const response = await axios.post('/api/items/import', file, { headers: { 'Content-Type': contentType } });
+    return response.data;
+  } catch (error) {
+    // An import that stops midway fails with the report of the rows handled so far
+    if (axios.isAxiosError(error) && error.response?.data?.aborted) {
+      return error.response.data;
+    }
+    throw error;
+  }
+};
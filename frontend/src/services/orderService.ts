@@ -1,13 +1,24 @@
 import axios from '../js/axios-config';
-import { CustomerOrder } from '../types/customerOrder';
+import { CustomerOrder, OrderPage, OrderRequest } from '../types/customerOrder';
 import { OrderStatus } from '../types/orderStatus';
 
 /**
- * Fetch all orders.
- * @returns A promise resolving to an array of customer orders.
+ * Fetch one page of orders, newest first.
+ * @param cursor - The nextCursor of the previous page, omitted for the first page.
+ * @param size - The maximum number of orders in the page.
+ * @returns A promise resolving to the page of orders and the cursor of the next page.
  */
-export const getAllOrders = async (): Promise<CustomerOrder[]> => {
-  const response = await axios.get('/api/orders/all');
+export const getOrdersPage = async (cursor?: string, size = 50): Promise<OrderPage> => {
+  const response = await axios.get('/api/orders/all', { params: { cursor, size } });
+  return response.data;
+};
+
+/**
+ * Count all orders.
+ * @returns A promise resolving to the number of orders.
+ */
+export const getOrderCount = async (): Promise<number> => {
+  const response = await axios.get('/api/orders/count');
   return response.data;
 };
 
@@ -32,12 +43,25 @@ export const getUserOrders = async (userId: number): Promise<CustomerOrder[]> =>
 };
 
 /**
- * Create a new order.
+ * Submit a new order. The order is created asynchronously; poll its state with getOrderRequest.
  * @param newOrder - The customer order data to be created.
- * @returns A promise resolving to the newly created order.
+ * @param idempotencyKey - Optional request ID; resubmitting with the same key does not create a second order.
+ * @returns A promise resolving to the state of the submitted request.
+ */
+export const createOrder = async (newOrder: CustomerOrder, idempotencyKey?: string): Promise<OrderRequest> => {
+  const headers = idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : undefined;
+  const response = await axios.post('/api/orders/create', newOrder, { headers });
+  return response.data;
+};
+
+/**
+ * Fetch the state of a submitted order.
+ * @param requestId - The request ID returned by createOrder.
+ * @param wait - Optional time in milliseconds to wait for the order to be created or fail.
+ * @returns A promise resolving to the state of the request.
  */
-export const createOrder = async (newOrder: CustomerOrder): Promise<CustomerOrder> => {
-  const response = await axios.post('/api/orders/create', newOrder);
+export const getOrderRequest = async (requestId: string, wait = 0): Promise<OrderRequest> => {
+  const response = await axios.get(`/api/orders/requests/${encodeURIComponent(requestId)}`, { params: { wait } });
   return response.data;
 };
 
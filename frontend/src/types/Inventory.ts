@@ -7,3 +7,25 @@ export type Inventory = {
   location: string;
   isActive: boolean;
 };
+
+export type InventoryReduction = {
+  inventoryId: number;
+  quantity: number;
+};
+
+export type InventoryFilter = {
+  category?: string;
+  minPrice?: number;
+  maxPrice?: number;
+  active?: boolean;
+  location?: string;
+  minQuantity?: number;
+  maxQuantity?: number;
+  sort?: 'ID' | 'PRICE' | 'QUANTITY';
+  direction?: 'ASC' | 'DESC';
+};
+
+export type InventoryPage = {
+  inventory: Inventory[];
+  nextCursor: string | null;
+};
@@ -14,4 +14,17 @@ export type CustomerOrder = {
   status: string;
   orderItems: OrderItem[];
   totalAmount: number;
+  express?: boolean;
+};
+
+export type OrderPage = {
+  orders: CustomerOrder[];
+  nextCursor: string | null;
+};
+
+export type OrderRequest = {
+  requestId: string;
+  status: 'QUEUED' | 'UNCONFIRMED' | 'CREATED' | 'FAILED';
+  orderId: number | null;
+  failureReason: string | null;
 };
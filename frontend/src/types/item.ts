@@ -6,3 +6,21 @@ export type Item = {
   category: string;
   photo?: string;
 };
+
+export type ItemSearchHit = {
+  item: Item;
+  score: number;
+};
+
+export type ItemImportError = {
+  line: number;
+  message: string;
+};
+
+export type ItemImportReport = {
+  imported: number;
+  failed: number;
+  errors: ItemImportError[];
+  errorsTruncated: boolean;
+  aborted: string | null;
+};